@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode;
+
+import com.mapcode.benchmarks.PointDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for finding the territories which contain a point, comparing {@link RecordScanner}
+ * with checking one {@link Boundary} at a time. This benchmark is in the package com.mapcode,
+ * because it uses package private classes of the library.
+ *
+ * Run with "--jvmArgs '--add-modules jdk.incubator.vector'" on Java 17+ to use the Vector API.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordScannerBenchmark {
+    private static final int NR_POINTS = 1024;  // Must be a power of 2.
+    private static final long SEED = 1234567890L;
+
+    @Param({"UNIFORM", "CITY"})
+    public PointDistribution distribution;
+
+    private Point[] points;
+    private BoundaryLanes territoryBoundaries;
+    private int[] result;
+    private int lastTerritory;
+    private int next;
+
+    @Setup
+    public void setup() {
+        points = distribution.createPoints(NR_POINTS, SEED);
+        territoryBoundaries = DataModel.getInstance().getTerritoryBoundaries();
+        lastTerritory = Territory.AAA.getNumber();
+        result = new int[lastTerritory + 1];
+        next = 0;
+    }
+
+    @Benchmark
+    public int findTerritoriesWithRecordScanner() {
+        final Point point = points[nextIndex()];
+        return RecordScanner.findContaining(territoryBoundaries, 0, lastTerritory,
+                point.getLatMicroDeg(), point.getLonMicroDeg(), result);
+    }
+
+    @Benchmark
+    public int findTerritoriesWithBoundary() {
+        final Point point = points[nextIndex()];
+        final DataModel dataModel = DataModel.getInstance();
+        int count = 0;
+        for (int territory = 0; territory <= lastTerritory; territory++) {
+            if (Boundary.createBoundaryForTerritoryRecord(dataModel.getDataLastRecord(territory)).containsPoint(point)) {
+                result[count] = territory;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int nextIndex() {
+        final int i = next;
+        next = (i + 1) & (NR_POINTS - 1);
+        return i;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode.benchmarks;
+
+import com.mapcode.Alphabet;
+import com.mapcode.Mapcode;
+import com.mapcode.MapcodeCodec;
+import com.mapcode.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.mapcode.benchmarks.EncodeBenchmark.NR_POINTS;
+import static com.mapcode.benchmarks.EncodeBenchmark.SEED;
+
+/**
+ * Benchmarks for converting mapcodes to other alphabets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlphabetBenchmark {
+
+    @Param({"UNIFORM", "CITY"})
+    public PointDistribution distribution;
+
+    // Roman is a no-op conversion, the others cover plain, abjad and Asian alphabets.
+    @Param({"ROMAN", "GREEK", "ARABIC", "DEVANAGARI", "CHINESE"})
+    public Alphabet alphabet;
+
+    private static final int PAGE_SIZE = 100;
+
+    private final List<Mapcode> page = new ArrayList<Mapcode>(PAGE_SIZE);
+    private final StringBuilder buffer = new StringBuilder();
+    private Mapcode[] mapcodes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        final Point[] points = distribution.createPoints(NR_POINTS, SEED);
+        mapcodes = new Mapcode[NR_POINTS];
+        for (int i = 0; i < NR_POINTS; i++) {
+            mapcodes[i] = MapcodeCodec.encode(points[i]).get(0);
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public String getCode() {
+        return mapcodes[nextIndex()].getCode(alphabet);
+    }
+
+    // Codes with a precision are converted every time, rather than remembered by the mapcode.
+    @Benchmark
+    public String getCodePrecision2() {
+        return mapcodes[nextIndex()].getCode(2, alphabet);
+    }
+
+    // A page of search results, rendered one mapcode at a time.
+    @Benchmark
+    public int getCodeWithTerritoryPage() {
+        int length = 0;
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            length += mapcodes[nextIndex()].getCodeWithTerritory(2, alphabet).length();
+        }
+        return length;
+    }
+
+    // The same page, rendered in a single reused buffer.
+    @Benchmark
+    public int appendCodesWithTerritoryPage() {
+        page.clear();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(mapcodes[nextIndex()]);
+        }
+        buffer.setLength(0);
+        Mapcode.appendCodesWithTerritory(buffer, page, 2, alphabet, "\n");
+        return buffer.length();
+    }
+
+    // The same page, with the territory codes in the alphabet as well.
+    @Benchmark
+    public int appendCodesWithTerritoryInAlphabetPage() {
+        page.clear();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(mapcodes[nextIndex()]);
+        }
+        buffer.setLength(0);
+        Mapcode.appendCodesWithTerritory(buffer, page, 2, alphabet, "\n", true);
+        return buffer.length();
+    }
+
+    private int nextIndex() {
+        final int i = next;
+        next = (i + 1) & (NR_POINTS - 1);
+        return i;
+    }
+}
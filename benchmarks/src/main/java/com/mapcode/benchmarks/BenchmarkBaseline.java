@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Benchmark scores (throughput and allocation per operation), which can be stored as a JSON
+ * baseline and compared with the scores of a later run.
+ */
+public final class BenchmarkBaseline {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    // Name of the secondary result of the GC profiler with the bytes allocated per operation.
+    static final String ALLOCATION_RESULT = "gc.alloc.rate.norm";
+
+    /**
+     * Score of a single benchmark, for a single combination of parameters.
+     */
+    public static final class Score {
+        String benchmark;
+        Map<String, String> params;
+        double throughput;
+        String throughputUnit;
+        double allocation;
+
+        @SuppressWarnings("unused")
+        Score() {
+            // Used by GSON.
+        }
+
+        Score(@Nonnull final String benchmark, @Nonnull final Map<String, String> params,
+              final double throughput, @Nonnull final String throughputUnit, final double allocation) {
+            this.benchmark = benchmark;
+            this.params = new TreeMap<String, String>(params);
+            this.throughput = throughput;
+            this.throughputUnit = throughputUnit;
+            this.allocation = allocation;
+        }
+
+        @Nonnull
+        String getKey() {
+            return benchmark + ((params == null) ? "{}" : params.toString());
+        }
+    }
+
+    private final List<Score> scores;
+
+    BenchmarkBaseline(@Nonnull final List<Score> scores) {
+        this.scores = scores;
+    }
+
+    /**
+     * Create a baseline from JMH results. The benchmarks must have been run with the GC profiler.
+     *
+     * @param runResults JMH results.
+     * @return Baseline.
+     */
+    @Nonnull
+    public static BenchmarkBaseline fromRunResults(@Nonnull final Collection<RunResult> runResults) {
+        final List<Score> scores = new ArrayList<Score>();
+        for (final RunResult runResult : runResults) {
+            final BenchmarkParams benchmarkParams = runResult.getParams();
+            final Map<String, String> params = new TreeMap<String, String>();
+            for (final String key : benchmarkParams.getParamsKeys()) {
+                params.put(key, benchmarkParams.getParam(key));
+            }
+            final Result primaryResult = runResult.getPrimaryResult();
+            final Result allocationResult = runResult.getSecondaryResults().get(ALLOCATION_RESULT);
+            if (allocationResult == null) {
+                throw new IllegalArgumentException("Benchmark " + benchmarkParams.getBenchmark() +
+                        " has no result " + ALLOCATION_RESULT + ", run it with the GC profiler");
+            }
+            scores.add(new Score(benchmarkParams.getBenchmark(), params,
+                    primaryResult.getScore(), primaryResult.getScoreUnit(), allocationResult.getScore()));
+        }
+        return new BenchmarkBaseline(scores);
+    }
+
+    @Nonnull
+    public static BenchmarkBaseline read(@Nonnull final File file) throws IOException {
+        final Reader reader = new InputStreamReader(new FileInputStream(file), UTF8);
+        try {
+            final Score[] scores = GSON.fromJson(reader, Score[].class);
+            final List<Score> list = new ArrayList<Score>();
+            if (scores != null) {
+                for (final Score score : scores) {
+                    list.add(score);
+                }
+            }
+            return new BenchmarkBaseline(list);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public void write(@Nonnull final File file) throws IOException {
+        final File dir = file.getAbsoluteFile().getParentFile();
+        if ((dir != null) && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF8);
+        try {
+            GSON.toJson(scores.toArray(new Score[scores.size()]), writer);
+            writer.write('\n');
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Nonnull
+    List<Score> getScores() {
+        return scores;
+    }
+
+    /**
+     * Compare the scores of a run with this baseline. Benchmarks of the run which are not in the baseline, and
+     * benchmarks of the baseline which are not in the run, are reported as regressions as well, as the suite
+     * and the baseline no longer match (the baseline needs to be updated).
+     *
+     * @param current                    Scores of the run.
+     * @param throughputThresholdPercent Maximum allowed throughput decrease, in percent of the baseline.
+     * @param allocationThresholdPercent Maximum allowed allocation increase, in percent of the baseline.
+     * @param allocationToleranceBytes   Additional allowed allocation increase, in bytes per operation.
+     *                                   This avoids failing on noise for benchmarks which (almost) don't allocate.
+     * @return List of regressions, empty if there are none.
+     */
+    @Nonnull
+    public List<String> findRegressions(
+            @Nonnull final BenchmarkBaseline current,
+            final double throughputThresholdPercent,
+            final double allocationThresholdPercent,
+            final double allocationToleranceBytes) {
+        final List<String> regressions = new ArrayList<String>();
+        for (final Score score : current.scores) {
+            final Score baseline = find(score.getKey());
+            if (baseline == null) {
+                regressions.add(score.getKey() + ": not in baseline");
+                continue;
+            }
+            final double minThroughput = baseline.throughput * (1.0 - (throughputThresholdPercent / 100.0));
+            if (score.throughput < minThroughput) {
+                regressions.add(String.format("%s: throughput %.1f %s, baseline %.1f %s (-%.1f%%, max -%.1f%%)",
+                        score.getKey(), score.throughput, score.throughputUnit,
+                        baseline.throughput, baseline.throughputUnit,
+                        percentChange(baseline.throughput, score.throughput), throughputThresholdPercent));
+            }
+            final double maxAllocation = (baseline.allocation * (1.0 + (allocationThresholdPercent / 100.0))) +
+                    allocationToleranceBytes;
+            if (score.allocation > maxAllocation) {
+                regressions.add(String.format("%s: allocation %.1f B/op, baseline %.1f B/op (max %.1f B/op)",
+                        score.getKey(), score.allocation, baseline.allocation, maxAllocation));
+            }
+        }
+        for (final Score baseline : scores) {
+            if (current.find(baseline.getKey()) == null) {
+                regressions.add(baseline.getKey() + ": in baseline, but not run");
+            }
+        }
+        return regressions;
+    }
+
+    @Nullable
+    private Score find(@Nonnull final String key) {
+        for (final Score score : scores) {
+            if (score.getKey().equals(key)) {
+                return score;
+            }
+        }
+        return null;
+    }
+
+    private static double percentChange(final double baseline, final double current) {
+        return (baseline == 0.0) ? 0.0 : (Math.abs(current - baseline) * 100.0) / baseline;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode.benchmarks;
+
+import com.mapcode.DecodeResult;
+import com.mapcode.Direction;
+import com.mapcode.Mapcode;
+import com.mapcode.MapcodeCodec;
+import com.mapcode.Point;
+import com.mapcode.Rectangle;
+import com.mapcode.UnknownMapcodeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.mapcode.benchmarks.EncodeBenchmark.NR_POINTS;
+import static com.mapcode.benchmarks.EncodeBenchmark.SEED;
+
+/**
+ * Benchmarks for decoding mapcodes to points and rectangles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+    private static final double OUTSIDE_DEG = 0.0000001;
+
+    @Param({"UNIFORM", "CITY", "OCEAN"})
+    public PointDistribution distribution;
+
+    private String[] mapcodes;                  // The first mapcode of every point, with territory.
+    private Mapcode[] mapcodeObjects;           // The same mapcodes, as objects.
+    private String[] codesPrecision8;           // The same mapcodes, with precision 8, without territory.
+    private final DecodeResult result = new DecodeResult();
+    private int next;
+
+    @Setup
+    public void setup() {
+        final Point[] points = distribution.createPoints(NR_POINTS, SEED);
+        mapcodes = new String[NR_POINTS];
+        mapcodeObjects = new Mapcode[NR_POINTS];
+        codesPrecision8 = new String[NR_POINTS];
+        for (int i = 0; i < NR_POINTS; i++) {
+            final Mapcode mapcode = MapcodeCodec.encode(points[i]).get(0);
+            mapcodes[i] = mapcode.getCodeWithTerritory();
+            mapcodeObjects[i] = mapcode;
+            codesPrecision8[i] = mapcode.getCode(8);
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public Point decode() throws UnknownMapcodeException {
+        return MapcodeCodec.decode(mapcodes[nextIndex()]);
+    }
+
+    @Benchmark
+    public Rectangle decodeToRectangle() throws UnknownMapcodeException {
+        return MapcodeCodec.decodeToRectangle(mapcodes[nextIndex()]);
+    }
+
+    // Get the center and the zone of a mapcode with two decodes.
+    @Benchmark
+    public Rectangle decodeAndDecodeToRectangle() throws UnknownMapcodeException {
+        final String mapcode = mapcodes[nextIndex()];
+        MapcodeCodec.decode(mapcode);
+        return MapcodeCodec.decodeToRectangle(mapcode);
+    }
+
+    // Get the center and the zone of a mapcode with a single decode, into a reused result.
+    @Benchmark
+    public double decodeToResult() throws UnknownMapcodeException {
+        MapcodeCodec.decodeToResult(mapcodes[nextIndex()], null, result);
+        return result.getLatDeg() + result.getLonDeg() + result.getSouthLatDeg() + result.getWestLonDeg() +
+                result.getNorthLatDeg() + result.getEastLonDeg();
+    }
+
+    // Get the zones of a mapcode for all precisions, from a new mapcode object.
+    @Benchmark
+    public Rectangle getRectangleAllPrecisions() throws UnknownMapcodeException {
+        final int i = nextIndex();
+        final Mapcode mapcode = new Mapcode(codesPrecision8[i], mapcodeObjects[i].getTerritory());
+        Rectangle rectangle = null;
+        for (int precision = 0; precision <= 8; precision++) {
+            rectangle = mapcode.getRectangle(precision);
+        }
+        return rectangle;
+    }
+
+    // Get the zones of a mapcode for all precisions, by decoding the code for every precision.
+    @Benchmark
+    public Rectangle getRectangleAllPrecisionsByDecoding() throws UnknownMapcodeException {
+        final int i = nextIndex();
+        final Mapcode mapcode = mapcodeObjects[i];
+        Rectangle rectangle = null;
+        for (int precision = 0; precision <= 8; precision++) {
+            rectangle = MapcodeCodec.decodeToRectangle(mapcode.getCode(precision), mapcode.getTerritory());
+        }
+        return rectangle;
+    }
+
+    @Benchmark
+    public Map<Direction, Mapcode> getNeighbours() throws UnknownMapcodeException {
+        return MapcodeCodec.getNeighbours(mapcodeObjects[nextIndex()], 0);
+    }
+
+    // Find the neighbours by encoding points just outside the zone of a mapcode, in all territories.
+    @Benchmark
+    public Map<Direction, Mapcode> getNeighboursByEncoding() throws UnknownMapcodeException {
+        final Mapcode mapcode = mapcodeObjects[nextIndex()];
+        final Rectangle rectangle = MapcodeCodec.decodeToRectangle(mapcode.getCode(), mapcode.getTerritory());
+        final double latMin = rectangle.getSouthWest().getLatDeg();
+        final double lonMin = rectangle.getSouthWest().getLonDeg();
+        final double latMax = rectangle.getNorthEast().getLatDeg();
+        final double lonMax = rectangle.getNorthEast().getLonDeg();
+        final Map<Direction, Mapcode> neighbours = new EnumMap<Direction, Mapcode>(Direction.class);
+        for (final Direction direction : Direction.values()) {
+            final String name = direction.name();
+            final double lat = name.startsWith("NORTH") ? (latMax + OUTSIDE_DEG) :
+                    (name.startsWith("SOUTH") ? (latMin - OUTSIDE_DEG) : ((latMin + latMax) / 2.0));
+            final double lon = name.endsWith("EAST") ? (lonMax + OUTSIDE_DEG) :
+                    (name.endsWith("WEST") ? (lonMin - OUTSIDE_DEG) : ((lonMin + lonMax) / 2.0));
+            for (final Mapcode neighbour : MapcodeCodec.encode(lat, lon)) {
+                if (neighbour.getTerritory() == mapcode.getTerritory()) {
+                    neighbours.put(direction, neighbour);
+                    break;
+                }
+            }
+        }
+        return neighbours;
+    }
+
+    private int nextIndex() {
+        final int i = next;
+        next = (i + 1) & (NR_POINTS - 1);
+        return i;
+    }
+}
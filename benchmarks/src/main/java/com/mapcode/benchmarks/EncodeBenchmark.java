@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode.benchmarks;
+
+import com.mapcode.Mapcode;
+import com.mapcode.MapcodeCodec;
+import com.mapcode.MapcodeWithBorderFlag;
+import com.mapcode.MapcodeWithRectangle;
+import com.mapcode.Point;
+import com.mapcode.Territory;
+import com.mapcode.UnknownMapcodeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encoding points to mapcodes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeBenchmark {
+    static final int NR_POINTS = 1024;          // Must be a power of 2.
+    static final long SEED = 1234567890L;
+    static final double RECTANGLE_SIZE_DEG = 0.001;
+    static final int RECTANGLE_SAMPLES = 100;  // About 1 meter apart, to find (almost) all mapcodes.
+
+    @Param({"UNIFORM", "CITY", "OCEAN", "SUBDIVIDED"})
+    public PointDistribution distribution;
+
+    private Point[] points;
+    private Territory[] territories;            // Territory of the first mapcode of every point.
+    private int next;
+
+    @Setup
+    public void setup() {
+        points = distribution.createPoints(NR_POINTS, SEED);
+        territories = new Territory[NR_POINTS];
+        for (int i = 0; i < NR_POINTS; i++) {
+            territories[i] = MapcodeCodec.encode(points[i]).get(0).getTerritory();
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public List<Mapcode> encode() {
+        return MapcodeCodec.encode(points[nextIndex()]);
+    }
+
+    @Benchmark
+    public List<Mapcode> encodeWithTerritory() {
+        final int i = nextIndex();
+        return MapcodeCodec.encode(points[i], territories[i]);
+    }
+
+    @Benchmark
+    public Mapcode encodeToShortest() throws UnknownMapcodeException {
+        final int i = nextIndex();
+        return MapcodeCodec.encodeToShortest(points[i], territories[i]);
+    }
+
+    @Benchmark
+    public Mapcode encodeToShortestInAnyTerritory() {
+        return MapcodeCodec.encodeToShortest(points[nextIndex()]);
+    }
+
+    @Benchmark
+    public List<Mapcode> encodeRestrictToCountryISO2() {
+        // The United States have many subdivisions, which are all included.
+        return MapcodeCodec.encodeRestrictToCountryISO2(points[nextIndex()], "US");
+    }
+
+    @Benchmark
+    public Mapcode encodeToInternational() {
+        return MapcodeCodec.encodeToInternational(points[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean isNearMultipleBorders() {
+        final int i = nextIndex();
+        return MapcodeCodec.isNearMultipleBorders(points[i], territories[i]);
+    }
+
+    // Encode and check every mapcode for round-trip safety, one mapcode at a time.
+    @Benchmark
+    public int encodeAndCheckBorders() {
+        final Point point = points[nextIndex()];
+        int nrNear = 0;
+        for (final Mapcode mapcode : MapcodeCodec.encode(point)) {
+            if (MapcodeCodec.isNearMultipleBorders(point, mapcode.getTerritory())) {
+                nrNear++;
+            }
+        }
+        return nrNear;
+    }
+
+    @Benchmark
+    public List<MapcodeWithBorderFlag> encodeWithBorderFlags() {
+        return MapcodeCodec.encodeWithBorderFlags(points[nextIndex()]);
+    }
+
+    // Enumerate the mapcodes of a small rectangle (about 100 x 100 meters) at a point.
+    @Benchmark
+    public int encodeRectangle() {
+        final int i = nextIndex();
+        final Point point = points[i];
+        int nrMapcodes = 0;
+        for (final MapcodeWithRectangle ignored : MapcodeCodec.encodeRectangle(point,
+                Point.fromDeg(point.getLatDeg() + RECTANGLE_SIZE_DEG, point.getLonDeg() + RECTANGLE_SIZE_DEG),
+                territories[i])) {
+            nrMapcodes++;
+        }
+        return nrMapcodes;
+    }
+
+    // Find the mapcodes of the same rectangle by encoding a dense sample of points.
+    @Benchmark
+    public int encodeRectangleBySampling() {
+        final int i = nextIndex();
+        final Point point = points[i];
+        final Set<String> mapcodes = new HashSet<String>();
+        for (int y = 0; y < RECTANGLE_SAMPLES; y++) {
+            for (int x = 0; x < RECTANGLE_SAMPLES; x++) {
+                for (final Mapcode mapcode : MapcodeCodec.encode(
+                        point.getLatDeg() + ((RECTANGLE_SIZE_DEG * y) / RECTANGLE_SAMPLES),
+                        point.getLonDeg() + ((RECTANGLE_SIZE_DEG * x) / RECTANGLE_SAMPLES), territories[i])) {
+                    mapcodes.add(mapcode.getCode());
+                }
+            }
+        }
+        return mapcodes.size();
+    }
+
+    private int nextIndex() {
+        final int i = next;
+        next = (i + 1) & (NR_POINTS - 1);
+        return i;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs a fixed suite of hot path benchmarks and compares the results with a stored baseline.
+ * The program exits with a non-zero exit code if any benchmark regressed, or if the baseline
+ * does not exist.
+ *
+ * Usage: PerformanceGate baselineFile resultFile throughputThresholdPercent allocationThresholdPercent
+ * allocationToleranceBytes update
+ *
+ * If update is "true", the results are stored as the new baseline instead.
+ */
+public final class PerformanceGate {
+
+    // The suite of benchmarks and parameters that is compared. Changing this requires updating the baseline.
+    private static final String[] SUITE = {
+            "EncodeBenchmark\\.(encode|encodeToShortest|encodeToInternational|isNearMultipleBorders)$",
+            "DecodeBenchmark\\.(decode|decodeToRectangle)$",
+            "TerritoryBenchmark\\.fromStringCode$",
+            "AlphabetBenchmark\\.getCode$"
+    };
+    private static final String[] DISTRIBUTIONS = {"UNIFORM", "CITY"};
+    private static final String[] ALPHABETS = {"GREEK", "ARABIC"};
+
+    private PerformanceGate() {
+        // Prevent instantiation.
+    }
+
+    public static void main(final String[] args) throws IOException, RunnerException {
+        if (args.length != 6) {
+            System.err.println("Usage: PerformanceGate baselineFile resultFile throughputThresholdPercent " +
+                    "allocationThresholdPercent allocationToleranceBytes update");
+            System.exit(2);
+        }
+        final File baselineFile = new File(args[0]);
+        final File resultFile = new File(args[1]);
+        final double throughputThresholdPercent = Double.parseDouble(args[2]);
+        final double allocationThresholdPercent = Double.parseDouble(args[3]);
+        final double allocationToleranceBytes = Double.parseDouble(args[4]);
+        final boolean update = Boolean.parseBoolean(args[5]);
+
+        if (!update && !baselineFile.isFile()) {
+            System.err.println("Baseline " + baselineFile + " not found, create it with -Dperf.update=true");
+            System.exit(1);
+        }
+
+        final BenchmarkBaseline current = BenchmarkBaseline.fromRunResults(runSuite());
+        current.write(resultFile);
+        System.out.println("Results written to " + resultFile);
+
+        if (update) {
+            current.write(baselineFile);
+            System.out.println("Baseline written to " + baselineFile);
+            return;
+        }
+
+        final BenchmarkBaseline baseline = BenchmarkBaseline.read(baselineFile);
+        final List<String> regressions = baseline.findRegressions(current,
+                throughputThresholdPercent, allocationThresholdPercent, allocationToleranceBytes);
+        if (!regressions.isEmpty()) {
+            System.err.println("Performance regressions found, compared to " + baselineFile + ':');
+            for (final String regression : regressions) {
+                System.err.println("  " + regression);
+            }
+            System.exit(1);
+        }
+        System.out.println("No performance regressions found, compared to " + baselineFile);
+    }
+
+    @Nonnull
+    private static Collection<RunResult> runSuite() throws RunnerException {
+        final OptionsBuilder builder = new OptionsBuilder();
+        for (final String include : SUITE) {
+            builder.include(include);
+        }
+        final Options options = builder.
+                param("distribution", DISTRIBUTIONS).
+                param("alphabet", ALPHABETS).
+                warmupIterations(3).
+                warmupTime(TimeValue.seconds(1)).
+                measurementIterations(5).
+                measurementTime(TimeValue.seconds(1)).
+                forks(1).
+                addProfiler(GCProfiler.class).
+                build();
+        return new Runner(options).run();
+    }
+}
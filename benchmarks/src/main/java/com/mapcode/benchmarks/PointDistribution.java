@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode.benchmarks;
+
+import com.mapcode.Point;
+
+import javax.annotation.Nonnull;
+import java.util.Random;
+
+/**
+ * Distributions of points used as input for the benchmarks. All distributions are deterministic
+ * for a given seed, so benchmark runs can be compared.
+ */
+public enum PointDistribution {
+
+    /**
+     * Points uniformly distributed over the surface of the Earth (so mostly water).
+     */
+    UNIFORM {
+        @Nonnull
+        @Override
+        Point createPoint(@Nonnull final Random random) {
+            return Point.fromUniformlyDistributedRandomPoints(random);
+        }
+    },
+
+    /**
+     * Points within a few kilometers of the center of large cities, in territories with
+     * and without subdivisions. This is what most applications encode and decode.
+     */
+    CITY {
+        @Nonnull
+        @Override
+        Point createPoint(@Nonnull final Random random) {
+            final double[] city = CITIES[random.nextInt(CITIES.length)];
+            return Point.fromDeg(
+                    city[0] + (random.nextGaussian() * CITY_STDDEV_DEG),
+                    city[1] + (random.nextGaussian() * CITY_STDDEV_DEG));
+        }
+    },
+
+    /**
+     * Points within a few kilometers of the center of large cities in territories with subdivisions
+     * only. These points are in many overlapping territories, so encoding them visits the most
+     * territory records.
+     */
+    SUBDIVIDED {
+        @Nonnull
+        @Override
+        Point createPoint(@Nonnull final Random random) {
+            final double[] city = SUBDIVIDED_CITIES[random.nextInt(SUBDIVIDED_CITIES.length)];
+            return Point.fromDeg(
+                    city[0] + (random.nextGaussian() * CITY_STDDEV_DEG),
+                    city[1] + (random.nextGaussian() * CITY_STDDEV_DEG));
+        }
+    },
+
+    /**
+     * Points in open ocean, far from land. These points only have an international mapcode.
+     */
+    OCEAN {
+        @Nonnull
+        @Override
+        Point createPoint(@Nonnull final Random random) {
+            final double[] area = OCEANS[random.nextInt(OCEANS.length)];
+            return Point.fromDeg(
+                    area[0] + (random.nextDouble() * (area[2] - area[0])),
+                    area[1] + (random.nextDouble() * (area[3] - area[1])));
+        }
+    };
+
+    // Standard deviation of points around a city center, in degrees (about 5 km).
+    private static final double CITY_STDDEV_DEG = 0.05;
+
+    // City centers: (lat, lon).
+    private static final double[][] CITIES = {
+            {52.3731, 4.8922},      // Amsterdam, NLD.
+            {48.8566, 2.3522},      // Paris, FRA.
+            {51.5074, -0.1278},     // London, GBR.
+            {40.7128, -74.0060},    // New York, US-NY.
+            {34.0522, -118.2437},   // Los Angeles, US-CA.
+            {19.4326, -99.1332},    // Mexico City, MX-CMX.
+            {-23.5505, -46.6333},   // Sao Paulo, BR-SP.
+            {55.7558, 37.6173},     // Moscow, RU-MOW.
+            {28.6139, 77.2090},     // New Delhi, IN-DL.
+            {19.0760, 72.8777},     // Mumbai, IN-MH.
+            {39.9042, 116.4074},    // Beijing, CN-BJ.
+            {35.6762, 139.6503},    // Tokyo, JPN.
+            {-33.8688, 151.2093},   // Sydney, AU-NSW.
+            {6.5244, 3.3792},       // Lagos, NGA.
+            {30.0444, 31.2357},     // Cairo, EGY.
+            {1.3521, 103.8198}      // Singapore, SGP.
+    };
+
+    // City centers in territories with subdivisions: (lat, lon).
+    private static final double[][] SUBDIVIDED_CITIES = {
+            {40.7128, -74.0060},    // New York, US-NY.
+            {34.0522, -118.2437},   // Los Angeles, US-CA.
+            {43.6532, -79.3832},    // Toronto, CA-ON.
+            {19.4326, -99.1332},    // Mexico City, MX-CMX.
+            {-23.5505, -46.6333},   // Sao Paulo, BR-SP.
+            {55.7558, 37.6173},     // Moscow, RU-MOW.
+            {28.6139, 77.2090},     // New Delhi, IN-DL.
+            {39.9042, 116.4074},    // Beijing, CN-BJ.
+            {-33.8688, 151.2093}    // Sydney, AU-NSW.
+    };
+
+    // Ocean areas: (lat min, lon min, lat max, lon max).
+    private static final double[][] OCEANS = {
+            {30.0, -50.0, 45.0, -35.0},     // North Atlantic.
+            {-50.0, -150.0, -35.0, -100.0}, // South Pacific.
+            {-40.0, 60.0, -20.0, 75.0},     // Indian Ocean.
+            {20.0, -170.0, 40.0, -160.0}    // North Pacific.
+    };
+
+    /**
+     * Create an array of points for this distribution.
+     *
+     * @param count Number of points.
+     * @param seed  Seed for the random generator.
+     * @return Points.
+     */
+    @Nonnull
+    public Point[] createPoints(final int count, final long seed) {
+        final Random random = new Random(seed);
+        final Point[] points = new Point[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = createPoint(random);
+        }
+        return points;
+    }
+
+    @Nonnull
+    abstract Point createPoint(@Nonnull final Random random);
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode.benchmarks;
+
+import com.mapcode.MapcodeCodec;
+import com.mapcode.Point;
+import com.mapcode.Territory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.mapcode.benchmarks.EncodeBenchmark.NR_POINTS;
+import static com.mapcode.benchmarks.EncodeBenchmark.SEED;
+
+/**
+ * Benchmarks for parsing territory codes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerritoryBenchmark {
+
+    @Param({"UNIFORM", "CITY"})
+    public PointDistribution distribution;
+
+    private String[] territoryCodes;            // Territory codes of the first mapcode of every point.
+    private String[] territoryNames;            // Same territories, as full names.
+    private int next;
+
+    @Setup
+    public void setup() {
+        final Point[] points = distribution.createPoints(NR_POINTS, SEED);
+        territoryCodes = new String[NR_POINTS];
+        territoryNames = new String[NR_POINTS];
+        for (int i = 0; i < NR_POINTS; i++) {
+            final Territory territory = MapcodeCodec.encode(points[i]).get(0).getTerritory();
+            territoryCodes[i] = territory.toString();
+            territoryNames[i] = territory.getFullName();
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public Territory fromStringCode() {
+        return Territory.fromString(territoryCodes[nextIndex()]);
+    }
+
+    @Benchmark
+    public Territory fromStringName() {
+        return Territory.fromString(territoryNames[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        final int i = next;
+        next = (i + 1) & (NR_POINTS - 1);
+        return i;
+    }
+}
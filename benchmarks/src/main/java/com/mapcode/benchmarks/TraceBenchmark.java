@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode.benchmarks;
+
+import com.mapcode.Mapcode;
+import com.mapcode.MapcodeCodec;
+import com.mapcode.Point;
+import com.mapcode.UnknownMapcodeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.mapcode.benchmarks.EncodeBenchmark.NR_POINTS;
+import static com.mapcode.benchmarks.EncodeBenchmark.SEED;
+
+/**
+ * Benchmarks for the cost of trace logging in the encoder and decoder, which is only compiled in if the JVM
+ * is started with -Dcom.mapcode.trace=true. The log level is not TRACE, so nothing is logged, but the trace
+ * calls box their arguments. Every benchmark runs in its own fork with the C1 compiler only, as C2 removes
+ * most of these allocations with escape analysis: compare gc.alloc.rate.norm of the benchmarks with and
+ * without trace.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TraceBenchmark {
+    private static final String C1_ONLY = "-XX:TieredStopAtLevel=1";
+
+    @Param({"UNIFORM", "CITY"})
+    public PointDistribution distribution;
+
+    private Point[] points;
+    private String[] mapcodes;                  // The first mapcode of every point, with territory.
+    private int next;
+
+    @Setup
+    public void setup() {
+        points = distribution.createPoints(NR_POINTS, SEED);
+        mapcodes = new String[NR_POINTS];
+        for (int i = 0; i < NR_POINTS; i++) {
+            mapcodes[i] = MapcodeCodec.encode(points[i]).get(0).getCodeWithTerritory();
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {C1_ONLY, "-Dcom.mapcode.trace=false"})
+    public List<Mapcode> encode() {
+        return MapcodeCodec.encode(points[nextIndex()]);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {C1_ONLY, "-Dcom.mapcode.trace=true"})
+    public List<Mapcode> encodeWithTrace() {
+        return MapcodeCodec.encode(points[nextIndex()]);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {C1_ONLY, "-Dcom.mapcode.trace=false"})
+    public Point decode() throws UnknownMapcodeException {
+        return MapcodeCodec.decode(mapcodes[nextIndex()]);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {C1_ONLY, "-Dcom.mapcode.trace=true"})
+    public Point decodeWithTrace() throws UnknownMapcodeException {
+        return MapcodeCodec.decode(mapcodes[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        final int i = next;
+        next = (i + 1) & (NR_POINTS - 1);
+        return i;
+    }
+}
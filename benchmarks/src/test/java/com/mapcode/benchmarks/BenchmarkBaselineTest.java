@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode.benchmarks;
+
+import com.mapcode.benchmarks.BenchmarkBaseline.Score;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("MagicNumber")
+public class BenchmarkBaselineTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static final Map<String, String> CITY = Collections.singletonMap("distribution", "CITY");
+    private static final Map<String, String> UNIFORM = Collections.singletonMap("distribution", "UNIFORM");
+
+    @Test
+    public void testNoRegressions() {
+        final BenchmarkBaseline baseline = baseline(1000.0, 500.0);
+        assertTrue(baseline.findRegressions(baseline(1000.0, 500.0), 10.0, 5.0, 16.0).isEmpty());
+        assertTrue(baseline.findRegressions(baseline(901.0, 525.0), 10.0, 5.0, 0.0).isEmpty());
+        assertTrue(baseline.findRegressions(baseline(2000.0, 100.0), 10.0, 5.0, 0.0).isEmpty());
+    }
+
+    @Test
+    public void testThroughputRegression() {
+        final List<String> regressions = baseline(1000.0, 500.0).findRegressions(baseline(899.0, 500.0), 10.0, 5.0, 16.0);
+        assertEquals(1, regressions.size());
+        assertTrue(regressions.get(0).contains("throughput"));
+    }
+
+    @Test
+    public void testAllocationRegression() {
+        final List<String> regressions = baseline(1000.0, 500.0).findRegressions(baseline(1000.0, 542.0), 10.0, 5.0, 16.0);
+        assertEquals(1, regressions.size());
+        assertTrue(regressions.get(0).contains("allocation"));
+
+        // The tolerance prevents failures on noise for benchmarks which don't allocate.
+        assertTrue(baseline(1000.0, 0.0).findRegressions(baseline(1000.0, 0.1), 10.0, 5.0, 16.0).isEmpty());
+    }
+
+    @Test
+    public void testBenchmarksAreMatchedByParameters() {
+        final BenchmarkBaseline baseline = new BenchmarkBaseline(Arrays.asList(
+                new Score("a.B.c", CITY, 1000.0, "ops/s", 100.0),
+                new Score("a.B.c", UNIFORM, 500.0, "ops/s", 100.0)));
+        final BenchmarkBaseline current = new BenchmarkBaseline(Arrays.asList(
+                new Score("a.B.c", CITY, 1000.0, "ops/s", 100.0),
+                new Score("a.B.c", UNIFORM, 400.0, "ops/s", 100.0)));
+        final List<String> regressions = baseline.findRegressions(current, 10.0, 5.0, 16.0);
+        assertEquals(1, regressions.size());
+        assertTrue(regressions.get(0).startsWith("a.B.c{distribution=UNIFORM}: throughput"));
+    }
+
+    @Test
+    public void testMismatchedBenchmarks() {
+        final BenchmarkBaseline baseline = new BenchmarkBaseline(Arrays.asList(
+                new Score("a.B.c", CITY, 1000.0, "ops/s", 100.0),
+                new Score("a.B.c", UNIFORM, 500.0, "ops/s", 100.0)));
+        final BenchmarkBaseline current = new BenchmarkBaseline(Arrays.asList(
+                new Score("a.B.c", CITY, 1000.0, "ops/s", 100.0),
+                new Score("a.B.d", UNIFORM, 1.0, "ops/s", 1000.0)));
+        final List<String> regressions = baseline.findRegressions(current, 10.0, 5.0, 16.0);
+        assertEquals(2, regressions.size());
+        assertEquals("a.B.d{distribution=UNIFORM}: not in baseline", regressions.get(0));
+        assertEquals("a.B.c{distribution=UNIFORM}: in baseline, but not run", regressions.get(1));
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        final File file = new File(folder.getRoot(), "dir/baseline.json");
+        final BenchmarkBaseline baseline = baseline(1234.5, 67.8);
+        baseline.write(file);
+        final BenchmarkBaseline read = BenchmarkBaseline.read(file);
+        assertEquals(1, read.getScores().size());
+        final Score score = read.getScores().get(0);
+        assertEquals("a.B.c", score.benchmark);
+        assertEquals(CITY, score.params);
+        assertEquals(1234.5, score.throughput, 0.0);
+        assertEquals("ops/s", score.throughputUnit);
+        assertEquals(67.8, score.allocation, 0.0);
+    }
+
+    private static BenchmarkBaseline baseline(final double throughput, final double allocation) {
+        return new BenchmarkBaseline(Collections.singletonList(
+                new Score("a.B.c", CITY, throughput, "ops/s", allocation)));
+    }
+}
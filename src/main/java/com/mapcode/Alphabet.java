@@ -66,6 +66,20 @@ public enum Alphabet {
      */
     private final int number;
 
+    /**
+     * All alphabets, indexed by number.
+     */
+    private static final Alphabet[] ALPHABETS_BY_NUMBER;
+
+    static {
+        final Alphabet[] alphabets = values();
+        ALPHABETS_BY_NUMBER = new Alphabet[alphabets.length];
+        for (final Alphabet alphabet : alphabets) {
+            assert ALPHABETS_BY_NUMBER[alphabet.number] == null;
+            ALPHABETS_BY_NUMBER[alphabet.number] = alphabet;
+        }
+    }
+
     /**
      * Private constructor.
      *
@@ -84,6 +98,26 @@ public enum Alphabet {
         return number;
     }
 
+    /**
+     * Get an alphabet from its number. Package private, for internal use only.
+     *
+     * @param number Alphabet number, in [0, {@link #getNrAlphabets()}).
+     * @return Alphabet.
+     */
+    @Nonnull
+    static Alphabet fromNumber(final int number) {
+        return ALPHABETS_BY_NUMBER[number];
+    }
+
+    /**
+     * Return the number of alphabets, without creating a copy of all alphabets like {@link #values()}.
+     *
+     * @return Number of alphabets.
+     */
+    static int getNrAlphabets() {
+        return ALPHABETS_BY_NUMBER.length;
+    }
+
     /**
      * Return alphabet from a string, which needs to be an alphanumeric code.
      *
@@ -92,16 +92,9 @@ final class Boundary {
         if ((latMicroDegMin > latMicroDeg) || (latMicroDeg >= latMicroDegMax)) {
             return false;
         }
-        final int lonMicroDeg = p.getLonMicroDeg();
 
         // Longitude boundaries can extend (slightly) outside the [-180,180) range.
-        if (lonMicroDeg < lonMicroDegMin) {
-            return (lonMicroDegMin <= (lonMicroDeg + Point.MICRO_DEG_360)) && ((lonMicroDeg + Point.MICRO_DEG_360) < lonMicroDegMax);
-        } else if (lonMicroDeg >= lonMicroDegMax) {
-            return (lonMicroDegMin <= (lonMicroDeg - Point.MICRO_DEG_360)) && ((lonMicroDeg - Point.MICRO_DEG_360) < lonMicroDegMax);
-        } else {
-            return true;
-        }
+        return Intrinsics.containsLonMicroDeg(p.getLonMicroDeg(), lonMicroDegMin, lonMicroDegMax);
     }
 
     @Nonnull
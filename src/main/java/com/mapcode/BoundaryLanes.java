@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class stores a series of boundaries as separate arrays ("lanes") per coordinate, rather than
+ * as one array of records. This allows {@link RecordScanner} to check many boundaries at once.
+ *
+ * Like {@link Boundary}, the minimum values are inclusive and the maximum values are exclusive.
+ * Instances are immutable once created by the {@link DataModel}.
+ */
+final class BoundaryLanes {
+    final int[] latMicroDegMin;
+    final int[] latMicroDegMax;
+    final int[] lonMicroDegMin;
+    final int[] lonMicroDegMax;
+
+    BoundaryLanes(final int size) {
+        latMicroDegMin = new int[size];
+        latMicroDegMax = new int[size];
+        lonMicroDegMin = new int[size];
+        lonMicroDegMax = new int[size];
+    }
+
+    int size() {
+        return latMicroDegMin.length;
+    }
+
+    void set(final int index,
+             final int latMicroDegMin, final int lonMicroDegMin,
+             final int latMicroDegMax, final int lonMicroDegMax) {
+        this.latMicroDegMin[index] = latMicroDegMin;
+        this.lonMicroDegMin[index] = lonMicroDegMin;
+        this.latMicroDegMax[index] = latMicroDegMax;
+        this.lonMicroDegMax[index] = lonMicroDegMax;
+    }
+
+    /**
+     * Check if a single boundary contains a point, like {@link Boundary#containsPoint(Point)}, without
+     * creating any objects.
+     *
+     * @param index       Index of boundary.
+     * @param latMicroDeg Latitude of point, in microdegrees.
+     * @param lonMicroDeg Longitude of point, in microdegrees, in range [-180, 180).
+     * @return True if the boundary contains the point.
+     */
+    boolean contains(final int index, final int latMicroDeg, final int lonMicroDeg) {
+        return (latMicroDegMin[index] <= latMicroDeg) && (latMicroDeg < latMicroDegMax[index]) &&
+                Intrinsics.containsLonMicroDeg(lonMicroDeg, lonMicroDegMin[index], lonMicroDegMax[index]);
+    }
+}
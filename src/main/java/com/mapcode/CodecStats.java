@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode;
+
+import com.mapcode.MapcodeInstrumentation.ErrorCategory;
+
+import javax.annotation.Nullable;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class collects statistics of a single encode or decode operation, for instrumentation
+ * and JFR events.
+ * The encoder and decoder only update it if an instance is passed to them.
+ */
+final class CodecStats {
+    int recordsScanned;                     // Number of territory records checked.
+    int codex = -1;                         // Codex of a decoded mapcode, or -1 if unknown.
+    int territoryRecord = -1;               // Territory record used to decode a mapcode, or -1 if unknown.
+    int precision = -1;                     // Precision of a decoded mapcode, or -1 if unknown.
+
+    @Nullable
+    Territory territory;                    // Territory used to decode a mapcode, or null if unknown.
+
+    @Nullable
+    ErrorCategory error;                    // Set if the cause of an exception is known more precisely.
+
+    /**
+     * Reset the statistics, so the object can be reused for another operation.
+     */
+    void clear() {
+        recordsScanned = 0;
+        codex = -1;
+        territoryRecord = -1;
+        precision = -1;
+        territory = null;
+        error = null;
+    }
+}
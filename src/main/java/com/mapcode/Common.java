@@ -19,6 +19,8 @@ package com.mapcode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nonnull;
+
 // ----------------------------------------------------------------------------------------------
 // Package private implementation class. For internal use within the Mapcode implementation only.
 // ----------------------------------------------------------------------------------------------
@@ -30,6 +32,11 @@ import org.slf4j.LoggerFactory;
 final class Common {
     private static final Logger LOG = LoggerFactory.getLogger(Common.class);
 
+    // Trace logging of every encode and decode call. Even if the log level is not TRACE, a trace call boxes its
+    // arguments and creates a varargs array, so the calls are only made if the JVM is started with the option
+    // -Dcom.mapcode.trace=true. This is a constant, so the JIT compiler removes the calls otherwise.
+    static final boolean TRACE = Boolean.getBoolean("com.mapcode.trace");
+
     // TODO: Need better name and explanation.
     static final int[] NC = {
             1, 31, 961, 29791, 923521, 28629151, 887503681
@@ -130,4 +137,11 @@ final class Common {
         assert record <= territoryRecord;
         return record;
     }
+
+    // Swap 2 characters of a mapcode in a buffer.
+    static void swap(@Nonnull final char[] chars, final int i, final int j) {
+        final char ch = chars[i];
+        chars[i] = chars[j];
+        chars[j] = ch;
+    }
 }
@@ -16,8 +16,6 @@
 
 package com.mapcode;
 
-import javax.annotation.Nonnull;
-
 // ----------------------------------------------------------------------------------------------
 // Package private implementation class. For internal use within the Mapcode implementation only.
 // ----------------------------------------------------------------------------------------------
@@ -82,14 +80,14 @@ final class Data {
     }
 
     // TODO: What does this method do? What is parameter i (rename)?
-    @Nonnull
-    static String headerLetter(final int i) {
+    // Returns 0 if the record has no header letter.
+    static char headerLetter(final int i) {
         final int flags = DATA_MODEL.getDataFlags(i);
 
         // TODO: The "magic" of how to interpret flags must be in DataModel, not here.
         if (((flags >> 7) & 3) == 1) {
-            return Character.toString(ENCODE_CHARS[(flags >> 11) & 31]);
+            return ENCODE_CHARS[(flags >> 11) & 31];
         }
-        return "";
+        return 0;
     }
 }
@@ -67,14 +67,6 @@ class DataModel {
 
     private static final int DATA_VERSION_MIN = 220;
 
-    private static int readIntLoHi(final int lo, final int hi) {
-        return (lo & 0xff) + ((hi & 0xff) << 8);
-    }
-
-    private static int readLongLoHi(final int lo, final int mid1, final int mid2, final int hi) {
-        return ((lo & 0xff)) + ((mid1 & 0xff) << 8) + ((mid2 & 0xff) << 16) + ((hi & 0xff) << 24);
-    }
-
     // Data.
     private final int nrTerritories;
     private final int nrTerritoryRecords;
@@ -82,6 +74,10 @@ class DataModel {
     private final int[] index;
     private final int[] data;
 
+    // Boundaries of all territory records, and of all territories (the last record of a territory).
+    private final BoundaryLanes recordBoundaries;
+    private final BoundaryLanes territoryBoundaries;
+
     private static volatile DataModel instance = null;
     private static final Object mutex = new Object();
 
@@ -101,6 +97,7 @@ class DataModel {
     DataModel(@Nonnull final String fileName) throws IncorrectDataModelException {
         // Read data only once in static initializer.
         LOG.info("DataModel: reading regions from file: {}", fileName);
+        final Object event = FlightRecorderEvents.beginDataModelLoad();
         final byte[] readBuffer = new byte[FILE_BUFFER_SIZE];
         int total = 0;
         try {
@@ -130,19 +127,19 @@ class DataModel {
                     if ((bytes[HEADER_ID_1] != 'M') || (bytes[HEADER_ID_2] != 'C')) {
                         throw new IncorrectDataModelException("Data file does not start with correct header: " + fileName);
                     }
-                    final int dataVersion = readIntLoHi(bytes[HEADER_VERSION_LO], bytes[HEADER_VERSION_HI]);
+                    final int dataVersion = Intrinsics.readUnsignedShortLE(bytes, HEADER_VERSION_LO);
 
                     if (dataVersion < DATA_VERSION_MIN) {
                         throw new IncorrectDataModelException("Data file version " + dataVersion + " too low: " + fileName);
                     }
 
                     // Read header: NR TERRITORIES, NR RECTANGLE RECORDS.
-                    nrTerritoryRecords = readIntLoHi(bytes[HEADER_NR_TERRITORIES_RECS_LO], bytes[HEADER_NR_TERRITORIES_RECS_HI]);
-                    nrTerritories = readIntLoHi(bytes[HEADER_NR_TERRITORIES_LO], bytes[HEADER_NR_TERRITORIES_HI]);
+                    nrTerritoryRecords = Intrinsics.readUnsignedShortLE(bytes, HEADER_NR_TERRITORIES_RECS_LO);
+                    nrTerritories = Intrinsics.readUnsignedShortLE(bytes, HEADER_NR_TERRITORIES_LO);
 
                     // Check if the number of territories matches the enumeration in Territory.
-                    if (nrTerritories != Territory.values().length) {
-                        LOG.error("DataModel: expected {} territories, got {}", Territory.values().length, nrTerritories);
+                    if (nrTerritories != Territory.getNrTerritories()) {
+                        LOG.error("DataModel: expected {} territories, got {}", Territory.getNrTerritories(), nrTerritories);
                         throw new IncorrectDataModelException("Data file corrupt: " + fileName);
                     }
 
@@ -161,16 +158,32 @@ class DataModel {
                     index = new int[nrTerritories + 1];
                     int i = HEADER_SIZE;
                     for (int k = 0; k <= nrTerritories; k++) {
-                        index[k] = readIntLoHi(bytes[i], bytes[i + 1]);
+                        index[k] = Intrinsics.readUnsignedShortLE(bytes, i);
                         i += 2;
                     }
 
                     // Read territory rectangle data (DATA_FIELDS_PER_REC longs per record).
                     data = new int[nrTerritoryRecords * DATA_FIELDS_PER_REC];
                     for (int k = 0; k < (nrTerritoryRecords * DATA_FIELDS_PER_REC); k++) {
-                        data[k] = readLongLoHi(bytes[i], bytes[i + 1], bytes[i + 2], bytes[i + 3]);
+                        data[k] = Intrinsics.readIntLE(bytes, i);
                         i += 4;
                     }
+
+                    // Copy the boundaries into lanes, per record and per territory.
+                    recordBoundaries = new BoundaryLanes(nrTerritoryRecords);
+                    for (int k = 0; k < nrTerritoryRecords; k++) {
+                        final int pos = k * DATA_FIELDS_PER_REC;
+                        recordBoundaries.set(k,
+                                data[pos + POS_DATA_LAT_MICRO_DEG_MIN], data[pos + POS_DATA_LON_MICRO_DEG_MIN],
+                                data[pos + POS_DATA_LAT_MICRO_DEG_MAX], data[pos + POS_DATA_LON_MICRO_DEG_MAX]);
+                    }
+                    territoryBoundaries = new BoundaryLanes(nrTerritories);
+                    for (int k = 0; k < nrTerritories; k++) {
+                        final int pos = (index[k + 1] - 1) * DATA_FIELDS_PER_REC;
+                        territoryBoundaries.set(k,
+                                data[pos + POS_DATA_LAT_MICRO_DEG_MIN], data[pos + POS_DATA_LON_MICRO_DEG_MIN],
+                                data[pos + POS_DATA_LAT_MICRO_DEG_MAX], data[pos + POS_DATA_LON_MICRO_DEG_MAX]);
+                    }
                 } finally {
                     outputStream.close();
                 }
@@ -181,7 +194,9 @@ class DataModel {
             throw new IncorrectDataModelException("Cannot initialize static data structure from: " +
                     fileName + ", exception=" + e);
         }
-        LOG.info("DataModel: regions initialized, read {} bytes", total);
+        FlightRecorderEvents.commitDataModelLoad(event, fileName, total, nrTerritories, nrTerritoryRecords);
+        LOG.info("DataModel: regions initialized, read {} bytes, implementation={}, events={}", total,
+                Intrinsics.getImplementationName(), FlightRecorderEvents.getImplementationName());
     }
 
     /**
@@ -206,19 +221,40 @@ class DataModel {
     @SuppressWarnings("PointlessArithmeticExpression")
         // TODO: Explain what this does exactly, why not return a Point or Rectangle?
     int getLonMicroDegMin(final int territoryRecord) {
-        return data[((territoryRecord * DATA_FIELDS_PER_REC) + POS_DATA_LON_MICRO_DEG_MIN)];
+        return recordBoundaries.lonMicroDegMin[territoryRecord];
     }
 
     int getLatMicroDegMin(final int territoryRecord) {
-        return data[(territoryRecord * DATA_FIELDS_PER_REC) + POS_DATA_LAT_MICRO_DEG_MIN];
+        return recordBoundaries.latMicroDegMin[territoryRecord];
     }
 
     int getLonMicroDegMax(final int territoryRecord) {
-        return data[(territoryRecord * DATA_FIELDS_PER_REC) + POS_DATA_LON_MICRO_DEG_MAX];
+        return recordBoundaries.lonMicroDegMax[territoryRecord];
     }
 
     int getLatMicroDegMax(final int territoryRecord) {
-        return data[(territoryRecord * DATA_FIELDS_PER_REC) + POS_DATA_LAT_MICRO_DEG_MAX];
+        return recordBoundaries.latMicroDegMax[territoryRecord];
+    }
+
+    /**
+     * Get the boundaries of all territory records, indexed by territory record.
+     *
+     * @return Boundaries. Must not be modified.
+     */
+    @Nonnull
+    BoundaryLanes getRecordBoundaries() {
+        return recordBoundaries;
+    }
+
+    /**
+     * Get the boundaries of all territories, indexed by territory number. The boundary of a territory
+     * is the boundary of its last territory record, which encloses all its other records.
+     *
+     * @return Boundaries. Must not be modified.
+     */
+    @Nonnull
+    BoundaryLanes getTerritoryBoundaries() {
+        return territoryBoundaries;
     }
 
     int getDataFlags(final int territoryRecord) {
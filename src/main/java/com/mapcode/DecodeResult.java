@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * This class holds the result of decoding a mapcode with
+ * {@link MapcodeCodec#decodeToResult(String, Territory, DecodeResult)}: the center and the zone of the mapcode,
+ * the territory which was used to decode it and its precision, all from a single decode.
+ *
+ * Objects of this class are mutable, so a single object can be reused to decode many mapcodes, without creating
+ * any new objects. The coordinates can be retrieved as degrees, or as {@link Point} and {@link Rectangle} objects,
+ * which are equal to the results of {@link MapcodeCodec#decode(String, Territory)} and
+ * {@link MapcodeCodec#decodeToRectangle(String, Territory)}. Objects of this class are not thread-safe.
+ */
+public final class DecodeResult {
+
+    // Zone of the mapcode, in fractions (see Point). The North and East borders are exclusive.
+    private double latFractionMin;
+    private double latFractionMax;
+    private double lonFractionMin;
+    private double lonFractionMax;
+
+    @Nullable
+    private Territory territory;
+    private int precision;
+    private boolean defined;
+
+    // Statistics of the decoder, reused for every decode.
+    @Nonnull
+    final CodecStats stats = new CodecStats();
+
+    /**
+     * Create an empty result, to be filled by {@link MapcodeCodec#decodeToResult(String, Territory, DecodeResult)}.
+     */
+    public DecodeResult() {
+        defined = false;
+    }
+
+    void set(@Nonnull final MapcodeZone mapcodeZone, @Nonnull final Territory territory, final int precision) {
+        assert !mapcodeZone.isEmpty();
+        this.latFractionMin = mapcodeZone.getLatFractionMin();
+        this.latFractionMax = mapcodeZone.getLatFractionMax();
+        this.lonFractionMin = mapcodeZone.getLonFractionMin();
+        this.lonFractionMax = mapcodeZone.getLonFractionMax();
+        this.territory = territory;
+        this.precision = precision;
+        this.defined = true;
+    }
+
+    void clear() {
+        territory = null;
+        defined = false;
+    }
+
+    /**
+     * Get the center of the mapcode zone, like {@link MapcodeCodec#decode(String, Territory)}.
+     *
+     * @return Center of mapcode zone.
+     */
+    @Nonnull
+    public Point getCenter() {
+        checkDefined();
+        return Point.fromLatLonFractions(getLatFractionCenter(), getLonFractionCenter());
+    }
+
+    /**
+     * Get the mapcode zone, like {@link MapcodeCodec#decodeToRectangle(String, Territory)}.
+     *
+     * @return Mapcode zone. South/West borders are inclusive, North/East borders exclusive.
+     */
+    @Nonnull
+    public Rectangle getRectangle() {
+        checkDefined();
+        return new Rectangle(Point.fromLatLonFractions(latFractionMin, lonFractionMin),
+                Point.fromLatLonFractions(latFractionMax, lonFractionMax));
+    }
+
+    /**
+     * Get the latitude of the center of the mapcode zone, without creating a point.
+     *
+     * @return Latitude in degrees, equal to getCenter().getLatDeg().
+     */
+    public double getLatDeg() {
+        checkDefined();
+        return Point.latFractionToDeg(getLatFractionCenter());
+    }
+
+    /**
+     * Get the longitude of the center of the mapcode zone, without creating a point.
+     *
+     * @return Longitude in degrees, equal to getCenter().getLonDeg().
+     */
+    public double getLonDeg() {
+        checkDefined();
+        return Point.lonFractionToDeg(getLonFractionCenter());
+    }
+
+    /**
+     * Get the South border of the mapcode zone (inclusive), without creating a rectangle.
+     *
+     * @return Latitude in degrees, equal to getRectangle().getSouthWest().getLatDeg().
+     */
+    public double getSouthLatDeg() {
+        checkDefined();
+        return Point.latFractionToDeg(latFractionMin);
+    }
+
+    /**
+     * Get the West border of the mapcode zone (inclusive), without creating a rectangle.
+     *
+     * @return Longitude in degrees, equal to getRectangle().getSouthWest().getLonDeg().
+     */
+    public double getWestLonDeg() {
+        checkDefined();
+        return Point.lonFractionToDeg(lonFractionMin);
+    }
+
+    /**
+     * Get the North border of the mapcode zone (exclusive), without creating a rectangle.
+     *
+     * @return Latitude in degrees, equal to getRectangle().getNorthEast().getLatDeg().
+     */
+    public double getNorthLatDeg() {
+        checkDefined();
+        return Point.latFractionToDeg(latFractionMax);
+    }
+
+    /**
+     * Get the East border of the mapcode zone (exclusive), without creating a rectangle.
+     *
+     * @return Longitude in degrees, equal to getRectangle().getNorthEast().getLonDeg().
+     */
+    public double getEastLonDeg() {
+        checkDefined();
+        return Point.lonFractionToDeg(lonFractionMax);
+    }
+
+    /**
+     * Get the territory which was used to decode the mapcode. This is the territory of the mapcode, or the
+     * territory context, unless the mapcode was decoded in its parent territory (for long codes in subdivisions)
+     * or as an international mapcode.
+     *
+     * @return Territory.
+     */
+    @Nonnull
+    public Territory getTerritory() {
+        checkDefined();
+        assert territory != null;
+        return territory;
+    }
+
+    /**
+     * Get the precision of the decoded mapcode.
+     *
+     * @return Precision. Range: 0..8.
+     */
+    public int getPrecision() {
+        checkDefined();
+        return precision;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return defined ? ("center:" + getCenter() + ", rectangle:" + getRectangle() +
+                ", territory:" + territory + ", precision:" + precision) : "undefined";
+    }
+
+    private double getLatFractionCenter() {
+        return Math.floor((latFractionMin + latFractionMax) / 2.0);
+    }
+
+    private double getLonFractionCenter() {
+        return Math.floor((lonFractionMin + lonFractionMax) / 2.0);
+    }
+
+    private void checkDefined() {
+        if (!defined) {
+            throw new IllegalStateException("No mapcode decoded");
+        }
+    }
+}
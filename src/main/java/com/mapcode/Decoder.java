@@ -20,8 +20,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import static com.mapcode.Boundary.createBoundaryForTerritoryRecord;
+import static com.mapcode.Common.TRACE;
+import static com.mapcode.Common.swap;
 
 // ----------------------------------------------------------------------------------------------
 // Package private implementation class. For internal use within the mapcode implementation only.
@@ -49,10 +52,19 @@ final class Decoder {
     static MapcodeZone decodeToMapcodeZone(@Nonnull final String argMapcode,
                                            @Nonnull final Territory argTerritory)
             throws UnknownMapcodeException {
-        LOG.trace("decode: mapcode={}, territory={}", argMapcode, argTerritory.name());
+        return decodeToMapcodeZone(argMapcode, argTerritory, null);
+    }
+
+    @Nonnull
+    static MapcodeZone decodeToMapcodeZone(@Nonnull final String argMapcode,
+                                           @Nonnull final Territory argTerritory,
+                                           @Nullable final CodecStats stats)
+            throws UnknownMapcodeException {
+        if (TRACE) {
+            LOG.trace("decode: mapcode={}, territory={}", argMapcode, argTerritory.name());
+        }
 
         String mapcode = argMapcode;
-        Territory territory = argTerritory;
 
         String precisionPostfix = "";
         final int positionOfDash = mapcode.indexOf('-');
@@ -66,16 +78,54 @@ final class Decoder {
             mapcode = mapcode.substring(0, positionOfDash);
         }
         assert !mapcode.contains("-");
+        if (stats != null) {
+            stats.precision = precisionPostfix.length();
+        }
+
+        final DecodedCell cell = decodeToCell(mapcode, argMapcode, argTerritory, stats);
+        final MapcodeZone mapcodeZone = (cell == null) ? new MapcodeZone() : cell.decodeZone(precisionPostfix);
+        if (TRACE) {
+            LOG.trace("decode: zone={}", mapcodeZone);
+        }
+        return mapcodeZone;
+    }
+
+    /**
+     * Decode a mapcode without precision to the cell it refers to. The zone of the mapcode with any precision can
+     * be derived from the cell, with {@link DecodedCell#decodeZone(String)}, without decoding the mapcode again.
+     *
+     * @param mapcode   Mapcode without precision and without territory.
+     * @param territory Territory.
+     * @return Cell, or null if the mapcode does not refer to a cell in the territory.
+     * @throws UnknownMapcodeException Thrown if the mapcode cannot be decoded.
+     */
+    @Nullable
+    static DecodedCell decodeToCell(@Nonnull final String mapcode,
+                                    @Nonnull final Territory territory)
+            throws UnknownMapcodeException {
+        assert !mapcode.contains("-");
+        return decodeToCell(mapcode, mapcode, territory, null);
+    }
+
+    @Nullable
+    private static DecodedCell decodeToCell(@Nonnull final String mapcode,
+                                            @Nonnull final String argMapcode,
+                                            @Nonnull final Territory argTerritory,
+                                            @Nullable final CodecStats stats)
+            throws UnknownMapcodeException {
+        Territory territory = argTerritory;
 
         // TODO: Explain what AEU unpack does.
-        mapcode = aeuUnpack(mapcode).trim();
-        if (mapcode.isEmpty()) {
+        // The mapcode is unpacked in place and decoded from the same characters.
+        final char[] chars = decodeUTF16(mapcode).toCharArray();
+        final int length = aeuUnpack(chars, 0, chars.length);
+        if (length == 0) {
             // TODO: Is this a useful log message?
             LOG.debug("decode: Failed to aeuUnpack {}", argMapcode);
             throw new UnknownMapcodeException("Failed to AEU unpack, mapcode=" + argMapcode + ", territory=" + argTerritory);
         }
 
-        final int codexLen = mapcode.length() - 1;
+        final int codexLen = length - 1;
 
         // *** long codes in states are handled by the country
         if (codexLen >= 9) {
@@ -99,11 +149,18 @@ final class Decoder {
         final int uptoTerritoryRecord = DATA_MODEL.getDataLastRecord(territoryNumber);
 
         // Determine the codex pattern as 2-digits: length-of-left-part * 10 + length-of-right-part.
-        final int positionOfDot = mapcode.indexOf('.');
+        final int positionOfDot = indexOfDot(chars, 0, length);
         final int codex = (positionOfDot * 10) + (codexLen - positionOfDot);
+        if (stats != null) {
+            stats.territory = territory;
+            stats.codex = codex;
+        }
 
-        MapcodeZone mapcodeZone = new MapcodeZone();
+        DecodedCell cell = null;
+        int nrRecordsScanned = 0;
+        int decodedTerritoryRecord = -1;
         for (int territoryRecord = fromTerritoryRecord; territoryRecord <= uptoTerritoryRecord; territoryRecord++) {
+            nrRecordsScanned++;
             final int codexOfTerritory = Data.getCodex(territoryRecord);
             final Boundary boundaryOfTerritory = createBoundaryForTerritoryRecord(territoryRecord);
             if (Data.getTerritoryRecordType(territoryRecord) == Data.TERRITORY_RECORD_TYPE_NONE) {
@@ -113,7 +170,8 @@ final class Decoder {
                     if (((codexOfTerritory == 21) && (codex == 22)) ||
                             ((codexOfTerritory == 22) && (codex == 32)) ||
                             ((codexOfTerritory == 13) && (codex == 23))) {
-                        mapcodeZone = decodeNameless(mapcode, territoryRecord, precisionPostfix);
+                        cell = decodeNameless(chars, length, territoryRecord);
+                        decodedTerritoryRecord = territoryRecord;
                         break;
                     }
                 } else {
@@ -121,55 +179,13 @@ final class Decoder {
                     // i = grid without headerletter
                     if ((codexOfTerritory == codex) ||
                             ((codex == 22) && (codexOfTerritory == 21))) {
-
-                        mapcodeZone = decodeGrid(mapcode,
+                        decodedTerritoryRecord = territoryRecord;
+                        cell = decodeGrid(chars, 0, length,
                                 boundaryOfTerritory.getLonMicroDegMin(), boundaryOfTerritory.getLatMicroDegMin(),
                                 boundaryOfTerritory.getLonMicroDegMax(), boundaryOfTerritory.getLatMicroDegMax(),
-                                territoryRecord, precisionPostfix);
-
-                        // first of all, make sure the zone fits the country
-                        mapcodeZone = mapcodeZone.restrictZoneTo(createBoundaryForTerritoryRecord(uptoTerritoryRecord));
-
-                        if (Data.isRestricted(territoryRecord) && !mapcodeZone.isEmpty()) {
-                            int nrZoneOverlaps = 0;
-                            int j;
-                            final Point result = mapcodeZone.getCenter();
-                            // see if midpoint of mapcode zone is in any sub-area...
-                            for (j = territoryRecord - 1; j >= fromTerritoryRecord; j--) {
-                                if (!Data.isRestricted(j)) {
-                                    if (createBoundaryForTerritoryRecord(j).containsPoint(result)) {
-                                        nrZoneOverlaps++;
-                                        break;
-                                    }
-                                }
-                            }
-
-                            if (nrZoneOverlaps == 0) {
-                                // see if mapcode zone OVERLAPS any sub-area...
-                                MapcodeZone zfound = new MapcodeZone();
-                                for (j = fromTerritoryRecord; j < territoryRecord; j++) { // try all smaller rectangles j
-                                    if (!Data.isRestricted(j)) {
-                                        final MapcodeZone z = mapcodeZone.restrictZoneTo(createBoundaryForTerritoryRecord(j));
-                                        if (!z.isEmpty()) {
-                                            nrZoneOverlaps++;
-                                            if (nrZoneOverlaps == 1) {
-                                                // first fit! remember...
-                                                zfound = new MapcodeZone(z);
-                                            } else { // nrZoneOverlaps > 1
-                                                // more than one hit
-                                                break; // give up!
-                                            }
-                                        }
-                                    }
-                                }
-                                if (nrZoneOverlaps == 1) { // intersected exactly ONE sub-area?
-                                    mapcodeZone = new MapcodeZone(zfound); // use the intersection found...
-                                }
-                            }
-
-                            if (nrZoneOverlaps == 0) {
-                                mapcodeZone = new MapcodeZone();
-                            }
+                                territoryRecord);
+                        if (cell != null) {
+                            cell.setGridWithoutHeaderLetter(fromTerritoryRecord, territoryRecord);
                         }
                         break;
                     }
@@ -177,11 +193,12 @@ final class Decoder {
             } else if (Data.getTerritoryRecordType(territoryRecord) == Data.TERRITORY_RECORD_TYPE_PIPE) {
                 // i = grid with headerletter
                 if ((codex == (codexOfTerritory + 10)) &&
-                        (Data.headerLetter(territoryRecord).charAt(0) == mapcode.charAt(0))) {
-                    mapcodeZone = decodeGrid(mapcode.substring(1),
+                        (Data.headerLetter(territoryRecord) == chars[0])) {
+                    decodedTerritoryRecord = territoryRecord;
+                    cell = decodeGrid(chars, 1, length,
                             boundaryOfTerritory.getLonMicroDegMin(), boundaryOfTerritory.getLatMicroDegMin(),
                             boundaryOfTerritory.getLonMicroDegMax(), boundaryOfTerritory.getLatMicroDegMax(),
-                            territoryRecord, precisionPostfix);
+                            territoryRecord);
                     break;
                 }
             } else {
@@ -190,15 +207,123 @@ final class Decoder {
                 // i = autoheader
                 if (((codex == 23) && (codexOfTerritory == 22)) ||
                         ((codex == 33) && (codexOfTerritory == 23))) {
-                    mapcodeZone = decodeAutoHeader(mapcode, territoryRecord, precisionPostfix);
+                    cell = decodeAutoHeader(chars, length, territoryRecord);
+                    decodedTerritoryRecord = territoryRecord;
                     break;
                 }
             }
         }
 
-        mapcodeZone = mapcodeZone.restrictZoneTo(createBoundaryForTerritoryRecord(uptoTerritoryRecord));
-        LOG.trace("decode: zone={}", mapcodeZone);
-        return mapcodeZone;
+        if (stats != null) {
+            stats.recordsScanned += nrRecordsScanned;
+            stats.territoryRecord = decodedTerritoryRecord;
+        }
+        if (cell != null) {
+            cell.setUptoTerritoryRecord(uptoTerritoryRecord);
+        }
+        return cell;
+    }
+
+    /**
+     * This class defines the cell a mapcode without precision refers to: the corner and size of the cell, from which
+     * the zone of the mapcode with any precision is determined, and the records the zone must be restricted to.
+     * Cells are only modified by the decoder, before they are returned.
+     */
+    static final class DecodedCell {
+        private final int y;
+        private final int x;
+        private final int dividerx4;
+        private final int dividery;             // Negative if the cell is decoded from its North border.
+        private final int lonOffset4;
+        private final int extremeLatMicroDeg;
+        private final int maxLonMicroDeg;
+
+        // Records to check for grids without header letter, which may be restricted, or -1 otherwise.
+        private int fromTerritoryRecord = -1;
+        private int territoryRecord = -1;
+
+        // Last record of the territory, which contains the zone.
+        private int uptoTerritoryRecord;
+
+        DecodedCell(final int y, final int x, final int dividerx4, final int dividery, final int lonOffset4,
+                    final int extremeLatMicroDeg, final int maxLonMicroDeg) {
+            this.y = y;
+            this.x = x;
+            this.dividerx4 = dividerx4;
+            this.dividery = dividery;
+            this.lonOffset4 = lonOffset4;
+            this.extremeLatMicroDeg = extremeLatMicroDeg;
+            this.maxLonMicroDeg = maxLonMicroDeg;
+        }
+
+        private void setGridWithoutHeaderLetter(final int fromTerritoryRecord, final int territoryRecord) {
+            this.fromTerritoryRecord = fromTerritoryRecord;
+            this.territoryRecord = territoryRecord;
+        }
+
+        private void setUptoTerritoryRecord(final int uptoTerritoryRecord) {
+            this.uptoTerritoryRecord = uptoTerritoryRecord;
+        }
+
+        /**
+         * Decode the zone of the mapcode of this cell with a precision postfix.
+         *
+         * @param precisionPostfix Precision postfix (without '-'), in uppercase ASCII, possibly empty.
+         * @return Mapcode zone, empty if the postfix is invalid or the zone is outside the territory.
+         */
+        @Nonnull
+        MapcodeZone decodeZone(@Nonnull final String precisionPostfix) {
+            MapcodeZone mapcodeZone = decodeExtension(y, x, dividerx4, dividery, precisionPostfix,
+                    lonOffset4, extremeLatMicroDeg, maxLonMicroDeg);
+            if (territoryRecord >= 0) {
+
+                // first of all, make sure the zone fits the country
+                mapcodeZone = mapcodeZone.restrictZoneTo(createBoundaryForTerritoryRecord(uptoTerritoryRecord));
+
+                if (Data.isRestricted(territoryRecord) && !mapcodeZone.isEmpty()) {
+                    int nrZoneOverlaps = 0;
+                    int j;
+                    final Point result = mapcodeZone.getCenter();
+                    // see if midpoint of mapcode zone is in any sub-area...
+                    for (j = territoryRecord - 1; j >= fromTerritoryRecord; j--) {
+                        if (!Data.isRestricted(j)) {
+                            if (createBoundaryForTerritoryRecord(j).containsPoint(result)) {
+                                nrZoneOverlaps++;
+                                break;
+                            }
+                        }
+                    }
+
+                    if (nrZoneOverlaps == 0) {
+                        // see if mapcode zone OVERLAPS any sub-area...
+                        MapcodeZone zfound = new MapcodeZone();
+                        for (j = fromTerritoryRecord; j < territoryRecord; j++) { // try all smaller rectangles j
+                            if (!Data.isRestricted(j)) {
+                                final MapcodeZone z = mapcodeZone.restrictZoneTo(createBoundaryForTerritoryRecord(j));
+                                if (!z.isEmpty()) {
+                                    nrZoneOverlaps++;
+                                    if (nrZoneOverlaps == 1) {
+                                        // first fit! remember...
+                                        zfound = new MapcodeZone(z);
+                                    } else { // nrZoneOverlaps > 1
+                                        // more than one hit
+                                        break; // give up!
+                                    }
+                                }
+                            }
+                        }
+                        if (nrZoneOverlaps == 1) { // intersected exactly ONE sub-area?
+                            mapcodeZone = new MapcodeZone(zfound); // use the intersection found...
+                        }
+                    }
+
+                    if (nrZoneOverlaps == 0) {
+                        mapcodeZone = new MapcodeZone();
+                    }
+                }
+            }
+            return mapcodeZone.restrictZoneTo(createBoundaryForTerritoryRecord(uptoTerritoryRecord));
+        }
     }
 
     // ----------------------------------------------------------------------
@@ -278,6 +403,22 @@ final class Decoder {
     };
     // @formatter:on
 
+    // Transliteration tables for ASCII characters, per alphabet, derived from ASCII2LANGUAGE. Lowercase letters
+    // are converted as their uppercase variants, other characters above 'Z' become '?' and characters below 'A'
+    // are kept as they are.
+    private static final char[][] ASCII_TO_ALPHABET = createAsciiToAlphabet();
+
+    @Nonnull
+    private static char[][] createAsciiToAlphabet() {
+        final char[][] tables = new char[ASCII2LANGUAGE.length][128];
+        for (int alphabetCode = 0; alphabetCode < ASCII2LANGUAGE.length; alphabetCode++) {
+            for (int ch = 0; ch < 128; ch++) {
+                tables[alphabetCode][ch] = transliterateChar((char) ch, alphabetCode);
+            }
+        }
+        return tables;
+    }
+
     // @formatter:off
     @SuppressWarnings("LongLine") final static Unicode2Ascii[] UNICODE2ASCII = {
             /* Roman    */ new Unicode2Ascii('\u0041', '\u005a', "ABCDEFGHIJKLMNOPQRSTUVWXYZ"),                                                        // Roman
@@ -328,25 +469,26 @@ final class Decoder {
     };
     // @formatter:on
 
-    @Nonnull
-    private static MapcodeZone decodeGrid(
-            @Nonnull final String str,
+    @Nullable
+    private static DecodedCell decodeGrid(
+            @Nonnull final char[] chars,
+            final int start,
+            final int end,
             final int minx,
             final int miny,
             final int maxx,
             final int maxy,
-            final int m,
-            @Nonnull final String extrapostfix) {
+            final int m) {
         // for a well-formed result, and integer variables
-        String result = str;
+        // (the characters are changed in place)
         int relx;
         int rely;
-        final int codexlen = result.length() - 1; // length ex dot
-        int prelen = result.indexOf('.'); // dot position
+        final int codexlen = (end - start) - 1; // length ex dot
+        int prelen = indexOfDot(chars, start, end) - start; // dot position
 
         if ((prelen == 1) && (codexlen == 5)) {
             prelen++;
-            result = result.substring(0, 1) + result.charAt(2) + '.' + result.substring(3);
+            swap(chars, start + 1, start + 2);
         }
         final int postlen = codexlen - prelen;
 
@@ -361,10 +503,10 @@ final class Decoder {
         }
 
         if ((prelen == 4) && (divx == 961) && (divy == 961)) {
-            result = result.substring(0, 1) + result.charAt(2) + result.charAt(1) + result.substring(3);
+            swap(chars, start + 1, start + 2);
         }
 
-        int v = decodeBase31(result);
+        int v = decodeBase31(chars, start, end);
 
         if ((divx != divy) && (prelen > 2)) // D==6
         {
@@ -387,21 +529,21 @@ final class Decoder {
         final int xp = Common.X_SIDE[postlen];
         final int dividerx = ((xgridsize + xp) - 1) / xp;
 
-        String rest = result.substring(prelen + 1);
+        final int rest = start + prelen + 1;
 
         // decode relative (postfix vs rely, relx)
         final int difx;
         int dify;
 
         if (postlen == 3) {
-            final Point d = decodeTriple(rest);
+            final Point d = decodeTriple(chars, rest);
             difx = d.getLonMicroDeg();
             dify = d.getLatMicroDeg();
         } else {
             if (postlen == 4) {
-                rest = String.valueOf(rest.charAt(0)) + rest.charAt(2) + rest.charAt(1) + rest.charAt(3);
+                swap(chars, rest + 1, rest + 2);
             }
-            v = decodeBase31(rest);
+            v = decodeBase31(chars, rest, end);
             difx = v / yp;
             dify = v % yp;
         }
@@ -413,28 +555,27 @@ final class Decoder {
 
         final Point pt = Point.fromMicroDeg(cornery, cornerx);
         if (!(createBoundaryForTerritoryRecord(m).containsPoint(pt))) {
-            LOG.info("decodeGrid: Failed decodeGrid({}): {} not in {}", str, pt, createBoundaryForTerritoryRecord(m));
-            return new MapcodeZone(); // already out of range
+            LOG.info("decodeGrid: Failed decodeGrid({}): {} not in {}", String.valueOf(chars, start, end - start), pt,
+                    createBoundaryForTerritoryRecord(m));
+            return null; // already out of range
         }
 
         final int decodeMaxx = ((relx + xgridsize) < maxx) ? (relx + xgridsize) : maxx;
         final int decodeMaxy = ((rely + ygridsize) < maxy) ? (rely + ygridsize) : maxy;
-        return decodeExtension(cornery, cornerx, dividerx << 2, dividery, extrapostfix,
+        return new DecodedCell(cornery, cornerx, dividerx << 2, dividery,
                 0, decodeMaxy, decodeMaxx); // grid
     }
 
-    @Nonnull
-    private static MapcodeZone decodeNameless(
-            @Nonnull final String str,
-            final int firstrec,
-            @Nonnull final String extrapostfix) {
-        String result = str;
+    @Nullable
+    private static DecodedCell decodeNameless(
+            @Nonnull final char[] chars,
+            final int length,
+            final int firstrec) {
+        // remove the dot (the characters are changed in place)
         final int codexm = Data.getCodex(firstrec);
-        if (codexm == 22) {
-            result = result.substring(0, 3) + result.substring(4);
-        } else {
-            result = result.substring(0, 2) + result.substring(3);
-        }
+        final int dotpos = (codexm == 22) ? 3 : 2;
+        System.arraycopy(chars, dotpos + 1, chars, dotpos, length - dotpos - 1);
+        final int end = length - 1;
 
         final int a = Common.countCityCoordinatesForCountry(codexm, firstrec, firstrec);
 
@@ -445,7 +586,7 @@ final class Decoder {
         boolean swapletters = false;
 
         if ((codexm != 21) && (a <= 31)) {
-            final int offset = DECODE_CHARS[(int) result.charAt(0)];
+            final int offset = DECODE_CHARS[(int) chars[0]];
 
             if (offset < (r * (p + 1))) {
                 nrX = offset / (p + 1);
@@ -454,7 +595,7 @@ final class Decoder {
                 nrX = r + ((offset - (r * (p + 1))) / p);
             }
         } else if ((codexm != 21) && (a < 62)) {
-            nrX = DECODE_CHARS[(int) result.charAt(0)];
+            nrX = DECODE_CHARS[(int) chars[0]];
             if (nrX < (62 - a)) {
                 swapletters = codexm == 22;
             } else {
@@ -471,22 +612,22 @@ final class Decoder {
             }
 
             // decode and determine x
-            v = decodeBase31(result);
+            v = decodeBase31(chars, 0, end);
             nrX = v / basePowerA;
             v %= basePowerA;
         }
 
         if (swapletters && !Data.isSpecialShape(firstrec + nrX)) {
-            result = result.substring(0, 2) + result.charAt(3) + result.charAt(2) + result.charAt(4);
+            swap(chars, 2, 3);
         }
 
         if ((codexm != 21) && (a <= 31)) {
-            v = decodeBase31(result);
+            v = decodeBase31(chars, 0, end);
             if (nrX > 0) {
                 v -= ((nrX * p) + ((nrX < r) ? nrX : r)) * 961 * 961;
             }
         } else if ((codexm != 21) && (a < 62)) {
-            v = decodeBase31(result.substring(1));
+            v = decodeBase31(chars, 1, end);
             if ((nrX >= (62 - a)) && (v >= (16 * 961 * 31))) {
                 v -= 16 * 961 * 31;
                 nrX++;
@@ -494,7 +635,7 @@ final class Decoder {
         }
 
         if (nrX > a) {  // past end!
-            return new MapcodeZone();
+            return null;
         }
 
         final int territoryRecord = firstrec + nrX;
@@ -526,8 +667,9 @@ final class Decoder {
 
         if (dx >= xSIDE) // else out-of-range!
         {
-            LOG.error("decodeGrid: Failed, decodeNameless({}): dx {} > xSIDE {}", str, dx, xSIDE);
-            return new MapcodeZone(); // return undefined (out of range!)
+            LOG.error("decodeGrid: Failed, decodeNameless({}): dx {} > xSIDE {}", String.valueOf(chars, 0, end),
+                    dx, xSIDE);
+            return null; // return undefined (out of range!)
         }
 
         final int dividerx4 = Common.xDivider(miny, maxy); // 4 times too large!
@@ -535,30 +677,31 @@ final class Decoder {
 
         final int cornerx = minx + ((dx * dividerx4) / 4);
         final int cornery = maxy - (dy * dividery);
-        return decodeExtension(cornery, cornerx, dividerx4, -dividery, extrapostfix,
+        return new DecodedCell(cornery, cornerx, dividerx4, -dividery,
                 ((dx * dividerx4) % 4), miny, maxx); // nameless
     }
 
-    @Nonnull
-    private static MapcodeZone decodeAutoHeader(
-            final String input,
-            final int m,
-            @Nonnull final String extrapostfix) {
+    @Nullable
+    private static DecodedCell decodeAutoHeader(
+            @Nonnull final char[] chars,
+            final int length,
+            final int m) {
         // returns Point.isUndefined() in case or error
         int storageStart = 0;
         final int codexm = Data.getCodex(m);
 
-        int value = decodeBase31(input); // decode top (before dot)
+        int value = decodeBase31(chars, 0, length); // decode top (before dot)
         value *= 961 * 31;
-        final Point triple = decodeTriple(input.substring(input.length() - 3));
+        final Point triple = decodeTriple(chars, length - 3);
         // decode bottom 3 chars
 
         int i;
         i = m;
         while (true) {
             if ((Data.getTerritoryRecordType(i) < Data.TERRITORY_RECORD_TYPE_PLUS) || (Data.getCodex(i) != codexm)) {
-                LOG.error("decodeGrid: Failed, decodeAutoHeader({}): out of {} records", input, codexm);
-                return new MapcodeZone(); // return undefined
+                LOG.error("decodeGrid: Failed, decodeAutoHeader({}): out of {} records",
+                        String.valueOf(chars, 0, length), codexm);
+                return null; // return undefined
             }
 
             final int maxx = createBoundaryForTerritoryRecord(i).getLonMicroDegMax();
@@ -596,11 +739,12 @@ final class Decoder {
                 final int cornerx = minx + (vx * dividerx);
 
                 if ((cornerx < minx) || (cornerx >= maxx) || (cornery < miny) || (cornery > maxy)) {
-                    LOG.error("decodeGrid: Failed, decodeAutoHeader({}): corner {}, {} out of bounds", input, cornery, cornerx);
-                    return new MapcodeZone(); // corner out of bounds
+                    LOG.error("decodeGrid: Failed, decodeAutoHeader({}): corner {}, {} out of bounds",
+                            String.valueOf(chars, 0, length), cornery, cornerx);
+                    return null; // corner out of bounds
                 }
 
-                return decodeExtension(cornery, cornerx, dividerx << 2, -dividery, extrapostfix,
+                return new DecodedCell(cornery, cornerx, dividerx << 2, -dividery,
                         0, miny, maxx); // autoheader
             }
             storageStart += product;
@@ -612,33 +756,62 @@ final class Decoder {
     private static String aeuUnpack(@Nonnull final String argStr) {
         // unpack encoded into all-digit
         // (assume str already uppercase!), returns "" in case of error
-        String str = decodeUTF16(argStr);
+        final String str = decodeUTF16(argStr);
+        final char[] chars = str.toCharArray();
+        final int length = aeuUnpack(chars, 0, chars.length);
+        if (length == 0) {
+            return "";
+        }
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Unpack an all-digit mapcode that was packed with vowels by {@link Encoder#aeuPack(char[], int, int, boolean)}
+     * and check that all characters are valid. The mapcode is changed in place. Package private for testing.
+     *
+     * @param chars  Characters of the mapcode, in ASCII (see {@link #decodeUTF16(String)}) and without a precision
+     *               extension.
+     * @param offset Start of mapcode in chars.
+     * @param length Length of mapcode.
+     * @return New length of the mapcode, or 0 if the mapcode is invalid.
+     */
+    static int aeuUnpack(
+            @Nonnull final char[] chars,
+            final int offset,
+            final int length) {
         boolean voweled = false;
-        final int lastpos = str.length() - 1;
-        int dotpos = str.indexOf('.');
+        final int lastpos = length - 1;
+        int dotpos = -1;
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] == '.') {
+                dotpos = i;
+                break;
+            }
+        }
         if ((dotpos < 2) || (lastpos < (dotpos + 2))) {
-            return ""; // Error: no dot, or less than 2 letters before dot, or
+            return 0; // Error: no dot, or less than 2 letters before dot, or
         }
         // less than 2 letters after dot
 
-        if (str.charAt(0) == 'A') { // v1.50
-            int v1 = DECODE_CHARS[(int) str.charAt(lastpos)];
+        final int last = offset + lastpos;
+        if (chars[offset] == 'A') { // v1.50
+            int v1 = DECODE_CHARS[(int) chars[last]];
             if (v1 < 0) {
                 v1 = 31;
             }
-            int v2 = DECODE_CHARS[(int) str.charAt(lastpos - 1)];
+            int v2 = DECODE_CHARS[(int) chars[last - 1]];
             if (v2 < 0) {
                 v2 = 31;
             }
-            final String s = String.valueOf(1000 + v1 + (32 * v2));
-            str = s.charAt(1) + str.substring(1, lastpos - 1) + s.charAt(2) + s.charAt(3);
+            final int v = v1 + (32 * v2);
+            chars[offset] = Data.ENCODE_CHARS[(v / 100) % 10];
+            chars[last - 1] = Data.ENCODE_CHARS[(v / 10) % 10];
+            chars[last] = Data.ENCODE_CHARS[v % 10];
             voweled = true;
-        } else if (str.charAt(0) == 'U') { // v.1.50 debug decoding of U+alldigitmapcode
-            voweled = true;
-            str = str.substring(1);
-            dotpos--;
+        } else if (chars[offset] == 'U') { // v.1.50 debug decoding of U+alldigitmapcode
+            return 0; // Not supported.
         } else {
-            int v = str.charAt(lastpos - 1);
+            int v = chars[last - 1];
             if (v == 'A') {
                 v = 0;
             } else if (v == 'E') {
@@ -649,7 +822,7 @@ final class Decoder {
                 v = -1;
             }
             if (v >= 0) {
-                final char e = str.charAt(lastpos);
+                final char e = chars[last];
                 if (e == 'A') {
                     v += 31;
                 } else if (e == 'E') {
@@ -657,38 +830,36 @@ final class Decoder {
                 } else if (e == 'U') {
                     v += 33;
                 } else {
-                    final int ve = DECODE_CHARS[(int) str.charAt(lastpos)];
+                    final int ve = DECODE_CHARS[(int) chars[last]];
                     if (ve < 0) {
-                        return "";
+                        return 0;
                     }
                     v += ve;
                 }
                 if (v >= 100) {
-                    return "";
+                    return 0;
                 }
                 voweled = true;
-                str = str.substring(0, lastpos - 1) + Data.ENCODE_CHARS[v / 10]
-                        + Data.ENCODE_CHARS[v % 10];
+                chars[last - 1] = Data.ENCODE_CHARS[v / 10];
+                chars[last] = Data.ENCODE_CHARS[v % 10];
             }
         }
 
-        if ((dotpos < 2) || (dotpos > 5)) {
-            return "";
+        if (dotpos > 5) {
+            return 0;
         }
 
         for (int v = 0; v <= lastpos; v++) {
             if (v != dotpos) {
-                //noinspection RedundantCast
-                final int i = (int) str.charAt(v);
-                if (DECODE_CHARS[i] < 0) {
-                    return ""; // bad char!
-                } else if (voweled && (DECODE_CHARS[(int) str.charAt(v)] > 9)) {
-                    return ""; // no-nodigit!
+                final int i = DECODE_CHARS[(int) chars[offset + v]];
+                if (i < 0) {
+                    return 0; // bad char!
+                } else if (voweled && (i > 9)) {
+                    return 0; // no-nodigit!
                 }
             }
         }
-
-        return str;
+        return length;
     }
 
     /**
@@ -699,6 +870,11 @@ final class Decoder {
      */
     @Nonnull
     static String decodeUTF16(@Nonnull final String mapcode) {
+
+        // Plain ASCII mapcodes are returned as they are.
+        if (isPlainAscii(mapcode)) {
+            return mapcode;
+        }
         String result;
         final StringBuilder asciiBuf = new StringBuilder();
         for (final char ch : mapcode.toCharArray()) {
@@ -768,26 +944,95 @@ final class Decoder {
             mapcodeToEncode = mapcode;
         }
 
-        final StringBuilder sb = new StringBuilder();
-        for (char ch : mapcodeToEncode.toCharArray()) {
-            ch = Character.toUpperCase(ch);
-            if (ch > 'Z') {
-                // Not in any valid range?
-                sb.append('?');
-            } else if (ch < 'A') {
-                // Valid but not a letter (e.g. a dot, a space...). Leave untranslated.
-                sb.append(ch);
+        return transliterate(mapcodeToEncode, alphabetCode);
+    }
+
+    /**
+     * Encode a mapcode in all alphabets at once. This is the same as calling
+     * {@link #encodeUTF16(String, int)} for every alphabet, but the conversions which are
+     * shared by several alphabets are only done once.
+     *
+     * @param mapcode Mapcode, in uppercase ASCII.
+     * @return Mapcode per alphabet, indexed by alphabet number.
+     * @throws IllegalArgumentException Thrown if the mapcode cannot be encoded in one of the alphabets.
+     */
+    @Nonnull
+    static String[] encodeUTF16InAllAlphabets(@Nonnull final String mapcode) throws IllegalArgumentException {
+        final String abjad = convertToAbjad(mapcode);
+        final String[] result = new String[Alphabet.getNrAlphabets()];
+        for (int alphabetCode = 0; alphabetCode < result.length; alphabetCode++) {
+            if (alphabetCode == Alphabet.GREEK.getNumber()) {
+                result[alphabetCode] = encodeUTF16(mapcode, alphabetCode);
+            } else if ((alphabetCode == Alphabet.HEBREW.getNumber()) ||
+                    (alphabetCode == Alphabet.KOREAN.getNumber()) ||
+                    (alphabetCode == Alphabet.ARABIC.getNumber())) {
+                result[alphabetCode] = transliterate(abjad, alphabetCode);
             } else {
-                sb.append(ASCII2LANGUAGE[alphabetCode][(int) ch - (int) 'A']);
+                result[alphabetCode] = transliterate(mapcode, alphabetCode);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Encode the start of a mapcode in an alphabet and append it to a buffer. This is the same as appending
+     * the result of {@link #encodeUTF16(String, int)} for the start of the mapcode, but does not create a
+     * string for most alphabets.
+     *
+     * @param buffer       Buffer to append to.
+     * @param mapcode      Mapcode, in uppercase ASCII.
+     * @param end          End of the part of the mapcode to encode, exclusive.
+     * @param alphabetCode Alphabet number.
+     * @throws IllegalArgumentException Thrown if the mapcode cannot be encoded in the alphabet.
+     */
+    static void appendUTF16(
+            @Nonnull final StringBuilder buffer,
+            @Nonnull final String mapcode,
+            final int end,
+            final int alphabetCode) throws IllegalArgumentException {
+        if ((alphabetCode == Alphabet.GREEK.getNumber()) ||
+                (alphabetCode == Alphabet.HEBREW.getNumber()) ||
+                (alphabetCode == Alphabet.KOREAN.getNumber()) ||
+                (alphabetCode == Alphabet.ARABIC.getNumber())) {
+            buffer.append(encodeUTF16(mapcode.substring(0, end), alphabetCode));
+        } else {
+            final char[] table = ASCII_TO_ALPHABET[alphabetCode];
+            for (int i = 0; i < end; i++) {
+                final char ch = mapcode.charAt(i);
+                buffer.append((ch < 128) ? table[ch] : transliterateChar(ch, alphabetCode));
             }
         }
-        return sb.toString();
     }
 
     @Nonnull
-    private static Point decodeTriple(@Nonnull final String str) {
-        final int c1 = DECODE_CHARS[(int) str.charAt(0)];
-        final int x = decodeBase31(str.substring(1));
+    private static String transliterate(@Nonnull final String mapcode, final int alphabetCode) {
+        final char[] table = ASCII_TO_ALPHABET[alphabetCode];
+        final int length = mapcode.length();
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            final char ch = mapcode.charAt(i);
+            chars[i] = (ch < 128) ? table[ch] : transliterateChar(ch, alphabetCode);
+        }
+        return new String(chars);
+    }
+
+    private static char transliterateChar(final char ch, final int alphabetCode) {
+        final char uppercase = Character.toUpperCase(ch);
+        if (uppercase > 'Z') {
+            // Not in any valid range?
+            return '?';
+        } else if (uppercase < 'A') {
+            // Valid but not a letter (e.g. a dot, a space...). Leave untranslated.
+            return uppercase;
+        } else {
+            return ASCII2LANGUAGE[alphabetCode][(int) uppercase - (int) 'A'];
+        }
+    }
+
+    @Nonnull
+    private static Point decodeTriple(@Nonnull final char[] chars, final int start) {
+        final int c1 = DECODE_CHARS[(int) chars[start]];
+        final int x = decodeBase31(chars, start + 1, start + 3);
         if (c1 < 24) {
             return Point.fromMicroDeg(((c1 / 6) * 34) + (x % 34), ((c1 % 6) * 28) + (x / 34));
         }
@@ -813,11 +1058,12 @@ final class Decoder {
     }
 
     // / lowest level encode/decode routines
-    // decode up to dot or EOS;
+    // decode from start up to dot or end;
     // returns negative in case of error
-    private static int decodeBase31(@Nonnull final String code) {
+    private static int decodeBase31(@Nonnull final char[] code, final int start, final int end) {
         int value = 0;
-        for (final char c : code.toCharArray()) {
+        for (int i = start; i < end; i++) {
+            final char c = code[i];
             if (c == '.') {
                 return value;
             }
@@ -829,6 +1075,15 @@ final class Decoder {
         return value;
     }
 
+    private static int indexOfDot(@Nonnull final char[] chars, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (chars[i] == '.') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     @Nonnull
     private static MapcodeZone decodeExtension(
             final int y,
@@ -918,6 +1173,17 @@ final class Decoder {
         return mapcodeZone;
     }
 
+    private static boolean isPlainAscii(@Nonnull final String str) {
+        final int length = str.length();
+        for (int i = 0; i < length; i++) {
+            final char ch = str.charAt(i);
+            if ((ch < 1) || (ch > 'z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static boolean isAbjadScript(@Nonnull final String argStr) {
         for (final char ch : argStr.toCharArray()) {
             //noinspection RedundantCast
@@ -1023,19 +1289,19 @@ final class Decoder {
     @SuppressWarnings("NumericCastThatLosesPrecision")
     @Nonnull
     private static String convertToAbjad(@Nonnull final String mapcode) {
-        String str;
-        final String rest;
         final int h = mapcode.indexOf('-');
-        if (h > 0) {
-            rest = mapcode.substring(h);
-            str = aeuUnpack(mapcode.substring(0, h));
+        final int codeLength = (h > 0) ? h : mapcode.length();
+
+        // Unpack the code in place, without the precision extension.
+        final char[] chars;
+        if (TerritoryNameIndex.isPlainAscii(mapcode, 0, codeLength)) {
+            chars = new char[codeLength];
+            mapcode.getChars(0, codeLength, chars, 0);
         } else {
-            rest = "";
-            str = aeuUnpack(mapcode);
+            chars = decodeUTF16(mapcode.substring(0, codeLength)).toCharArray();
         }
-
-        final int len = str.length();
-        final int dot = str.indexOf('.');
+        final int len = aeuUnpack(chars, 0, chars.length);
+        final int dot = indexOfDot(chars, 0, len);
         if ((dot < 2) || (dot > 5)) {
             return mapcode;
         }
@@ -1043,7 +1309,8 @@ final class Decoder {
 
         // see if >2 non-digits in a row
         int inarow = 0;
-        for (final char ch : str.toCharArray()) {
+        for (int i = 0; i < len; i++) {
+            final char ch = chars[i];
             if (ch != '.') {
                 inarow++;
                 if ((ch >= '0') && (ch <= '9')) {
@@ -1058,6 +1325,9 @@ final class Decoder {
             // no need to do anything
             return mapcode;
         }
+        String str = new String(chars, 0, len);
+        final String rest = (h > 0) ? mapcode.substring(h) : "";
+
         // determine the code of the second non-digit character (before or after the dot)
         int c = DECODE_CHARS[(int) str.charAt(2)];
         if (c < 0) {
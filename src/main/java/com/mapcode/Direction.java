@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+/**
+ * This enum defines the directions of the neighbouring zones of a mapcode zone,
+ * see {@link MapcodeCodec#getNeighbours(Mapcode, int)}.
+ */
+public enum Direction {
+    NORTH(1, 0),
+    NORTH_EAST(1, 1),
+    EAST(0, 1),
+    SOUTH_EAST(-1, 1),
+    SOUTH(-1, 0),
+    SOUTH_WEST(-1, -1),
+    WEST(0, -1),
+    NORTH_WEST(1, -1);
+
+    private final int latStep;      // 1 for north, -1 for south, 0 otherwise.
+    private final int lonStep;      // 1 for east, -1 for west, 0 otherwise.
+
+    Direction(final int latStep, final int lonStep) {
+        this.latStep = latStep;
+        this.lonStep = lonStep;
+    }
+
+    int getLatStep() {
+        return latStep;
+    }
+
+    int getLonStep() {
+        return lonStep;
+    }
+}
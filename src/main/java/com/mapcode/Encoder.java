@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import static com.mapcode.Boundary.createBoundaryForTerritoryRecord;
@@ -51,116 +52,568 @@ final class Encoder {
 
     @Nonnull
     static List<Mapcode> encode(
+            final double latDeg,
+            final double lonDeg,
+            @Nullable final Territory territory) {
+
+        return encode(latDeg, lonDeg, territory, null);
+    }
+
+    @Nonnull
+    static List<Mapcode> encode(
+            final double latDeg,
+            final double lonDeg,
+            @Nullable final Territory territory,
+            @Nullable final CodecStats stats) {
+
+        final List<Mapcode> results = new ArrayList<Mapcode>();
+        if (territory == Territory.AAA) {
+            results.add(encodeToInternational(latDeg, lonDeg, stats));
+        } else {
+            encode(latDeg, lonDeg, territory, null, results, null, stats);
+        }
+        return results;
+    }
+
+    /**
+     * Encode a point like {@link #encode(double, double, Territory, CodecStats)}, and determine for every
+     * mapcode if the point is near multiple borders of its territory (or of its parent territory), see
+     * {@link NearBorderIndex}. The border bands are checked in the same pass over the records of a territory
+     * which finds the records to encode the point in.
+     *
+     * @param latDeg              Latitude.
+     * @param lonDeg              Longitude.
+     * @param territory           Territory to encode in, or null for all territories.
+     * @param nearMultipleBorders Receives the flags of the mapcodes: bit i is set if the point is near
+     *                            multiple borders of the territory of mapcode i. Must be empty.
+     * @param stats               Receives the number of records inspected, or null.
+     * @return Mapcodes, in the same order as {@link #encode(double, double, Territory, CodecStats)}.
+     */
+    @Nonnull
+    static List<Mapcode> encodeWithBorderFlags(
+            final double latDeg,
+            final double lonDeg,
+            @Nullable final Territory territory,
+            @Nonnull final BitSet nearMultipleBorders,
+            @Nullable final CodecStats stats) {
+        assert nearMultipleBorders.isEmpty();
+        final List<Mapcode> results = new ArrayList<Mapcode>();
+        if (territory == Territory.AAA) {
+            results.add(encodeToInternational(latDeg, lonDeg, stats));
+        } else {
+            encode(latDeg, lonDeg, territory, null, results, nearMultipleBorders, stats);
+        }
+        return results;
+    }
+
+    /**
+     * Encode a point in a set of territories only. Only the records of these territories are inspected.
+     *
+     * @param latDeg           Latitude.
+     * @param lonDeg           Longitude.
+     * @param territoryNumbers Numbers of the territories to encode in, in ascending order.
+     * @param stats            Receives the number of records inspected, or null.
+     * @return Mapcodes, in the same order as they would be returned for all territories.
+     */
+    @Nonnull
+    static List<Mapcode> encode(
+            final double latDeg,
+            final double lonDeg,
+            @Nonnull final int[] territoryNumbers,
+            @Nullable final CodecStats stats) {
+
+        final List<Mapcode> results = new ArrayList<Mapcode>();
+        encode(latDeg, lonDeg, null, territoryNumbers, results, null, stats);
+        return results;
+    }
+
+    /**
+     * Encode a point to its shortest mapcode, without creating any other mapcodes. The records of a
+     * territory are ordered such that the first mapcode found in a territory is the shortest, so the
+     * encoder stops with a territory as soon as it finds one.
+     *
+     * @param latDeg    Latitude.
+     * @param lonDeg    Longitude.
+     * @param territory Territory to encode in. If null, the shortest mapcode of all territories is returned,
+     *                  and the first one if there are several of the same length.
+     * @param stats     Receives the number of records inspected, or null.
+     * @return Shortest mapcode, or null if the point cannot be encoded in the territory.
+     */
+    @Nullable
+    static Mapcode encodeToShortest(
             final double latDeg,
             final double lonDeg,
             @Nullable final Territory territory,
-            final boolean limitToOneResult) {
+            @Nullable final CodecStats stats) {
+
+        if (territory == Territory.AAA) {
+            return encodeToInternational(latDeg, lonDeg, stats);
+        }
+        return encode(latDeg, lonDeg, territory, null, null, null, stats);
+    }
+
+    /**
+     * Encode a point to its international mapcode directly, without scanning territories.
+     *
+     * The international territory consists of a number of latitude bands around the world, each
+     * with its own grid, followed by a single record which encloses the world but never produces a
+     * mapcode. Exactly one band contains the point, so it is found with a binary search on the
+     * latitude lane and encoded on its grid. This produces the same result as the last mapcode
+     * returned by the generic encoder.
+     *
+     * @param latDeg Latitude.
+     * @param lonDeg Longitude.
+     * @param stats  Receives the number of records inspected, or null.
+     * @return International mapcode.
+     */
+    @Nonnull
+    static Mapcode encodeToInternational(
+            final double latDeg,
+            final double lonDeg,
+            @Nullable final CodecStats stats) {
+        final Point pointToEncode = Point.fromDeg(latDeg, lonDeg);
+        final int latMicroDeg = pointToEncode.getLatMicroDeg();
+        final BoundaryLanes lanes = DATA_MODEL.getRecordBoundaries();
+
+        // Find the last band which starts at or below the latitude (the last record is not a band).
+        int low = DATA_MODEL.getDataFirstRecord(Territory.AAA.getNumber());
+        int high = DATA_MODEL.getDataLastRecord(Territory.AAA.getNumber()) - 1;
+        int nrRecords = 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (lanes.latMicroDegMin[mid] <= latMicroDeg) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+            ++nrRecords;
+        }
+        if (stats != null) {
+            stats.recordsScanned += nrRecords;
+        }
 
-        return encode(latDeg, lonDeg, territory, limitToOneResult, null);
+        // Fall back to the generic encoder if the data does not consist of bands as expected.
+        if ((Data.getTerritoryRecordType(low) != Data.TERRITORY_RECORD_TYPE_PIPE) || (Data.getCodex(low) >= 54) ||
+                (latMicroDeg < lanes.latMicroDegMin[low]) || (lanes.latMicroDegMax[low] <= latMicroDeg)) {
+            final List<Mapcode> results = new ArrayList<Mapcode>();
+            encode(latDeg, lonDeg, Territory.AAA, null, results, null, stats);
+            assert !results.isEmpty();
+            return results.get(results.size() - 1);
+        }
+        final char[] buffer = new char[MAX_MAPCODE_LENGTH];
+        final int length = encodeGrid(low, pointToEncode, buffer);
+        assert length > 4;
+        aeuPack(buffer, 0, length, false);
+        return Mapcode.fromCodePrecision8(new String(buffer, 0, length), Territory.AAA);
     }
 
     // ----------------------------------------------------------------------
     // Private methods.
     // ----------------------------------------------------------------------
 
+    // Maximum length of a mapcode without territory: a header letter, 5 characters, a dot, 4 characters,
+    // a dash and 8 precision characters.
+    static final int MAX_MAPCODE_LENGTH = 1 + 5 + 1 + 4 + 1 + 8;
+
+    // Maximum number of data records of a single territory.
+    private static final int MAX_RECORDS_PER_TERRITORY;
+
+    static {
+        int max = 0;
+        for (int territoryNumber = 0; territoryNumber < Territory.getNrTerritories(); territoryNumber++) {
+            max = Math.max(max, (DATA_MODEL.getDataLastRecord(territoryNumber) -
+                    DATA_MODEL.getDataFirstRecord(territoryNumber)) + 1);
+        }
+        MAX_RECORDS_PER_TERRITORY = max;
+    }
+
+    /**
+     * Arrays which receive the records found by the encoder. They are large enough for any territory and are
+     * reused by every encode on the same thread, as encode does not call itself. The records of a parent
+     * territory are found while the records of a subdivision are still being used, so they have their own array.
+     */
+    private static final class RecordBuffers {
+        final int[] territoryRecords = new int[Territory.getNrTerritories()];
+        final int[] subTerritoryRecords = new int[MAX_RECORDS_PER_TERRITORY];
+        final int[] parentSubTerritoryRecords = new int[MAX_RECORDS_PER_TERRITORY];
+        final char[] buffer = new char[MAX_MAPCODE_LENGTH];
+    }
+
+    private static final ThreadLocal<RecordBuffers> RECORD_BUFFERS = new ThreadLocal<RecordBuffers>() {
+        @Override
+        protected RecordBuffers initialValue() {
+            return new RecordBuffers();
+        }
+    };
+
     private final static char[] ENCODE_CHARS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'B', 'C', 'D', 'F',
             'G', 'H', 'J', 'K', 'L', 'M', 'N', 'P', 'Q', 'R', 'S', 'T', 'V', 'W', 'X', 'Y', 'Z', 'A', 'E', 'U'};
 
-    @Nonnull
-    private static List<Mapcode> encode(
+    /**
+     * Encode a point in all territories, a single territory or a set of territories.
+     *
+     * @param argLatDeg        Latitude.
+     * @param argLonDeg        Longitude.
+     * @param territory        Single territory to encode in, or null.
+     * @param territoryNumbers Numbers of territories to encode in, in ascending order, or null. If both
+     *                         territory and territoryNumbers are null, all territories are used.
+     * @param results          Receives all mapcodes. If null, only the shortest mapcode is returned.
+     * @param nearBorderFlags  Receives the near-border flags of the results (bit i for results[i]), or null
+     *                         if they are not needed. Only used if results is not null.
+     * @param stats            Receives the number of records inspected, or null.
+     * @return Shortest mapcode if results is null, otherwise null.
+     */
+    @Nullable
+    private static Mapcode encode(
             final double argLatDeg,
             final double argLonDeg,
             @Nullable final Territory territory,
-            final boolean limitToOneResult,
-            @Nullable final Territory argStateOverride) {
-        LOG.trace("encode: latDeg={}, lonDeg={}, territory={}, limitToOneResult={}",
-                argLatDeg, argLonDeg, (territory == null) ? null : territory.name(), limitToOneResult);
+            @Nullable final int[] territoryNumbers,
+            @Nullable final List<Mapcode> results,
+            @Nullable final BitSet nearBorderFlags,
+            @Nullable final CodecStats stats) {
+        assert (nearBorderFlags == null) || (results != null);
+        if (TRACE) {
+            LOG.trace("encode: latDeg={}, lonDeg={}, territory={}, shortest={}",
+                    argLatDeg, argLonDeg, (territory == null) ? null : territory.name(), results == null);
+        }
 
         final Point pointToEncode = Point.fromDeg(argLatDeg, argLonDeg);
-        final List<Mapcode> results = new ArrayList<Mapcode>();
-        int lastBaseSubTerritoryNumber = -1;
-
-        // Determine whether to walk through all records, or just for one (given) territory.
-        final int firstTerritoryRecord = (territory != null) ? territory.getNumber() : 0;
-        final int lastTerritoryRecord = (territory != null) ? territory.getNumber() : Territory.AAA.getNumber();
-        for (int territoryRecord = firstTerritoryRecord; territoryRecord <= lastTerritoryRecord; territoryRecord++) {
+        final BoundaryLanes territoryBoundaries = DATA_MODEL.getTerritoryBoundaries();
+        final RecordBuffers recordBuffers = RECORD_BUFFERS.get();
+        final char[] buffer = recordBuffers.buffer;
+
+        // Find the territories which cover the point to encode (their last data record contains it).
+        final int[] territoryRecords = recordBuffers.territoryRecords;
+        int nrTerritoryRecords = 0;
+        if (territoryNumbers == null) {
+
+            // Determine whether to walk through all records, or just for one (given) territory.
+            final int firstTerritoryRecord = (territory != null) ? territory.getNumber() : 0;
+            final int lastTerritoryRecord = (territory != null) ? territory.getNumber() : Territory.AAA.getNumber();
+            nrTerritoryRecords = RecordScanner.findContaining(territoryBoundaries,
+                    firstTerritoryRecord, lastTerritoryRecord,
+                    pointToEncode.getLatMicroDeg(), pointToEncode.getLonMicroDeg(), territoryRecords);
+            if (stats != null) {
+                stats.recordsScanned += (lastTerritoryRecord - firstTerritoryRecord) + 1;
+            }
+        } else {
+            for (final int territoryNumber : territoryNumbers) {
+                if (territoryBoundaries.contains(territoryNumber,
+                        pointToEncode.getLatMicroDeg(), pointToEncode.getLonMicroDeg())) {
+                    territoryRecords[nrTerritoryRecords] = territoryNumber;
+                    ++nrTerritoryRecords;
+                }
+            }
+            if (stats != null) {
+                stats.recordsScanned += territoryNumbers.length;
+            }
+        }
 
-            // Check if the point to encode is covered by the last data record.
-            final int firstSubTerritoryRecord = DATA_MODEL.getDataLastRecord(territoryRecord);
-            if (createBoundaryForTerritoryRecord(firstSubTerritoryRecord).containsPoint(pointToEncode)) {
+        // The mapcodes of a parent territory are shared by all of its subdivisions which contain the point.
+        // Subdivisions of a parent are numbered consecutively, so only the last parent needs to be kept.
+        Territory parentTerritory = null;
+        List<String> parentMapcodes = null;
+        Territory nearBorderParentTerritory = null;
+        boolean parentNearMultipleBorders = false;
 
-                final int lastSubTerritoryRecord = DATA_MODEL.getDataFirstRecord(territoryRecord);
-                final Territory currentEncodeTerritory = Territory.fromNumber(territoryRecord);
+        // Shortest mapcode so far, if only the shortest mapcode is needed.
+        String shortestMapcode = null;
+        Territory shortestTerritory = null;
 
-                for (int subTerritoryRecord = lastSubTerritoryRecord; subTerritoryRecord <= firstSubTerritoryRecord; subTerritoryRecord++) {
+        for (int i = 0; i < nrTerritoryRecords; i++) {
+            final int territoryRecord = territoryRecords[i];
+            final int firstSubTerritoryRecord = DATA_MODEL.getDataLastRecord(territoryRecord);
+            final int lastSubTerritoryRecord = DATA_MODEL.getDataFirstRecord(territoryRecord);
+            final Territory currentEncodeTerritory = Territory.fromNumber(territoryRecord);
+            int lastBaseSubTerritoryNumber = -1;
+
+            // Find the records of the territory that contain the point to encode.
+            final int[] subTerritoryRecords = recordBuffers.subTerritoryRecords;
+            final int nrSubTerritoryRecords;
+            boolean nearMultipleBorders = false;
+            if ((nearBorderFlags == null) || (currentEncodeTerritory == Territory.AAA)) {
+                nrSubTerritoryRecords = RecordScanner.findContaining(DATA_MODEL.getRecordBoundaries(),
+                        lastSubTerritoryRecord, firstSubTerritoryRecord,
+                        pointToEncode.getLatMicroDeg(), pointToEncode.getLonMicroDeg(), subTerritoryRecords);
+            } else {
 
-                    // Check if the point to encode is contained within the boundary.
-                    if (createBoundaryForTerritoryRecord(subTerritoryRecord).containsPoint(pointToEncode)) {
+                // Check the border bands in the same pass; the parent territory is checked once per parent.
+                final int found = NearBorderIndex.getInstance().findContaining(
+                        lastSubTerritoryRecord, firstSubTerritoryRecord,
+                        pointToEncode.getLatMicroDeg(), pointToEncode.getLonMicroDeg(), subTerritoryRecords);
+                nrSubTerritoryRecords = found & ~NearBorderIndex.NEAR_MULTIPLE_BORDERS;
+                nearMultipleBorders = (found & NearBorderIndex.NEAR_MULTIPLE_BORDERS) != 0;
+                final Territory currentParentTerritory = currentEncodeTerritory.getParentTerritory();
+                if (!nearMultipleBorders && (currentParentTerritory != null)) {
+                    if (currentParentTerritory != nearBorderParentTerritory) {
+                        nearBorderParentTerritory = currentParentTerritory;
+                        parentNearMultipleBorders = NearBorderIndex.getInstance().
+                                isNearMultipleBordersOfTerritory(pointToEncode, currentParentTerritory);
+                    }
+                    nearMultipleBorders = parentNearMultipleBorders;
+                }
+            }
+            if (stats != null) {
+                stats.recordsScanned += (firstSubTerritoryRecord - lastSubTerritoryRecord) + 1;
+            }
+            for (int j = 0; j < nrSubTerritoryRecords; j++) {
+                final int subTerritoryRecord = subTerritoryRecords[j];
+
+                // The last record of a subdivision refers to the mapcodes of its parent territory.
+                if ((subTerritoryRecord == firstSubTerritoryRecord) &&
+                        (currentEncodeTerritory.getParentTerritory() != null) &&
+                        !Data.isNameless(subTerritoryRecord) &&
+                        (Data.getTerritoryRecordType(subTerritoryRecord) <= Data.TERRITORY_RECORD_TYPE_PIPE)) {
+                    if (currentEncodeTerritory.getParentTerritory() != parentTerritory) {
+                        parentTerritory = currentEncodeTerritory.getParentTerritory();
+                        parentMapcodes = encodeInParentTerritory(pointToEncode, parentTerritory,
+                                results == null, recordBuffers.parentSubTerritoryRecords, buffer, stats);
+                    }
+                    assert parentMapcodes != null;
+                    if (results == null) {
+                        if (!parentMapcodes.isEmpty() &&
+                                isShorter(parentMapcodes.get(0), shortestMapcode)) {
+                            shortestMapcode = parentMapcodes.get(0);
+                            shortestTerritory = currentEncodeTerritory;
+                        }
+                    } else {
+                        for (final String mapcode : parentMapcodes) {
+                            results.add(Mapcode.fromCodePrecision8(mapcode, currentEncodeTerritory));
+                            if (nearMultipleBorders) {
+                                nearBorderFlags.set(results.size() - 1);
+                            }
+                        }
+                    }
+                    continue;
+                }
 
-                        // All fine, proceed with creating a mapcode.
-                        String mapcode = "";
-                        if (Data.isNameless(subTerritoryRecord)) {
-                            mapcode = encodeNameless(pointToEncode, subTerritoryRecord, lastSubTerritoryRecord);
+                // All fine, proceed with creating a mapcode.
+                final String mapcode = encodeInRecord(pointToEncode, subTerritoryRecord, lastSubTerritoryRecord,
+                        lastBaseSubTerritoryNumber == lastSubTerritoryRecord, buffer);
 
-                        } else if (Data.getTerritoryRecordType(subTerritoryRecord) > Data.TERRITORY_RECORD_TYPE_PIPE) {
-                            mapcode = encodeAutoHeader(pointToEncode, subTerritoryRecord);
+                // Check if we created a mapcode.
+                if (!mapcode.isEmpty()) {
 
-                        } else if ((subTerritoryRecord == firstSubTerritoryRecord) &&
-                                (currentEncodeTerritory.getParentTerritory() != null)) {
-                            results.addAll(encode(argLatDeg, argLonDeg, currentEncodeTerritory.getParentTerritory(),
-                                    limitToOneResult, currentEncodeTerritory));
-                            continue;
+                    // Stop with this territory if we only need the shortest mapcode.
+                    if (results == null) {
+                        if (isShorter(mapcode, shortestMapcode)) {
+                            shortestMapcode = mapcode;
+                            shortestTerritory = currentEncodeTerritory;
+                        }
+                        break;
+                    }
 
-                        } else if (!Data.isRestricted(subTerritoryRecord) || (lastBaseSubTerritoryNumber == lastSubTerritoryRecord)) {
-                            if (Data.getCodex(subTerritoryRecord) < 54) {
-                                mapcode = encodeGrid(subTerritoryRecord, pointToEncode);
-                            }
-                        } else {
-                            // Skip this record.
+                    // Create new result.
+                    final Mapcode newResult = Mapcode.fromCodePrecision8(mapcode, currentEncodeTerritory);
+
+                    // The result should not be stored yet.
+                    if (results.contains(newResult)) {
+                        LOG.error("encode: Duplicate results found, newResult={}, results={} items",
+                                newResult.getCodeWithTerritory(), results.size());
+                    } else {
+                        results.add(newResult);
+                        if (nearMultipleBorders) {
+                            nearBorderFlags.set(results.size() - 1);
                         }
+                    }
+                    lastBaseSubTerritoryNumber = lastSubTerritoryRecord;
+                }
+            }
+        }
+        if (results == null) {
+            return (shortestMapcode == null) ? null : Mapcode.fromCodePrecision8(shortestMapcode, shortestTerritory);
+        }
+        if (TRACE) {
+            LOG.trace("encode: results={} items", results.size());
+        }
+        return null;
+    }
 
-                        // Check if we created a mapcode.
-                        if (!mapcode.isEmpty()) {
-                            assert mapcode.length() > 4;
-                            mapcode = aeuPack(mapcode, false);
+    private static boolean isShorter(@Nonnull final String mapcode, @Nullable final String shortestMapcode) {
+        return (shortestMapcode == null) || (mapcode.indexOf('-') < shortestMapcode.indexOf('-'));
+    }
 
-                            final Territory encodeTerritory = (argStateOverride != null) ?
-                                    argStateOverride : currentEncodeTerritory;
+    /**
+     * Encode a point in a parent territory (a territory without a parent itself). The mapcodes
+     * are returned without territory, so they can be used for any of its subdivisions.
+     *
+     * @param pointToEncode       Point to encode.
+     * @param parentTerritory     Parent territory.
+     * @param limitToOneResult    True if only the first mapcode is needed.
+     * @param subTerritoryRecords Receives the records of the parent territory which contain the point. Must be
+     *                            large enough to hold all records of the territory.
+     * @param buffer              Buffer to encode mapcodes in, see {@link #encodeInRecord}.
+     * @param stats               Receives the number of records inspected, or null.
+     * @return Mapcodes in the parent territory, possibly empty.
+     */
+    @Nonnull
+    private static List<String> encodeInParentTerritory(
+            @Nonnull final Point pointToEncode,
+            @Nonnull final Territory parentTerritory,
+            final boolean limitToOneResult,
+            @Nonnull final int[] subTerritoryRecords,
+            @Nonnull final char[] buffer,
+            @Nullable final CodecStats stats) {
+        assert parentTerritory.getParentTerritory() == null;
+        final List<String> mapcodes = new ArrayList<String>();
+        final int territoryRecord = parentTerritory.getNumber();
+        final int firstSubTerritoryRecord = DATA_MODEL.getDataLastRecord(territoryRecord);
+        final int lastSubTerritoryRecord = DATA_MODEL.getDataFirstRecord(territoryRecord);
+
+        // The point must be in the parent territory (its last data record contains it).
+        if (stats != null) {
+            stats.recordsScanned++;
+        }
+        if (!DATA_MODEL.getTerritoryBoundaries().contains(territoryRecord,
+                pointToEncode.getLatMicroDeg(), pointToEncode.getLonMicroDeg())) {
+            return mapcodes;
+        }
 
-                            // Create new result.
-                            final Mapcode newResult = new Mapcode(mapcode, encodeTerritory);
+        // Find the records of the territory that contain the point to encode.
+        final int nrSubTerritoryRecords = RecordScanner.findContaining(DATA_MODEL.getRecordBoundaries(),
+                lastSubTerritoryRecord, firstSubTerritoryRecord,
+                pointToEncode.getLatMicroDeg(), pointToEncode.getLonMicroDeg(), subTerritoryRecords);
+        if (stats != null) {
+            stats.recordsScanned += (firstSubTerritoryRecord - lastSubTerritoryRecord) + 1;
+        }
+        boolean foundMapcode = false;
+        for (int j = 0; j < nrSubTerritoryRecords; j++) {
+            final String mapcode = encodeInRecord(pointToEncode, subTerritoryRecords[j], lastSubTerritoryRecord,
+                    foundMapcode, buffer);
+            if (!mapcode.isEmpty()) {
+                if (mapcodes.contains(mapcode)) {
+                    LOG.error("encode: Duplicate results found, newResult={}, results={} items",
+                            mapcode, mapcodes.size());
+                } else {
+                    mapcodes.add(mapcode);
+                }
+                foundMapcode = true;
 
-                            // The result should not be stored yet.
-                            if (results.contains(newResult)) {
-                                LOG.error("encode: Duplicate results found, newResult={}, results={} items",
-                                        newResult.getCodeWithTerritory(), results.size());
-                            } else {
+                // Stop if we only need a single result anyway.
+                if (limitToOneResult) {
+                    return mapcodes;
+                }
+            }
+        }
+        return mapcodes;
+    }
 
-                                // Remove existing results (if there was a parent territory).
-                                if (limitToOneResult) {
-                                    results.clear();
-                                }
-                                results.add(newResult);
-                            }
+    /**
+     * Encode a point in the record a mapcode was decoded from, for example to find the mapcode of a point just
+     * outside the zone of the decoded mapcode, without inspecting other records or territories. This produces one
+     * of the mapcodes {@link #encode(double, double, Territory)} produces for the point in the territory.
+     *
+     * @param pointToEncode    Point to encode.
+     * @param territory        Territory of the decoded mapcode.
+     * @param decodedTerritory Territory the mapcode was decoded in: the territory or its parent territory.
+     * @param territoryRecord  Record of decodedTerritory the mapcode was decoded from.
+     * @param buffer           Buffer of at least MAX_MAPCODE_LENGTH characters, which is overwritten.
+     * @return Mapcode (without territory) with 8 precision characters, or empty if the point is not in the record
+     * or the record does not produce a mapcode for it.
+     */
+    @Nonnull
+    static String encodeInDecodedRecord(
+            @Nonnull final Point pointToEncode,
+            @Nonnull final Territory territory,
+            @Nonnull final Territory decodedTerritory,
+            final int territoryRecord,
+            @Nonnull final char[] buffer) {
+        final int latMicroDeg = pointToEncode.getLatMicroDeg();
+        final int lonMicroDeg = pointToEncode.getLonMicroDeg();
+        final BoundaryLanes territoryBoundaries = DATA_MODEL.getTerritoryBoundaries();
+        if (!DATA_MODEL.getRecordBoundaries().contains(territoryRecord, latMicroDeg, lonMicroDeg) ||
+                !territoryBoundaries.contains(territory.getNumber(), latMicroDeg, lonMicroDeg) ||
+                !territoryBoundaries.contains(decodedTerritory.getNumber(), latMicroDeg, lonMicroDeg)) {
+            return "";
+        }
 
-                            lastBaseSubTerritoryNumber = lastSubTerritoryRecord;
+        // The last record of a subdivision refers to the mapcodes of its parent territory (see encode).
+        if ((decodedTerritory.getParentTerritory() != null) &&
+                (territoryRecord == DATA_MODEL.getDataLastRecord(decodedTerritory.getNumber())) &&
+                !Data.isNameless(territoryRecord) &&
+                (Data.getTerritoryRecordType(territoryRecord) <= Data.TERRITORY_RECORD_TYPE_PIPE)) {
+            return "";
+        }
+        return encodeInSingleRecord(pointToEncode, territoryRecord,
+                DATA_MODEL.getDataFirstRecord(decodedTerritory.getNumber()), buffer);
+    }
 
-                            // Stop if we only need a single result anyway.
-                            if (limitToOneResult) {
-                                return results;
-                            }
-                        }
-                    }
+    /**
+     * Encode a point in a single data record of a territory, if the encoder would use this record for the point.
+     * This is the case if the record contains the point and is not restricted, or if it is restricted and
+     * an earlier record of the territory produces a mapcode for the point.
+     *
+     * @param pointToEncode          Point to encode, which must be in the record.
+     * @param subTerritoryRecord     Record to encode in.
+     * @param lastSubTerritoryRecord First record of the territory.
+     * @param buffer                 Buffer of at least MAX_MAPCODE_LENGTH characters, which is overwritten.
+     * @return Mapcode (without territory) with 8 precision characters, or empty if the record is not used.
+     */
+    @Nonnull
+    static String encodeInSingleRecord(
+            @Nonnull final Point pointToEncode,
+            final int subTerritoryRecord,
+            final int lastSubTerritoryRecord,
+            @Nonnull final char[] buffer) {
+        boolean foundMapcode = false;
+        if (Data.isRestricted(subTerritoryRecord)) {
+            final BoundaryLanes recordBoundaries = DATA_MODEL.getRecordBoundaries();
+            for (int record = lastSubTerritoryRecord; (record < subTerritoryRecord) && !foundMapcode; record++) {
+                if (recordBoundaries.contains(record, pointToEncode.getLatMicroDeg(), pointToEncode.getLonMicroDeg())) {
+                    foundMapcode = !encodeInRecord(pointToEncode, record, lastSubTerritoryRecord, false, buffer).isEmpty();
                 }
             }
         }
-        LOG.trace("encode: results={} items", results.size());
-        LOG.trace("");
-        return results;
+        return encodeInRecord(pointToEncode, subTerritoryRecord, lastSubTerritoryRecord, foundMapcode, buffer);
     }
 
+    /**
+     * Encode a point in a single data record of a territory.
+     *
+     * @param pointToEncode          Point to encode.
+     * @param subTerritoryRecord     Record to encode in.
+     * @param lastSubTerritoryRecord First record of the territory.
+     * @param allowRestricted        True if restricted records may be used, because a mapcode was
+     *                               already found in the territory.
+     * @param buffer                 Buffer of at least MAX_MAPCODE_LENGTH characters, which is overwritten.
+     * @return Mapcode (without territory), or empty if the record does not produce a mapcode.
+     */
     @Nonnull
-    private static String encodeExtension(
+    private static String encodeInRecord(
+            @Nonnull final Point pointToEncode,
+            final int subTerritoryRecord,
+            final int lastSubTerritoryRecord,
+            final boolean allowRestricted,
+            @Nonnull final char[] buffer) {
+        int length = 0;
+        if (Data.isNameless(subTerritoryRecord)) {
+            length = encodeNameless(pointToEncode, subTerritoryRecord, lastSubTerritoryRecord, buffer);
+
+        } else if (Data.getTerritoryRecordType(subTerritoryRecord) > Data.TERRITORY_RECORD_TYPE_PIPE) {
+            length = encodeAutoHeader(pointToEncode, subTerritoryRecord, buffer);
+
+        } else if (!Data.isRestricted(subTerritoryRecord) || allowRestricted) {
+            if (Data.getCodex(subTerritoryRecord) < 54) {
+                length = encodeGrid(subTerritoryRecord, pointToEncode, buffer);
+            }
+        } else {
+            // Skip this record.
+        }
+        if (length == 0) {
+            return "";
+        }
+        assert length > 4;
+        aeuPack(buffer, 0, length, false);
+        return new String(buffer, 0, length);
+    }
+
+    // The low-level encode methods below write characters into a buffer, starting at an offset, and
+    // return the offset after the last character written.
+
+    private static int encodeExtension(
+            @Nonnull final char[] buffer,
+            final int offset,
             final Point pointToEncode,
             final int extrax4,
             final int extray,
@@ -174,8 +627,9 @@ final class Encoder {
         double valx = (Point.MAX_PRECISION_FACTOR * extrax4) + pointToEncode.getLonFraction();
         double valy = (Point.MAX_PRECISION_FACTOR * extray) + (ydirection * pointToEncode.getLatFraction());
 
-        final StringBuilder sb = new StringBuilder();
-        sb.append('-');
+        int i = offset;
+        buffer[i] = '-';
+        ++i;
 
         while (true) {
             factorx /= 30;
@@ -186,13 +640,15 @@ final class Encoder {
             //noinspection NumericCastThatLosesPrecision
             final int gy = (int) (valy / factory);
 
-            sb.append(ENCODE_CHARS[((gy / 5) * 5) + (gx / 6)]);
+            buffer[i] = ENCODE_CHARS[((gy / 5) * 5) + (gx / 6)];
+            ++i;
             --extraDigits;
             if (extraDigits == 0) {
                 break;
             }
 
-            sb.append(ENCODE_CHARS[(((gy % 5) * 6) + (gx % 6))]);
+            buffer[i] = ENCODE_CHARS[(((gy % 5) * 6) + (gx % 6))];
+            ++i;
             --extraDigits;
             if (extraDigits == 0) {
                 break;
@@ -201,13 +657,14 @@ final class Encoder {
             valx -= factorx * gx;
             valy -= factory * gy;
         }
-        return sb.toString();
+        return i;
     }
 
-    @Nonnull
-    private static String encodeGrid(
+    // Returns 0 if the point cannot be encoded in the record.
+    private static int encodeGrid(
             final int territoryNumber,
-            @Nonnull final Point pointToEncode) {
+            @Nonnull final Point pointToEncode,
+            @Nonnull final char[] buffer) {
         int codexm = Data.getCodex(territoryNumber);
         final int orgcodex = codexm;
         if (codexm == 21) {
@@ -226,10 +683,10 @@ final class Encoder {
             divx = NC[prelen] / divy;
         }
 
-        final int minx = createBoundaryForTerritoryRecord(territoryNumber).getLonMicroDegMin();
-        final int miny = createBoundaryForTerritoryRecord(territoryNumber).getLatMicroDegMin();
-        final int maxx = createBoundaryForTerritoryRecord(territoryNumber).getLonMicroDegMax();
-        final int maxy = createBoundaryForTerritoryRecord(territoryNumber).getLatMicroDegMax();
+        final int minx = DATA_MODEL.getLonMicroDegMin(territoryNumber);
+        final int miny = DATA_MODEL.getLatMicroDegMin(territoryNumber);
+        final int maxx = DATA_MODEL.getLonMicroDegMax(territoryNumber);
+        final int maxy = DATA_MODEL.getLatMicroDegMax(territoryNumber);
 
         final int ygridsize = (((maxy - miny) + divy) - 1) / divy;
         int rely = pointToEncode.getLatMicroDeg() - miny;
@@ -246,11 +703,11 @@ final class Encoder {
             relx -= Point.MICRO_DEG_360;
         }
         if (relx < 0) {
-            return "";
+            return 0;
         }
         relx = relx / xgridsize;
         if ((relx >= divx) || (rely >= divy)) {
-            return "";
+            return 0;
         }
 
         final int v;
@@ -260,10 +717,17 @@ final class Encoder {
             v = ((relx * divy) + divy) - 1 - rely;
         }
 
-        String result = encodeBase31(v, prelen);
+        int offset = 0;
+        final char headerLetter = Data.headerLetter(territoryNumber);
+        if (headerLetter != 0) {
+            buffer[offset] = headerLetter;
+            ++offset;
+        }
+        final int start = offset;
+        offset = encodeBase31(buffer, offset, v, prelen);
 
         if ((prelen == 4) && (divx == 961) && (divy == 961)) {
-            result = String.valueOf(result.charAt(0)) + result.charAt(2) + result.charAt(1) + result.charAt(3);
+            swap(buffer, start + 1, start + 2);
         }
 
         rely = miny + (rely * ygridsize);
@@ -272,7 +736,8 @@ final class Encoder {
         final int dividery = ((ygridsize + Y_SIDE[postlen]) - 1) / Y_SIDE[postlen];
         final int dividerx = ((xgridsize + X_SIDE[postlen]) - 1) / X_SIDE[postlen];
 
-        result += '.';
+        buffer[offset] = '.';
+        ++offset;
 
         int difx = x - relx;
         int dify = pointToEncode.getLatMicroDeg() - rely;
@@ -285,30 +750,28 @@ final class Encoder {
 
         dify = Y_SIDE[postlen] - 1 - dify;
         if (postlen == 3) {
-            result += encodeTriple(difx, dify);
+            offset = encodeTriple(buffer, offset, difx, dify);
         } else {
-
-            String postfix = encodeBase31(((difx) * Y_SIDE[postlen]) + dify, postlen);
+            final int postfixStart = offset;
+            offset = encodeBase31(buffer, offset, ((difx) * Y_SIDE[postlen]) + dify, postlen);
             if (postlen == 4) {
-                postfix = String.valueOf(postfix.charAt(0)) + postfix.charAt(2) + postfix.charAt(1) + postfix.charAt(3);
+                swap(buffer, postfixStart + 1, postfixStart + 2);
             }
-            result += postfix;
         }
 
         if (orgcodex == 14) {
-            result = result.charAt(0) + "." + result.charAt(1) + result.substring(3);
+            // Move the dot 1 position to the left.
+            buffer[start + 2] = buffer[start + 1];
+            buffer[start + 1] = '.';
         }
 
-        result += encodeExtension(pointToEncode, extrax << 2, extray, dividerx << 2, dividery, 1); // grid
-
-        return Data.headerLetter(territoryNumber) + result;
+        return encodeExtension(buffer, offset, pointToEncode, extrax << 2, extray, dividerx << 2, dividery, 1); // grid
     }
 
-    @Nonnull
-    private static String encodeAutoHeader(
+    private static int encodeAutoHeader(
             @Nonnull final Point pointToEncode,
-            final int territoryRecord) {
-        final StringBuilder stringBuilder = new StringBuilder();
+            final int territoryRecord,
+            @Nonnull final char[] buffer) {
         final int codexm = Data.getCodex(territoryRecord);
         int storageStart = 0;
 
@@ -358,13 +821,13 @@ final class Encoder {
                 value += (vy / 176);
 
                 final int codexlen = (codexm / 10) + (codexm % 10);
-                stringBuilder.append(encodeBase31((storageStart / (961 * 31)) + value, codexlen - 2));
-                stringBuilder.append('.');
-                stringBuilder.append(encodeTriple(vx % 168, vy % 176));
+                int offset = encodeBase31(buffer, 0, (storageStart / (961 * 31)) + value, codexlen - 2);
+                buffer[offset] = '.';
+                ++offset;
+                offset = encodeTriple(buffer, offset, vx % 168, vy % 176);
 
-                stringBuilder.append(
-                        encodeExtension(pointToEncode, extrax << 2, extray, dividerx << 2, dividery, -1)); // AutoHeader
-                return stringBuilder.toString();
+                return encodeExtension(buffer, offset,
+                        pointToEncode, extrax << 2, extray, dividerx << 2, dividery, -1); // AutoHeader
             }
 
             storageStart += product;
@@ -372,13 +835,12 @@ final class Encoder {
         }
     }
 
-    @Nonnull
-    private static String encodeNameless(
+    private static int encodeNameless(
             @Nonnull final Point pointToEncode,
             final int territoryRecord,
-            final int firstTerritoryRecord) {
+            final int firstTerritoryRecord,
+            @Nonnull final char[] buffer) {
         // mid-level encode/decode
-        // returns "" in case of (argument) error
         final int codexm = Data.getCodex(territoryRecord);
         final int codexlen = (codexm / 10) + (codexm % 10);
         final int firstNamelessRecord = getFirstNamelessRecord(codexm, territoryRecord, firstTerritoryRecord);
@@ -446,77 +908,113 @@ final class Encoder {
             v += (dx * side) + dy;
         }
 
-        String result = encodeBase31(v, codexlen + 1);
+        int offset = encodeBase31(buffer, 0, v, codexlen + 1);
 
         if (codexlen == 3) {
-            result = result.substring(0, 2) + '.' + result.substring(2);
+            offset = insertDot(buffer, offset, 2);
         } else if (codexlen == 4) {
             if ((codexm == 22) && (a < 62) && (orgSide == 961) && !Data.isSpecialShape(territoryRecord)) {
-                result = result.substring(0, 2) + result.charAt(3) + result.charAt(2) + result.charAt(4);
+                swap(buffer, 2, 3);
             }
             if (codexm == 13) {
-                result = result.substring(0, 2) + '.' + result.substring(2);
+                offset = insertDot(buffer, offset, 2);
             } else {
-                result = result.substring(0, 3) + '.' + result.substring(3);
+                offset = insertDot(buffer, offset, 3);
             }
         }
-        result += encodeExtension(pointToEncode, extrax4, extray, dividerx4, dividery, -1); // for encodeNameless
-
-        return result;
+        return encodeExtension(buffer, offset,
+                pointToEncode, extrax4, extray, dividerx4, dividery, -1); // for encodeNameless
     }
 
     @Nonnull
     static String aeuPack(
             @Nonnull final String argStr,
             final boolean argShort) {
-        // add vowels to prevent all-digit mapcodes
-        String str = argStr;
+
+        // Only all-digit mapcodes are changed, so other mapcodes are returned without copying them.
+        final int length = argStr.length();
+        for (int i = 0; i < length; i++) {
+            final char ch = argStr.charAt(i);
+            if (ch == '-') {
+                break;
+            }
+            if (((ch < '0') || (ch > '9')) && (ch != '.')) {
+                return argStr;
+            }
+        }
+        final char[] chars = argStr.toCharArray();
+        aeuPack(chars, 0, length, argShort);
+        return new String(chars);
+    }
+
+    /**
+     * Add vowels to an all-digit mapcode, to prevent all-digit mapcodes. The mapcode is changed in place,
+     * which never changes its length. A precision extension (after a '-') is left as it is.
+     *
+     * @param chars    Characters of the mapcode.
+     * @param offset   Start of mapcode in chars.
+     * @param length   Length of mapcode, including a precision extension.
+     * @param argShort True if only 'A' should be used (for Greek), false to use 'A', 'E' and 'U'.
+     */
+    static void aeuPack(
+            @Nonnull final char[] chars,
+            final int offset,
+            final int length,
+            final boolean argShort) {
         int dotpos = -9;
-        int rlen = str.length();
-        int d;
-        String rest = "";
-        for (d = 0; d < rlen; d++) {
-            if ((str.charAt(d) < '0') || (str.charAt(d) > '9')) // not digit?
+        int rlen = length;
+        for (int d = 0; d < rlen; d++) {
+            final char ch = chars[offset + d];
+            if ((ch < '0') || (ch > '9')) // not digit?
             {
-                if ((str.charAt(d) == '.') && (dotpos < 0)) // first dot?
+                if ((ch == '.') && (dotpos < 0)) // first dot?
                 {
                     dotpos = d;
-                } else if (str.charAt(d) == '-') {
-                    rest = str.substring(d);
-                    str = str.substring(0, d);
+                } else if (ch == '-') {
                     rlen = d;
                 } else {
-                    return str; // not all-digit (or multiple dots)
+                    return; // not all-digit (or multiple dots)
                 }
             }
         }
 
         if ((rlen - 2) > dotpos) {
             // does r have a dot, AND at least 2 chars after the dot?
+            final int last = (offset + rlen) - 1;
             if (argShort) { // use A only
-                final int v = ((((int) str.charAt(0)) - 48) * 100) + ((((int) str.charAt(rlen - 2)) - 48) * 10) + (((int) str.charAt(rlen - 1)) - 48);
-                return 'A' + str.substring(1, rlen - 2) + ENCODE_CHARS[v / 32] + ENCODE_CHARS[v % 32] + rest;
+                final int v = ((((int) chars[offset]) - 48) * 100) + ((((int) chars[last - 1]) - 48) * 10) + (((int) chars[last]) - 48);
+                chars[offset] = 'A';
+                chars[last - 1] = ENCODE_CHARS[v / 32];
+                chars[last] = ENCODE_CHARS[v % 32];
             } else { // use A, E and U
-                final int v = (((((int) str.charAt(rlen - 2)) - 48) * 10) + ((int) str.charAt(rlen - 1))) - 48;
-                str = str.substring(0, rlen - 2) + ENCODE_CHARS[31 + (v / 34)] + ENCODE_CHARS[v % 34];
+                final int v = (((((int) chars[last - 1]) - 48) * 10) + ((int) chars[last])) - 48;
+                chars[last - 1] = ENCODE_CHARS[31 + (v / 34)];
+                chars[last] = ENCODE_CHARS[v % 34];
             }
         }
-        return str + rest;
     }
 
-    @Nonnull
-    private static String encodeBase31(
+    private static int encodeBase31(
+            @Nonnull final char[] buffer,
+            final int offset,
             final int argValue,
-            final int argNrChars) {
+            final int nrChars) {
+        // write the digits from right to left
         int value = argValue;
-        int nrChars = argNrChars;
-        final StringBuilder result = new StringBuilder();
-        while (nrChars > 0) {
-            nrChars--;
-            result.insert(0, ENCODE_CHARS[value % 31]);
+        for (int i = (offset + nrChars) - 1; i >= offset; i--) {
+            buffer[i] = ENCODE_CHARS[value % 31];
             value = value / 31;
         }
-        return result.toString();
+        return offset + nrChars;
+    }
+
+    private static int insertDot(
+            @Nonnull final char[] buffer,
+            final int offset,
+            final int dotpos) {
+        System.arraycopy(buffer, dotpos, buffer, dotpos + 1, offset - dotpos);
+        buffer[dotpos] = '.';
+        return offset + 1;
     }
 
     private static int encodeSixWide(
@@ -536,14 +1034,17 @@ final class Encoder {
         return ((height * 6 * col) + ((height - 1 - y) * d) + x) - (col * 6);
     }
 
-    @Nonnull
-    private static String encodeTriple(
+    private static int encodeTriple(
+            @Nonnull final char[] buffer,
+            final int offset,
             final int difx,
             final int dify) {
         if (dify < (4 * 34)) {
-            return ENCODE_CHARS[((difx / 28) + (6 * (dify / 34)))] + encodeBase31(((difx % 28) * 34) + (dify % 34), 2);
+            buffer[offset] = ENCODE_CHARS[((difx / 28) + (6 * (dify / 34)))];
+            return encodeBase31(buffer, offset + 1, ((difx % 28) * 34) + (dify % 34), 2);
         } else {
-            return ENCODE_CHARS[((difx / 24) + 24)] + encodeBase31((((difx % 24) * 40) + dify) - 136, 2);
+            buffer[offset] = ENCODE_CHARS[((difx / 24) + 24)];
+            return encodeBase31(buffer, offset + 1, (((difx % 24) * 40) + dify) - 136, 2);
         }
     }
 }
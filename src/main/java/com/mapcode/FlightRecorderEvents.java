@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode;
+
+import com.mapcode.MapcodeInstrumentation.ErrorCategory;
+import com.mapcode.MapcodeInstrumentation.Operation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class emits Java Flight Recorder (JFR) events for encoding, decoding and loading the data model.
+ *
+ * This is the baseline implementation, which never emits events: JFR events require Java 11+. The
+ * Java 17 version in the multi-release JAR emits events if they are enabled in a recording.
+ *
+ * Every begin method returns an event object, or null if the event is disabled. The caller must
+ * pass it to the corresponding commit method, which does nothing for null. This way, disabled
+ * events cost nothing more than a check for null.
+ */
+final class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {
+        // Prevent instantiation.
+    }
+
+    /**
+     * Return the name of the implementation, for logging purposes only.
+     *
+     * @return Implementation name.
+     */
+    @Nonnull
+    static String getImplementationName() {
+        return "none";
+    }
+
+    @Nullable
+    static Object beginEncode() {
+        return null;
+    }
+
+    static void commitEncode(
+            @Nullable final Object event,
+            final double latDeg,
+            final double lonDeg,
+            @Nullable final Territory restrictToTerritory,
+            @Nullable final List<Mapcode> results,
+            final int recordsScanned) {
+        // No events.
+    }
+
+    @Nullable
+    static Object beginDecode() {
+        return null;
+    }
+
+    static void commitDecode(
+            @Nullable final Object event,
+            @Nonnull final Operation operation,
+            @Nonnull final String mapcode,
+            @Nonnull final CodecStats stats,
+            @Nullable final ErrorCategory error) {
+        // No events.
+    }
+
+    @Nullable
+    static Object beginDataModelLoad() {
+        return null;
+    }
+
+    static void commitDataModelLoad(
+            @Nullable final Object event,
+            @Nonnull final String fileName,
+            final int nrBytes,
+            final int nrTerritories,
+            final int nrTerritoryRecords) {
+        // No events.
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class implements a thread-safe histogram of non-negative long values, with a fixed relative
+ * precision, in the same way as an HdrHistogram: values are counted in buckets per power of 2,
+ * each of which is divided into {@link #SUB_BUCKETS} linear sub-buckets. This makes the relative
+ * error of any value less than 1 / {@link #SUB_BUCKETS} (about 3%) and recording a value O(1).
+ */
+final class Histogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Values below SUB_BUCKETS have their own bucket, larger values have SUB_BUCKETS buckets per power of 2.
+    private static final int NR_BUCKETS = SUB_BUCKETS + ((Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+
+    private final AtomicLongArray counts = new AtomicLongArray(NR_BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalValue = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Record a value. Negative values are recorded as 0.
+     *
+     * @param value Value.
+     */
+    void record(final long value) {
+        final long v = Math.max(0, value);
+        counts.incrementAndGet(getBucket(v));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(v);
+        long max = maxValue.get();
+        while ((v > max) && !maxValue.compareAndSet(max, v)) {
+            max = maxValue.get();
+        }
+    }
+
+    long getCount() {
+        return totalCount.get();
+    }
+
+    long getMax() {
+        return maxValue.get();
+    }
+
+    double getMean() {
+        final long count = totalCount.get();
+        return (count == 0) ? 0.0 : ((double) totalValue.get() / count);
+    }
+
+    /**
+     * Get the value at a percentile. The value is the highest value in the bucket of the percentile,
+     * so it is never lower than the actual value.
+     *
+     * @param percentile Percentile, range 0..100.
+     * @return Value at percentile, or 0 if no values were recorded.
+     */
+    long getValueAtPercentile(final double percentile) {
+        if ((percentile < 0.0) || (percentile > 100.0)) {
+            throw new IllegalArgumentException("percentile must be in [0, 100]");
+        }
+        final long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        final long target = Math.max(1, (long) Math.ceil((percentile * count) / 100.0));
+        long cumulative = 0;
+        for (int bucket = 0; bucket < NR_BUCKETS; bucket++) {
+            cumulative += counts.get(bucket);
+            if (cumulative >= target) {
+                return Math.min(getHighestValueInBucket(bucket), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    void reset() {
+        for (int bucket = 0; bucket < NR_BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        totalCount.set(0);
+        totalValue.set(0);
+        maxValue.set(0);
+    }
+
+    static int getBucket(final long value) {
+        assert value >= 0;
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + (shift * SUB_BUCKETS) + subBucket;
+    }
+
+    static long getHighestValueInBucket(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        final long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        final long lowest = (SUB_BUCKETS + subBucket) << shift;
+        return (lowest + (1L << shift)) - 1;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.mapcode.CheckArgs.checkNonnull;
+
+/**
+ * This class collects metrics for the operations of {@link MapcodeCodec} in-process: the number of
+ * operations and errors per error category, and histograms of the latency and the number of territory
+ * records scanned. The histograms have a relative precision of about 3%, like an HdrHistogram.
+ *
+ * Usage:
+ * <pre>
+ *     final HistogramInstrumentation metrics = new HistogramInstrumentation();
+ *     MapcodeCodec.setInstrumentation(metrics);
+ *     ...
+ *     final long p99 = metrics.getLatencyNanosAtPercentile(Operation.ENCODE, 99.0);
+ * </pre>
+ *
+ * This class is thread-safe.
+ */
+public final class HistogramInstrumentation implements MapcodeInstrumentation {
+    private static final int NR_OPERATIONS = Operation.values().length;
+    private static final int NR_ERROR_CATEGORIES = ErrorCategory.values().length;
+
+    private final Histogram[] latencies = new Histogram[NR_OPERATIONS];
+    private final Histogram[] recordsScanned = new Histogram[NR_OPERATIONS];
+    private final AtomicLongArray errors = new AtomicLongArray(NR_OPERATIONS * NR_ERROR_CATEGORIES);
+
+    public HistogramInstrumentation() {
+        for (int i = 0; i < NR_OPERATIONS; i++) {
+            latencies[i] = new Histogram();
+            recordsScanned[i] = new Histogram();
+        }
+    }
+
+    @Override
+    public void operationCompleted(
+            @Nonnull final Operation operation,
+            final long durationNanos,
+            final int recordsScanned,
+            @Nullable final ErrorCategory error) {
+        final int i = operation.ordinal();
+        latencies[i].record(durationNanos);
+        this.recordsScanned[i].record(recordsScanned);
+        if (error != null) {
+            errors.incrementAndGet((i * NR_ERROR_CATEGORIES) + error.ordinal());
+        }
+    }
+
+    /**
+     * Get the number of operations, including failed operations.
+     *
+     * @param operation Operation.
+     * @return Number of operations.
+     */
+    public long getCount(@Nonnull final Operation operation) {
+        checkNonnull("operation", operation);
+        return latencies[operation.ordinal()].getCount();
+    }
+
+    /**
+     * Get the number of failed operations for an error category.
+     *
+     * @param operation     Operation.
+     * @param errorCategory Error category.
+     * @return Number of failed operations.
+     */
+    public long getErrorCount(@Nonnull final Operation operation, @Nonnull final ErrorCategory errorCategory) {
+        checkNonnull("operation", operation);
+        checkNonnull("errorCategory", errorCategory);
+        return errors.get((operation.ordinal() * NR_ERROR_CATEGORIES) + errorCategory.ordinal());
+    }
+
+    /**
+     * Get the latency at a percentile.
+     *
+     * @param operation  Operation.
+     * @param percentile Percentile, range 0..100 (e.g. 50.0 for the median, 100.0 for the maximum).
+     * @return Latency in nanoseconds, or 0 if there were no operations.
+     */
+    public long getLatencyNanosAtPercentile(@Nonnull final Operation operation, final double percentile) {
+        checkNonnull("operation", operation);
+        return latencies[operation.ordinal()].getValueAtPercentile(percentile);
+    }
+
+    public double getMeanLatencyNanos(@Nonnull final Operation operation) {
+        checkNonnull("operation", operation);
+        return latencies[operation.ordinal()].getMean();
+    }
+
+    public long getMaxLatencyNanos(@Nonnull final Operation operation) {
+        checkNonnull("operation", operation);
+        return latencies[operation.ordinal()].getMax();
+    }
+
+    /**
+     * Get the number of territory records scanned at a percentile.
+     *
+     * @param operation  Operation.
+     * @param percentile Percentile, range 0..100.
+     * @return Number of records scanned, or 0 if there were no operations.
+     */
+    public long getRecordsScannedAtPercentile(@Nonnull final Operation operation, final double percentile) {
+        checkNonnull("operation", operation);
+        return recordsScanned[operation.ordinal()].getValueAtPercentile(percentile);
+    }
+
+    public double getMeanRecordsScanned(@Nonnull final Operation operation) {
+        checkNonnull("operation", operation);
+        return recordsScanned[operation.ordinal()].getMean();
+    }
+
+    /**
+     * Reset all metrics. Operations which complete during a reset may be partially counted.
+     */
+    public void reset() {
+        for (int i = 0; i < NR_OPERATIONS; i++) {
+            latencies[i].reset();
+            recordsScanned[i].reset();
+        }
+        for (int i = 0; i < errors.length(); i++) {
+            errors.set(i, 0);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (final Operation operation : Operation.values()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(operation).append("={count=").append(getCount(operation)).
+                    append(", p50=").append(getLatencyNanosAtPercentile(operation, 50.0)).
+                    append("ns, p99=").append(getLatencyNanosAtPercentile(operation, 99.0)).
+                    append("ns, max=").append(getMaxLatencyNanos(operation)).
+                    append("ns, records=").append(Math.round(getMeanRecordsScanned(operation) * 10.0) / 10.0);
+            for (final ErrorCategory errorCategory : ErrorCategory.values()) {
+                final long count = getErrorCount(operation, errorCategory);
+                if (count > 0) {
+                    sb.append(", ").append(errorCategory).append('=').append(count);
+                }
+            }
+            sb.append('}');
+        }
+        return sb.toString();
+    }
+}
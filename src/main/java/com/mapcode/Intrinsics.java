@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import javax.annotation.Nonnull;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class contains the low-level primitives that have a faster implementation on modern JVMs.
+ *
+ * This is the baseline implementation, which runs on any JVM. The library is packaged as a
+ * multi-release JAR: a JVM that supports a newer version of this class (in META-INF/versions)
+ * loads that one instead. Both implementations must produce identical results.
+ */
+@SuppressWarnings("MagicNumber")
+final class Intrinsics {
+
+    private Intrinsics() {
+        // Prevent instantiation.
+    }
+
+    /**
+     * Return the name of the implementation, for logging purposes only.
+     *
+     * @return Implementation name.
+     */
+    @Nonnull
+    static String getImplementationName() {
+        return "baseline";
+    }
+
+    /**
+     * Read an unsigned 16-bits little-endian value from a byte array.
+     *
+     * @param bytes  Byte array.
+     * @param offset Offset of low byte.
+     * @return Value, range [0, 65535].
+     */
+    static int readUnsignedShortLE(@Nonnull final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xff) + ((bytes[offset + 1] & 0xff) << 8);
+    }
+
+    /**
+     * Read a 32-bits little-endian value from a byte array.
+     *
+     * @param bytes  Byte array.
+     * @param offset Offset of lowest byte.
+     * @return Value.
+     */
+    static int readIntLE(@Nonnull final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xff) + ((bytes[offset + 1] & 0xff) << 8) +
+                ((bytes[offset + 2] & 0xff) << 16) + ((bytes[offset + 3] & 0xff) << 24);
+    }
+
+    /**
+     * Check if a longitude falls within a longitude range. The lower limit is inclusive, the upper limit exclusive.
+     * Longitude ranges can extend (slightly) outside the [-180, 180) range, so the longitude is also checked
+     * when wrapped by +/- 360 degrees.
+     *
+     * @param lonMicroDeg    Longitude, in microdegrees, in range [-180, 180).
+     * @param lonMicroDegMin Minimum longitude, inclusive.
+     * @param lonMicroDegMax Maximum longitude, exclusive.
+     * @return True if the longitude is within the range.
+     */
+    static boolean containsLonMicroDeg(final int lonMicroDeg, final int lonMicroDegMin, final int lonMicroDegMax) {
+        if (lonMicroDeg < lonMicroDegMin) {
+            return (lonMicroDegMin <= (lonMicroDeg + Point.MICRO_DEG_360)) && ((lonMicroDeg + Point.MICRO_DEG_360) < lonMicroDegMax);
+        } else if (lonMicroDeg >= lonMicroDegMax) {
+            return (lonMicroDegMin <= (lonMicroDeg - Point.MICRO_DEG_360)) && ((lonMicroDeg - Point.MICRO_DEG_360) < lonMicroDegMax);
+        } else {
+            return true;
+        }
+    }
+}
@@ -18,11 +18,18 @@ package com.mapcode;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static com.mapcode.CheckArgs.checkMapcodeCode;
+import static com.mapcode.CheckArgs.checkNonnull;
 
 /**
  * This class defines a single mapcode encoding result, including the alphanumeric code and the
@@ -57,7 +64,23 @@ public final class Mapcode {
     private final Territory territory;
 
     @Nonnull
-    private final String codePrecision8;    // Internally, codes are always stored at precision 8.
+    private final String code;              // Uppercase ASCII code, with a precision of at most 8.
+
+    // Internally, codes are compared at precision 8. The code is padded to precision 8 when it is first needed.
+    // Strings are immutable, so this field may safely be set by more than one thread.
+    @Nullable
+    private String codePrecision8;
+
+    // The code with precision 0 in every alphabet, indexed by alphabet number, is filled when first needed.
+    // The array is shared between threads, but its elements are immutable strings, so a lost update only
+    // means a code is converted more than once.
+    @Nullable
+    private volatile String[] codeInAlphabets;
+
+    // The cell the code with precision 0 refers to, is decoded when first needed. It is shared with mapcodes
+    // derived from this one with another precision. The cell is never modified once it is decoded.
+    @Nullable
+    private volatile Decoder.DecodedCell decodedCell;
 
     /**
      * Create a mapcode object. Normally, mapcodes are created be encoding a lat/lon pair
@@ -76,36 +99,62 @@ public final class Mapcode {
      */
     public Mapcode(@Nonnull final String code,
                    @Nonnull final Territory territory) throws IllegalArgumentException {
+        this(normalizeCode(code), null, territory);
+    }
+
+    private Mapcode(@Nonnull final String code,
+                    @Nullable final String codePrecision8,
+                    @Nonnull final Territory territory) {
+        this.code = code;
+        this.codePrecision8 = codePrecision8;
+        this.territory = territory;
+    }
 
+    /**
+     * Create a mapcode object for a code produced by the encoder, without checking or converting
+     * the code. Package private for use by the encoder.
+     *
+     * @param codePrecision8 Code in uppercase ASCII, without territory, with exactly 8 precision characters.
+     * @param territory      Territory.
+     * @return Mapcode.
+     */
+    @Nonnull
+    static Mapcode fromCodePrecision8(@Nonnull final String codePrecision8, @Nonnull final Territory territory) {
+        assert codePrecision8.indexOf('-') == (codePrecision8.length() - 9);
+        return new Mapcode(codePrecision8, codePrecision8, territory);
+    }
+
+    /**
+     * Create a mapcode object for a code produced by the encoder, with any precision, without checking or
+     * converting the code. Package private for use by the encoder.
+     *
+     * @param code      Code in uppercase ASCII, without territory, with at most 8 precision characters.
+     * @param territory Territory.
+     * @return Mapcode.
+     */
+    @Nonnull
+    static Mapcode fromCode(@Nonnull final String code, @Nonnull final Territory territory) {
+        assert (code.indexOf('-') < 0) || (code.indexOf('-') >= (code.length() - 9));
+        return (code.indexOf('-') == (code.length() - 9)) ?
+                new Mapcode(code, code, territory) : new Mapcode(code, null, territory);
+    }
+
+    @Nonnull
+    private static String normalizeCode(@Nonnull final String code) throws IllegalArgumentException {
         checkMapcodeCode("code", code);
         final String ascii = convertStringToPlainAscii(code);
         if (containsTerritory(ascii)) {
             throw new IllegalArgumentException("Must not contain territory: " + code);
         }
 
-        // Build codeUppercase with exactly eight precision digits.
+        // Build codeUppercase with at most eight precision digits.
         String codeUppercase = ascii.toUpperCase();
         final int hyphenPos = codeUppercase.indexOf('-');
-        if (hyphenPos < 0) {
-            codeUppercase = codeUppercase + "-K3000000";
-        } else {
-            final int extensionLength = codeUppercase.length() - 1 - hyphenPos;
-            if (extensionLength < 8) {
-                if ((extensionLength % 2) == 1) {
-                    // Odd extension.
-                    codeUppercase = codeUppercase + ("HH000000".substring(0, 8 - extensionLength));
-                } else {
-                    // Even extension.
-                    codeUppercase = codeUppercase + ("K3000000".substring(0, 8 - extensionLength));
-                }
-            } else if (extensionLength > 8) {
-                // Cut to 8 characters.
-                codeUppercase = codeUppercase.substring(0, hyphenPos + 9);
-            }
+        if ((hyphenPos >= 0) && ((codeUppercase.length() - 1 - hyphenPos) > 8)) {
+            // Cut to 8 characters.
+            codeUppercase = codeUppercase.substring(0, hyphenPos + 9);
         }
-
-        this.codePrecision8 = codeUppercase;
-        this.territory = territory;
+        return codeUppercase;
     }
 
     /**
@@ -151,8 +200,13 @@ public final class Mapcode {
     @Nonnull
     public String getCode(final int precision, @Nullable final Alphabet alphabet) {
         if (precision == 0) {
-            return convertStringToAlphabet(codePrecision8.substring(0, codePrecision8.length() - 9), alphabet);
+            if (alphabet != null) {
+                return getCodeInAlphabet(alphabet);
+            }
+            final int hyphenPos = code.indexOf('-');
+            return (hyphenPos < 0) ? code : code.substring(0, hyphenPos);
         } else if (precision <= 8) {
+            final String codePrecision8 = getCodePrecision8();
             return convertStringToAlphabet(codePrecision8.substring(0, (codePrecision8.length() - 8) + precision),
                     alphabet);
         } else {
@@ -165,6 +219,36 @@ public final class Mapcode {
         return getCode(precision, null);
     }
 
+    /**
+     * Get the mapcode code (without territory information) with a specified precision, in all alphabets.
+     * This is faster than calling {@link #getCode(int, Alphabet)} for every alphabet. Codes with precision 0
+     * are remembered by the mapcode object, so subsequent calls for the same mapcode are cheap.
+     *
+     * @param precision Precision. Range: 0..8.
+     * @return Mapcode code per alphabet, for all alphabets. The map cannot be modified.
+     * @throws IllegalArgumentException Thrown if precision is out of range (must be in [0, 8]), or if the
+     *                                  code cannot be encoded in one of the alphabets.
+     */
+    @Nonnull
+    public Map<Alphabet, String> getCodeInAllAlphabets(final int precision) throws IllegalArgumentException {
+        final String[] codes;
+        if (precision == 0) {
+            codes = getCodeInAlphabets();
+        } else {
+            codes = Decoder.encodeUTF16InAllAlphabets(getCode(precision));
+        }
+        final Map<Alphabet, String> result = new EnumMap<Alphabet, String>(Alphabet.class);
+        for (int number = 0; number < codes.length; number++) {
+            result.put(Alphabet.fromNumber(number), codes[number]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Nonnull
+    public Map<Alphabet, String> getCodeInAllAlphabets() {
+        return getCodeInAllAlphabets(0);
+    }
+
     /**
      * Return the full international mapcode, including the full name of the territory and the mapcode code itself.
      * The format of the string is:
@@ -234,6 +318,268 @@ public final class Mapcode {
         return getCodeWithTerritory(0, null);
     }
 
+    /**
+     * Return the international mapcodes of a number of mapcodes, in an alphabet. This is the same as calling
+     * {@link #getCodeWithTerritory(int, Alphabet)} for every mapcode, but all mapcodes are built in a single
+     * buffer. If territoryInAlphabet is true, the territory codes are converted to the alphabet as well,
+     * like {@link Territory#toString(Alphabet)}, so the mapcodes are fully localized.
+     *
+     * @param mapcodes            Mapcodes.
+     * @param precision           Precision specifier. Range: [0, 8].
+     * @param alphabet            Alphabet.
+     * @param territoryInAlphabet True if the territory codes should be converted to the alphabet as well, false
+     *                            if they should be in Roman, like {@link #getCodeWithTerritory(int, Alphabet)}.
+     * @return Short-hand international mapcodes, in the order of the mapcodes.
+     * @throws IllegalArgumentException Thrown if precision is out of range (must be in [0, 8]).
+     */
+    @Nonnull
+    public static List<String> getCodesWithTerritory(
+            @Nonnull final Collection<Mapcode> mapcodes,
+            final int precision,
+            @Nullable final Alphabet alphabet,
+            final boolean territoryInAlphabet) throws IllegalArgumentException {
+        checkNonnull("mapcodes", mapcodes);
+        checkPrecision(precision);
+        final List<String> result = new ArrayList<String>(mapcodes.size());
+        final StringBuilder buffer = new StringBuilder();
+        for (final Mapcode mapcode : mapcodes) {
+            buffer.setLength(0);
+            mapcode.appendCodeWithTerritory(buffer, precision, alphabet, territoryInAlphabet);
+            result.add(buffer.toString());
+        }
+        return result;
+    }
+
+    @Nonnull
+    public static List<String> getCodesWithTerritory(
+            @Nonnull final Collection<Mapcode> mapcodes,
+            final int precision,
+            @Nullable final Alphabet alphabet) throws IllegalArgumentException {
+        return getCodesWithTerritory(mapcodes, precision, alphabet, false);
+    }
+
+    /**
+     * Append the international mapcodes of a number of mapcodes, in an alphabet, to a buffer. The buffer
+     * can be reused for subsequent calls, so no strings need to be created for the mapcodes at all.
+     * Every mapcode is formatted like {@link #getCodesWithTerritory(Collection, int, Alphabet, boolean)}.
+     *
+     * @param buffer              Buffer to append the mapcodes to.
+     * @param mapcodes            Mapcodes.
+     * @param precision           Precision specifier. Range: [0, 8].
+     * @param alphabet            Alphabet.
+     * @param separator           Separator, appended between mapcodes.
+     * @param territoryInAlphabet True if the territory codes should be converted to the alphabet as well.
+     * @throws IllegalArgumentException Thrown if precision is out of range (must be in [0, 8]).
+     */
+    public static void appendCodesWithTerritory(
+            @Nonnull final StringBuilder buffer,
+            @Nonnull final Iterable<Mapcode> mapcodes,
+            final int precision,
+            @Nullable final Alphabet alphabet,
+            @Nonnull final String separator,
+            final boolean territoryInAlphabet) throws IllegalArgumentException {
+        checkNonnull("buffer", buffer);
+        checkNonnull("mapcodes", mapcodes);
+        checkNonnull("separator", separator);
+        checkPrecision(precision);
+        boolean first = true;
+        for (final Mapcode mapcode : mapcodes) {
+            if (!first) {
+                buffer.append(separator);
+            }
+            first = false;
+            mapcode.appendCodeWithTerritory(buffer, precision, alphabet, territoryInAlphabet);
+        }
+    }
+
+    public static void appendCodesWithTerritory(
+            @Nonnull final StringBuilder buffer,
+            @Nonnull final Iterable<Mapcode> mapcodes,
+            final int precision,
+            @Nullable final Alphabet alphabet,
+            @Nonnull final String separator) throws IllegalArgumentException {
+        appendCodesWithTerritory(buffer, mapcodes, precision, alphabet, separator, false);
+    }
+
+    /**
+     * Get the rectangle which defines the zone of the mapcode, with a specified precision, like
+     * {@link MapcodeCodec#decodeToRectangle(String, Territory)} for {@link #getCode(int)}. The mapcode is decoded
+     * only once: the zones for all precisions are derived from the same decoded cell, which is remembered by the
+     * mapcode object.
+     *
+     * Note that precisions beyond the precision of the code refer to the center sub-zone of the zone of the code,
+     * just like {@link #getCode(int)} does.
+     *
+     * @param precision Precision. Range: 0..8.
+     * @return Rectangle Mapcode zone. South/West borders are inclusive, North/East borders exclusive.
+     * @throws UnknownMapcodeException  Thrown if the mapcode cannot be decoded.
+     * @throws IllegalArgumentException Thrown if precision is out of range (must be in [0, 8]).
+     */
+    @Nonnull
+    public Rectangle getRectangle(final int precision) throws UnknownMapcodeException, IllegalArgumentException {
+        checkPrecision(precision);
+        final String extension;
+        if (precision == 0) {
+            extension = "";
+        } else {
+            final String codePrecision8 = getCodePrecision8();
+            final int start = codePrecision8.length() - 8;
+            extension = codePrecision8.substring(start, start + precision);
+        }
+        final MapcodeZone mapcodeZone = getDecodedCell().decodeZone(extension);
+        if (mapcodeZone.isEmpty()) {
+            throw new UnknownMapcodeException("Unknown mapcode, mapcode=" + getCodeWithTerritory(precision));
+        }
+        return Rectangle.fromMapcodeZone(mapcodeZone);
+    }
+
+    @Nonnull
+    public Rectangle getRectangle() throws UnknownMapcodeException {
+        return getRectangle(0);
+    }
+
+    /**
+     * Get this mapcode with another precision. A lower precision truncates the code, a higher precision
+     * refers to the center sub-zone of the zone of the code, like {@link #getCode(int)}. The returned
+     * mapcode is derived from the code of this mapcode, without encoding or decoding it.
+     *
+     * @param precision Precision. Range: 0..8.
+     * @return Mapcode with code {@link #getCode(int)}, in the same territory.
+     * @throws IllegalArgumentException Thrown if precision is out of range (must be in [0, 8]).
+     */
+    @Nonnull
+    public Mapcode withPrecision(final int precision) throws IllegalArgumentException {
+        checkPrecision(precision);
+        final String codeWithPrecision = getCode(precision);
+        final Mapcode result = new Mapcode(codeWithPrecision,
+                (precision == 8) ? codeWithPrecision : null, territory);
+        result.decodedCell = decodedCell;
+        return result;
+    }
+
+    /**
+     * Get the mapcode with the highest precision whose zone contains the zones of all given mapcodes, if the
+     * mapcodes share the same territory and the same code with precision 0. Only the precision characters of
+     * the codes themselves are compared, not the padding of codes with a lower precision (see
+     * {@link #getCode(int)}), so this does not encode or decode any mapcode.
+     *
+     * @param mapcodes Mapcodes, must not be empty.
+     * @return Mapcode with the longest precision extension that all codes share, or null if the mapcodes
+     * do not have the same territory and code with precision 0.
+     * @throws IllegalArgumentException Thrown if the collection of mapcodes is empty.
+     */
+    @Nullable
+    public static Mapcode getCommonAncestor(@Nonnull final Iterable<Mapcode> mapcodes) throws IllegalArgumentException {
+        checkNonnull("mapcodes", mapcodes);
+        Mapcode first = null;
+        String prefix = null;
+        int prefixLength = 0;
+        for (final Mapcode mapcode : mapcodes) {
+            final String codePrecision8 = mapcode.getCodePrecision8();
+
+            // The characters of the code itself, including the hyphen (also for codes with precision 0).
+            final int codeLength = (mapcode.code.indexOf('-') < 0) ? (mapcode.code.length() + 1) : mapcode.code.length();
+            if (first == null) {
+                first = mapcode;
+                prefix = codePrecision8;
+                prefixLength = codeLength;
+            } else {
+                assert prefix != null;
+                if ((mapcode.territory != first.territory) || (codePrecision8.length() != prefix.length())) {
+                    return null;
+                }
+                final int maxLength = Math.min(prefixLength, codeLength);
+                int length = 0;
+                while ((length < maxLength) && (codePrecision8.charAt(length) == prefix.charAt(length))) {
+                    length++;
+                }
+                prefixLength = length;
+            }
+        }
+        if (first == null) {
+            throw new IllegalArgumentException("mapcodes must not be empty");
+        }
+        assert prefix != null;
+
+        // The precision 0 codes must be equal, including the hyphen.
+        final int precision = prefixLength - (prefix.length() - 8);
+        return (precision < 0) ? null : first.withPrecision(precision);
+    }
+
+    /**
+     * Get a binary sort key of the mapcode, for use as a key in external (key-value) stores. The key consists of
+     * the ASCII characters of the international territory code (see {@link Territory#toAlphaCode(Territory.AlphaCodeFormat)}),
+     * a space, and the ASCII characters of the code with precision 8. This is the same as
+     * {@link #getCodeWithTerritory(int)} with precision 8, so keys do not depend on the version of the data model.
+     *
+     * Sort keys are canonical: equal mapcodes have equal keys, regardless of the precision or alphabet they
+     * were created with. Sorted as unsigned bytes, keys are in the same order as in {@link MapcodeIndex}, so
+     * mapcodes which share a prefix in the same territory share a key prefix and are stored next to each other.
+     *
+     * @return Sort key. A new array is returned for every call.
+     * @throws IllegalArgumentException Thrown if the code contains characters which are not plain ASCII.
+     */
+    @Nonnull
+    public byte[] getSortKey() throws IllegalArgumentException {
+        final String territoryCode = territory.toAlphaCode(Territory.AlphaCodeFormat.INTERNATIONAL);
+        final String codePrecision8 = getCodePrecision8();
+        final int codeStart = territoryCode.length() + 1;
+        final byte[] sortKey = new byte[codeStart + codePrecision8.length()];
+        for (int i = 0; i < territoryCode.length(); i++) {
+            sortKey[i] = (byte) territoryCode.charAt(i);
+        }
+        sortKey[territoryCode.length()] = SORT_KEY_SEPARATOR;
+        for (int i = 0; i < codePrecision8.length(); i++) {
+            final char ch = codePrecision8.charAt(i);
+            if ((ch <= SORT_KEY_SEPARATOR) || (ch > 'z')) {
+                throw new IllegalArgumentException("Code must be plain ASCII for a sort key: " + code);
+            }
+            sortKey[codeStart + i] = (byte) ch;
+        }
+        return sortKey;
+    }
+
+    /**
+     * Create a mapcode object from a sort key, created by {@link #getSortKey()}.
+     *
+     * @param sortKey Sort key.
+     * @return Mapcode, with precision 8.
+     * @throws IllegalArgumentException Thrown if the sort key is not a valid sort key.
+     */
+    @Nonnull
+    public static Mapcode fromSortKey(@Nonnull final byte[] sortKey) throws IllegalArgumentException {
+        checkNonnull("sortKey", sortKey);
+        int separator = 0;
+        while ((separator < sortKey.length) && (sortKey[separator] != SORT_KEY_SEPARATOR)) {
+            separator++;
+        }
+        if ((separator == 0) || (separator >= (sortKey.length - 1))) {
+            throw new IllegalArgumentException("Invalid sort key, no territory or code");
+        }
+        final Territory territory = Territory.fromString(new String(toChars(sortKey, 0, separator)));
+        final Mapcode mapcode = new Mapcode(new String(toChars(sortKey, separator + 1, sortKey.length)), territory);
+        if (!mapcode.code.equals(mapcode.getCodePrecision8())) {
+            throw new IllegalArgumentException("Invalid sort key, code must have precision 8: " + mapcode.code);
+        }
+        return mapcode;
+    }
+
+    // Separator between territory and code in a sort key, which is less than any character of either.
+    private static final byte SORT_KEY_SEPARATOR = ' ';
+
+    @Nonnull
+    private static char[] toChars(@Nonnull final byte[] bytes, final int start, final int end) {
+        final char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            final int ch = bytes[i] & 0xff;
+            if ((ch <= SORT_KEY_SEPARATOR) || (ch > 'z')) {
+                throw new IllegalArgumentException("Invalid sort key, not plain ASCII: " + ch);
+            }
+            chars[i - start] = (char) ch;
+        }
+        return chars;
+    }
+
     /**
      * Get the territory information.
      *
@@ -413,7 +759,7 @@ public final class Mapcode {
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(new Object[]{codePrecision8, territory});
+        return Arrays.deepHashCode(new Object[]{getCodePrecision8(), territory});
     }
 
     @Override
@@ -426,6 +772,130 @@ public final class Mapcode {
         }
         final Mapcode that = (Mapcode) obj;
         return (this.territory == that.territory) &&
-                this.codePrecision8.equals(that.codePrecision8);
+                this.getCodePrecision8().equals(that.getCodePrecision8());
+    }
+
+    static void checkPrecision(final int precision) throws IllegalArgumentException {
+        if ((precision < 0) || (precision > 8)) {
+            throw new IllegalArgumentException("precision must be in [0, 8]: " + precision);
+        }
+    }
+
+    private void appendCodeWithTerritory(
+            @Nonnull final StringBuilder buffer,
+            final int precision,
+            @Nullable final Alphabet alphabet,
+            final boolean territoryInAlphabet) throws IllegalArgumentException {
+
+        // Territory codes are cached per alphabet, see Territory.toAlphaCode.
+        buffer.append(territoryInAlphabet ? territory.toString(alphabet) : territory.toString()).append(' ');
+        if (precision == 0) {
+            if (alphabet != null) {
+                buffer.append(getCodeInAlphabet(alphabet));
+            } else {
+                final int hyphenPos = code.indexOf('-');
+                buffer.append(code, 0, (hyphenPos < 0) ? code.length() : hyphenPos);
+            }
+        } else {
+            final String codePrecision8 = getCodePrecision8();
+            final int end = (codePrecision8.length() - 8) + precision;
+            if (alphabet != null) {
+                Decoder.appendUTF16(buffer, codePrecision8, end, alphabet.getNumber());
+            } else {
+                buffer.append(codePrecision8, 0, end);
+            }
+        }
+    }
+
+    /**
+     * Return the code with precision 0 in an alphabet, converting and remembering it if needed.
+     *
+     * @param alphabet Alphabet.
+     * @return Code with precision 0.
+     */
+    @Nonnull
+    private String getCodeInAlphabet(@Nonnull final Alphabet alphabet) {
+        String[] codes = codeInAlphabets;
+        if (codes == null) {
+            codes = new String[Alphabet.getNrAlphabets()];
+            codeInAlphabets = codes;
+        }
+        String result = codes[alphabet.getNumber()];
+        if (result == null) {
+            result = convertStringToAlphabet(getCode(0), alphabet);
+            codes[alphabet.getNumber()] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Return the code with precision 0 in all alphabets, converting and remembering them if needed.
+     *
+     * @return Codes with precision 0, indexed by alphabet number. Must not be modified.
+     */
+    @Nonnull
+    private String[] getCodeInAlphabets() {
+        final String[] codes = codeInAlphabets;
+        if (codes != null) {
+            boolean complete = true;
+            for (final String c : codes) {
+                if (c == null) {
+                    complete = false;
+                    break;
+                }
+            }
+            if (complete) {
+                return codes;
+            }
+        }
+        final String[] result = Decoder.encodeUTF16InAllAlphabets(getCode(0));
+        codeInAlphabets = result;
+        return result;
+    }
+
+    /**
+     * Return the cell of the code with precision 0, decoding and remembering it if needed.
+     *
+     * @return Decoded cell.
+     * @throws UnknownMapcodeException Thrown if the mapcode cannot be decoded.
+     */
+    @Nonnull
+    private Decoder.DecodedCell getDecodedCell() throws UnknownMapcodeException {
+        Decoder.DecodedCell result = decodedCell;
+        if (result == null) {
+            result = Decoder.decodeToCell(getCode(0), territory);
+            if (result == null) {
+                throw new UnknownMapcodeException("Unknown mapcode, mapcode=" + getCodeWithTerritory());
+            }
+            decodedCell = result;
+        }
+        return result;
+    }
+
+    /**
+     * Return the code with exactly eight precision digits, padding it if needed.
+     *
+     * @return Code with precision 8.
+     */
+    @Nonnull
+    String getCodePrecision8() {
+        String result = codePrecision8;
+        if (result == null) {
+            final int hyphenPos = code.indexOf('-');
+            if (hyphenPos < 0) {
+                result = code + "-K3000000";
+            } else {
+                final int extensionLength = code.length() - 1 - hyphenPos;
+                if ((extensionLength % 2) == 1) {
+                    // Odd extension.
+                    result = code + ("HH000000".substring(0, 8 - extensionLength));
+                } else {
+                    // Even extension.
+                    result = code + ("K3000000".substring(0, 8 - extensionLength));
+                }
+            }
+            codePrecision8 = result;
+        }
+        return result;
     }
 }
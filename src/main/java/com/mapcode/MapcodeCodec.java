@@ -16,10 +16,20 @@
 
 package com.mapcode;
 
+import com.mapcode.MapcodeInstrumentation.ErrorCategory;
+import com.mapcode.MapcodeInstrumentation.Operation;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 
 import static com.mapcode.CheckArgs.checkDefined;
@@ -39,6 +49,13 @@ public final class MapcodeCodec {
     // Get direct access to the data model.
     private static final DataModel DATA_MODEL = DataModel.getInstance();
 
+    // All directions, in declaration order. Direction.values() creates a new array on every call.
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // Instrumentation, or null if there is none (the default).
+    @Nullable
+    private static volatile MapcodeInstrumentation instrumentation = null;
+
     private MapcodeCodec() {
         // Prevent instantiation.
     }
@@ -99,7 +116,7 @@ public final class MapcodeCodec {
     public static List<Mapcode> encode(final double latDeg, final double lonDeg,
                                        @Nullable final Territory restrictToTerritory)
             throws IllegalArgumentException {
-        final List<Mapcode> results = Encoder.encode(latDeg, lonDeg, restrictToTerritory, false);
+        final List<Mapcode> results = encodeWithInstrumentation(latDeg, lonDeg, restrictToTerritory, null, null);
         assert results != null;
         return results;
     }
@@ -112,6 +129,57 @@ public final class MapcodeCodec {
         return encode(point.getLatDeg(), point.getLonDeg(), restrictToTerritory);
     }
 
+    /**
+     * Encode a lat/lon pair to a list of mapcodes, like {@link #encode(double, double)}, for a set of territories.
+     * Only the data of these territories is inspected, so this is much faster than filtering the results
+     * of {@link #encode(double, double)}, while producing the same results in the same order.
+     *
+     * Subdivisions are not included automatically: to get the mapcodes of a country and its states, include
+     * the country and all of its subdivisions, for example {@link Territory#USA} and all "US-" territories.
+     *
+     * @param latDeg                Latitude, accepted range: -90..90.
+     * @param lonDeg                Longitude, accepted range: -180..180.
+     * @param restrictToTerritories Territories to encode in, see {@link Territory}. Cannot be null.
+     * @return Possibly empty, ordered list of mapcode information records, see {@link Mapcode}.
+     * @throws IllegalArgumentException Thrown if latitude or longitude are out of range.
+     */
+    @Nonnull
+    public static List<Mapcode> encodeRestrictToTerritories(final double latDeg, final double lonDeg,
+                                                            @Nonnull final Collection<Territory> restrictToTerritories)
+            throws IllegalArgumentException {
+        checkNonnull("restrictToTerritories", restrictToTerritories);
+        final int[] territoryNumbers = new int[restrictToTerritories.size()];
+        int count = 0;
+        for (final Territory territory : restrictToTerritories) {
+            checkNonnull("territory", territory);
+            territoryNumbers[count] = territory.getNumber();
+            ++count;
+        }
+
+        // The encoder needs the territories in ascending order, without duplicates.
+        Arrays.sort(territoryNumbers);
+        int nrTerritories = 0;
+        for (int i = 0; i < territoryNumbers.length; i++) {
+            if ((i == 0) || (territoryNumbers[i] != territoryNumbers[i - 1])) {
+                territoryNumbers[nrTerritories] = territoryNumbers[i];
+                ++nrTerritories;
+            }
+        }
+        final List<Mapcode> results = encodeWithInstrumentation(latDeg, lonDeg, null,
+                (nrTerritories == territoryNumbers.length) ? territoryNumbers :
+                        Arrays.copyOf(territoryNumbers, nrTerritories), null);
+        assert results != null;
+        return results;
+    }
+
+    @Nonnull
+    public static List<Mapcode> encodeRestrictToTerritories(@Nonnull final Point point,
+                                                            @Nonnull final Collection<Territory> restrictToTerritories)
+            throws IllegalArgumentException {
+        checkDefined("point", point);
+        return encodeRestrictToTerritories(point.getLatDeg(), point.getLonDeg(), restrictToTerritories);
+    }
+
     /**
      * Encode a lat/lon pair to a list of mapcodes, like {@link #encode(double, double)}.
      * The result list is limited to those mapcodes that belong to the provided ISO 3166 country code, 2 characters.
@@ -130,23 +198,12 @@ public final class MapcodeCodec {
                                                             @Nonnull final String countryISO2)
             throws IllegalArgumentException {
         checkNonnull("countryISO2", countryISO2);
-        final String countryISO3 = Territory.fromCountryISO2(countryISO2).toString();
-        final String prefix = countryISO2.toUpperCase() + '-';
-        final List<Mapcode> mapcodes = encode(latDeg, lonDeg);
-        final List<Mapcode> filtered = new ArrayList<Mapcode>();
-        for (final Mapcode mapcode : mapcodes) {
-
-            if (mapcode.getTerritory().toString().startsWith(prefix)) {
-                // If the mapcode starts with the ISO 2 code, it's OK.
-                filtered.add(mapcode);
-
-            } else if (mapcode.getTerritory().toString().equals(countryISO3)) {
 
-                // Otherwise, if it's the correct country ISO 3 code, it's also OK.
-                filtered.add(mapcode);
-            }
-        }
-        return filtered;
+        // Only encode in the country itself and in the territories which start with the ISO 2 code.
+        final List<Mapcode> results = encodeWithInstrumentation(latDeg, lonDeg, null,
+                Territory.getTerritoryNumbersOfCountryISO2(countryISO2), null);
+        assert results != null;
+        return results;
     }
 
     @Nonnull
@@ -236,15 +293,12 @@ public final class MapcodeCodec {
         checkNonnull("restrictToTerritory", restrictToTerritory);
 
         // Call mapcode encoder.
-        @Nonnull final List<Mapcode> results =
-                Encoder.encode(latDeg, lonDeg, restrictToTerritory, /* Stop with one result: */ true);
-        assert results != null;
-        assert results.size() <= 1;
-        if (results.isEmpty()) {
+        final Mapcode result = encodeToShortestWithInstrumentation(latDeg, lonDeg, restrictToTerritory);
+        if (result == null) {
             throw new UnknownMapcodeException("No Mapcode for lat=" + latDeg + ", lon=" + lonDeg +
                     ", territory=" + restrictToTerritory);
         }
-        return results.get(0);
+        return result;
     }
 
     @Nonnull
@@ -255,9 +309,41 @@ public final class MapcodeCodec {
         return encodeToShortest(point.getLatDeg(), point.getLonDeg(), restrictToTerritory);
     }
 
+    /**
+     * Encode a lat/lon pair to its shortest mapcode in any territory. If several territories have a
+     * mapcode of the same length, the first one in the order of {@link #encode(double, double)} is
+     * returned. Only the shortest mapcode of every territory is created, so this is faster than
+     * picking the shortest mapcode from the list returned by {@link #encode(double, double)}.
+     *
+     * @param latDeg Latitude, accepted range: -90..90.
+     * @param lonDeg Longitude, accepted range: -180..180.
+     * @return Shortest mapcode (always exists, it may be the international mapcode), see {@link Mapcode}.
+     * @throws IllegalArgumentException Thrown if latitude or longitude are out of range.
+     */
+    @Nonnull
+    public static Mapcode encodeToShortest(final double latDeg, final double lonDeg)
+            throws IllegalArgumentException {
+
+        // Call mapcode encoder.
+        final Mapcode result = encodeToShortestWithInstrumentation(latDeg, lonDeg, null);
+        assert result != null;
+        return result;
+    }
+
+    @Nonnull
+    public static Mapcode encodeToShortest(@Nonnull final Point point)
+            throws IllegalArgumentException {
+        checkDefined("point", point);
+        return encodeToShortest(point.getLatDeg(), point.getLonDeg());
+    }
+
     /**
      * Encode a lat/lon pair to its unambiguous, international mapcode.
      *
+     * This is the fastest way to encode a point: the international mapcode is computed directly from
+     * the coordinate, without looking at any other territory. Use {@link Mapcode#getCode(int)} to get
+     * the mapcode with additional precision.
+     *
      * @param latDeg Latitude, accepted range: -90..90.
      * @param lonDeg Longitude, accepted range: -180..180.
      * @return International unambiguous mapcode (always exists), see {@link Mapcode}.
@@ -268,10 +354,9 @@ public final class MapcodeCodec {
             throws IllegalArgumentException {
 
         // Call mapcode encoder.
-        @Nonnull final List<Mapcode> results = encode(latDeg, lonDeg, Territory.AAA);
-        assert results != null;
-        assert results.size() >= 1;
-        return results.get(results.size() - 1);
+        final Mapcode result = encodeToShortestWithInstrumentation(latDeg, lonDeg, Territory.AAA);
+        assert result != null;
+        return result;
     }
 
     @Nonnull
@@ -328,7 +413,8 @@ public final class MapcodeCodec {
             throws UnknownMapcodeException, IllegalArgumentException, UnknownPrecisionFormatException {
         checkNonnull("mapcode", mapcode);
 
-        final MapcodeZone mapcodeZone = decodeToMapcodeZone(mapcode, defaultTerritoryContext);
+        final MapcodeZone mapcodeZone = decodeToMapcodeZoneWithInstrumentation(mapcode, defaultTerritoryContext,
+                Operation.DECODE, null);
         if (mapcodeZone.isEmpty()) {
             throw new UnknownMapcodeException("Unknown mapcode, mapcode=" + mapcode + ", territoryContext=" + defaultTerritoryContext);
         }
@@ -370,14 +456,71 @@ public final class MapcodeCodec {
     public static Rectangle decodeToRectangle(@Nonnull final String mapcode, @Nullable final Territory defaultTerritoryContext)
             throws UnknownMapcodeException, IllegalArgumentException, UnknownPrecisionFormatException {
         checkNonnull("mapcode", mapcode);
-        final MapcodeZone mapcodeZone = decodeToMapcodeZone(mapcode, defaultTerritoryContext);
-        final Point southWest = Point.fromLatLonFractions(mapcodeZone.getLatFractionMin(), mapcodeZone.getLonFractionMin());
-        final Point northEast = Point.fromLatLonFractions(mapcodeZone.getLatFractionMax(), mapcodeZone.getLonFractionMax());
-        final Rectangle rectangle = new Rectangle(southWest, northEast);
+        final MapcodeZone mapcodeZone = decodeToMapcodeZoneWithInstrumentation(mapcode, defaultTerritoryContext,
+                Operation.DECODE_TO_RECTANGLE, null);
+        final Rectangle rectangle = Rectangle.fromMapcodeZone(mapcodeZone);
         assert rectangle.isDefined();
         return rectangle;
     }
 
+    /**
+     * Decode a mapcode to its center, its zone, the territory used to decode it and its precision, with a single
+     * decode. This is faster than calling {@link #decode(String, Territory)} and
+     * {@link #decodeToRectangle(String, Territory)} for the same mapcode.
+     *
+     * @param mapcode                 Mapcode.
+     * @param defaultTerritoryContext Default territory context for disambiguation purposes. May be null.
+     * @return Decode result.
+     * @throws UnknownMapcodeException         Thrown if the mapcode has the correct syntax,
+     *                                         but cannot be decoded into a point.
+     * @throws UnknownPrecisionFormatException Thrown if the precision format is incorrect.
+     * @throws IllegalArgumentException        Thrown if arguments are null, or if the syntax of the mapcode is incorrect.
+     */
+    @Nonnull
+    public static DecodeResult decodeToResult(@Nonnull final String mapcode, @Nullable final Territory defaultTerritoryContext)
+            throws UnknownMapcodeException, IllegalArgumentException, UnknownPrecisionFormatException {
+        final DecodeResult result = new DecodeResult();
+        decodeToResult(mapcode, defaultTerritoryContext, result);
+        return result;
+    }
+
+    @Nonnull
+    public static DecodeResult decodeToResult(@Nonnull final String mapcode)
+            throws UnknownMapcodeException, IllegalArgumentException, UnknownPrecisionFormatException {
+        return decodeToResult(mapcode, Territory.AAA);
+    }
+
+    /**
+     * Decode a mapcode into an existing result object, like {@link #decodeToResult(String, Territory)}. The result
+     * object can be reused for many mapcodes, so bulk decoding does not need to create any objects for the results.
+     * If the mapcode cannot be decoded, the result is cleared and an exception is thrown.
+     *
+     * @param mapcode                 Mapcode.
+     * @param defaultTerritoryContext Default territory context for disambiguation purposes. May be null.
+     * @param result                  Result object, which is overwritten.
+     * @throws UnknownMapcodeException         Thrown if the mapcode has the correct syntax,
+     *                                         but cannot be decoded into a point.
+     * @throws UnknownPrecisionFormatException Thrown if the precision format is incorrect.
+     * @throws IllegalArgumentException        Thrown if arguments are null, or if the syntax of the mapcode is incorrect.
+     */
+    public static void decodeToResult(@Nonnull final String mapcode,
+                                      @Nullable final Territory defaultTerritoryContext,
+                                      @Nonnull final DecodeResult result)
+            throws UnknownMapcodeException, IllegalArgumentException, UnknownPrecisionFormatException {
+        checkNonnull("mapcode", mapcode);
+        checkNonnull("result", result);
+        result.clear();
+        final CodecStats stats = result.stats;
+        stats.clear();
+        final MapcodeZone mapcodeZone = decodeToMapcodeZoneWithInstrumentation(mapcode, defaultTerritoryContext,
+                Operation.DECODE, stats);
+        if (mapcodeZone.isEmpty()) {
+            throw new UnknownMapcodeException("Unknown mapcode, mapcode=" + mapcode + ", territoryContext=" + defaultTerritoryContext);
+        }
+        assert (stats.territory != null) && (stats.precision >= 0);
+        result.set(mapcodeZone, stats.territory, stats.precision);
+    }
+
     /**
      * Is coordinate near multiple territory borders?
      *
@@ -387,38 +530,379 @@ public final class MapcodeCodec {
      */
     public static boolean isNearMultipleBorders(@Nonnull final Point point, @Nonnull final Territory territory) {
         checkDefined("point", point);
-        if (territory != Territory.AAA) {
-            final int territoryNumber = territory.getNumber();
-            if (territory.getParentTerritory() != null) {
-                // There is a parent! check its borders as well...
-                if (isNearMultipleBorders(point, territory.getParentTerritory())) {
-                    return true;
-                }
+        checkNonnull("territory", territory);
+        return (territory != Territory.AAA) && NearBorderIndex.getInstance().isNearMultipleBorders(point, territory);
+    }
+
+    /**
+     * Encode a lat/lon pair to a list of mapcodes, like {@link #encode(double, double, Territory)}, and determine
+     * for every mapcode if the lat/lon is near multiple borders of its territory, like
+     * {@link #isNearMultipleBorders(Point, Territory)}. This is faster than calling isNearMultipleBorders for
+     * every mapcode, as the border bands are checked while the encoder scans the records of each territory.
+     *
+     * @param latDeg              Latitude, accepted range: -90..90 (limited to this range if outside).
+     * @param lonDeg              Longitude, accepted range: -180..180 (wrapped to this range if outside).
+     * @param restrictToTerritory Try to encode only within this territory, see {@link Territory}. May be null.
+     * @return List of mapcodes with their near-border flag, in the same order as
+     * {@link #encode(double, double, Territory)}.
+     * @throws IllegalArgumentException Thrown if latitude or longitude are out of range.
+     */
+    @Nonnull
+    public static List<MapcodeWithBorderFlag> encodeWithBorderFlags(final double latDeg, final double lonDeg,
+                                                                    @Nullable final Territory restrictToTerritory)
+            throws IllegalArgumentException {
+        final BitSet nearMultipleBorders = new BitSet();
+        final List<Mapcode> mapcodes = encodeWithInstrumentation(latDeg, lonDeg, restrictToTerritory, null,
+                nearMultipleBorders);
+        final List<MapcodeWithBorderFlag> results = new ArrayList<MapcodeWithBorderFlag>(mapcodes.size());
+        for (int i = 0; i < mapcodes.size(); i++) {
+            results.add(new MapcodeWithBorderFlag(mapcodes.get(i), nearMultipleBorders.get(i)));
+        }
+        return results;
+    }
+
+    @Nonnull
+    public static List<MapcodeWithBorderFlag> encodeWithBorderFlags(@Nonnull final Point point,
+                                                                    @Nullable final Territory restrictToTerritory)
+            throws IllegalArgumentException {
+        checkDefined("point", point);
+        return encodeWithBorderFlags(point.getLatDeg(), point.getLonDeg(), restrictToTerritory);
+    }
+
+    @Nonnull
+    public static List<MapcodeWithBorderFlag> encodeWithBorderFlags(final double latDeg, final double lonDeg)
+            throws IllegalArgumentException {
+        return encodeWithBorderFlags(latDeg, lonDeg, null);
+    }
+
+    @Nonnull
+    public static List<MapcodeWithBorderFlag> encodeWithBorderFlags(@Nonnull final Point point)
+            throws IllegalArgumentException {
+        checkDefined("point", point);
+        return encodeWithBorderFlags(point.getLatDeg(), point.getLonDeg(), null);
+    }
+
+    /**
+     * Encode all points in a rectangle: return all mapcodes (with precision 0) of the points in the rectangle, with
+     * the zone of every mapcode. This produces the same mapcodes as encoding every point in the rectangle with
+     * {@link #encode(Point, Territory)}, but it is much faster, as only a single point of every mapcode zone
+     * is encoded, in a single territory record.
+     *
+     * The mapcodes are created while iterating, so large rectangles can be enumerated without keeping all mapcodes
+     * in memory. Every mapcode is returned once per territory. The zone of a mapcode overlaps the rectangle, but
+     * may extend beyond it.
+     *
+     * @param southWest           South/West corner of the rectangle, inclusive.
+     * @param northEast           North/East corner of the rectangle, exclusive. If its longitude is smaller than
+     *                            the longitude of southWest, the rectangle crosses the 180 degrees meridian.
+     * @param restrictToTerritory Territory to enumerate mapcodes for, see {@link Territory}. May be null, in which
+     *                            case the mapcodes of all territories are returned, ordered by territory.
+     * @return Mapcodes with their zone. The iterable can be iterated more than once.
+     * @throws IllegalArgumentException Thrown if a corner is undefined, or if the latitude of southWest is larger than
+     *                                  the latitude of northEast.
+     */
+    @Nonnull
+    public static Iterable<MapcodeWithRectangle> encodeRectangle(@Nonnull final Point southWest,
+                                                                 @Nonnull final Point northEast,
+                                                                 @Nullable final Territory restrictToTerritory)
+            throws IllegalArgumentException {
+        checkDefined("southWest", southWest);
+        checkDefined("northEast", northEast);
+        if (southWest.getLatDeg() > northEast.getLatDeg()) {
+            throw new IllegalArgumentException("southWest must not be north of northEast, southWest=" + southWest +
+                    ", northEast=" + northEast);
+        }
+        return new Iterable<MapcodeWithRectangle>() {
+            @Nonnull
+            @Override
+            public Iterator<MapcodeWithRectangle> iterator() {
+                return new MapcodeEnumerator(southWest, northEast, restrictToTerritory);
             }
-            int nrFound = 0;
-            final int fromTerritoryRecord = DATA_MODEL.getDataFirstRecord(territoryNumber);
-            final int uptoTerritoryRecord = DATA_MODEL.getDataLastRecord(territoryNumber);
-            for (int territoryRecord = uptoTerritoryRecord; territoryRecord >= fromTerritoryRecord; territoryRecord--) {
-                if (!Data.isRestricted(territoryRecord)) {
-                    final Boundary boundary = Boundary.createBoundaryForTerritoryRecord(territoryRecord);
-                    final int xdiv8 = Common.xDivider(boundary.getLatMicroDegMin(), boundary.getLatMicroDegMax()) / 4;
-                    if (boundary.extendBoundary(60, xdiv8).containsPoint(point)) {
-                        if (!boundary.extendBoundary(-60, -xdiv8).containsPoint(point)) {
-                            nrFound++;
-                            if (nrFound > 1) {
-                                return true;
-                            }
-                        }
-                    }
-                }
+        };
+    }
+
+    @Nonnull
+    public static Iterable<MapcodeWithRectangle> encodeRectangle(@Nonnull final Point southWest,
+                                                                 @Nonnull final Point northEast)
+            throws IllegalArgumentException {
+        return encodeRectangle(southWest, northEast, null);
+    }
+
+    /**
+     * Get the neighbouring mapcode of a mapcode in a direction: the mapcode of the zone which touches the zone of the
+     * mapcode (with the specified precision) at the middle of its side, or at its corner for diagonal directions.
+     *
+     * The neighbour is encoded from the mapcode zone directly, in the territory record of the mapcode only. Only if
+     * the neighbouring zone is outside that record, the neighbour is the shortest mapcode of the territory
+     * of the mapcode, like {@link #encodeToShortest(Point, Territory)}, or the shortest mapcode of any
+     * territory if the territory does not contain the neighbouring zone.
+     *
+     * @param mapcode   Mapcode.
+     * @param direction Direction of the neighbour.
+     * @param precision Precision of the zones. Range: 0..8.
+     * @return Neighbouring mapcode, with the specified precision.
+     * @throws UnknownMapcodeException  Thrown if the mapcode cannot be decoded.
+     * @throws IllegalArgumentException Thrown if arguments are null, or if precision is out of range.
+     */
+    @Nonnull
+    public static Mapcode getNeighbour(@Nonnull final Mapcode mapcode,
+                                       @Nonnull final Direction direction,
+                                       final int precision)
+            throws UnknownMapcodeException, IllegalArgumentException {
+        checkNonnull("mapcode", mapcode);
+        checkNonnull("direction", direction);
+        Mapcode.checkPrecision(precision);
+        final CodecStats stats = new CodecStats();
+        final MapcodeZone mapcodeZone = decodeNeighbourZone(mapcode, precision, stats);
+        return getNeighbour(mapcode.getTerritory(), mapcodeZone, stats, direction, precision,
+                new char[Encoder.MAX_MAPCODE_LENGTH]);
+    }
+
+    /**
+     * Get the neighbouring mapcodes of a mapcode in all directions, see
+     * {@link #getNeighbour(Mapcode, Direction, int)}. This is faster than getting every neighbour
+     * separately, as the mapcode is decoded only once.
+     *
+     * @param mapcode   Mapcode.
+     * @param precision Precision of the zones. Range: 0..8.
+     * @return Neighbouring mapcodes, with the specified precision, for all directions. The map cannot be modified.
+     * @throws UnknownMapcodeException  Thrown if the mapcode cannot be decoded.
+     * @throws IllegalArgumentException Thrown if arguments are null, or if precision is out of range.
+     */
+    @Nonnull
+    public static Map<Direction, Mapcode> getNeighbours(@Nonnull final Mapcode mapcode,
+                                                        final int precision)
+            throws UnknownMapcodeException, IllegalArgumentException {
+        checkNonnull("mapcode", mapcode);
+        Mapcode.checkPrecision(precision);
+        final CodecStats stats = new CodecStats();
+        final MapcodeZone mapcodeZone = decodeNeighbourZone(mapcode, precision, stats);
+        final char[] buffer = new char[Encoder.MAX_MAPCODE_LENGTH];
+        final Map<Direction, Mapcode> neighbours = new EnumMap<Direction, Mapcode>(Direction.class);
+        for (final Direction direction : DIRECTIONS) {
+            neighbours.put(direction, getNeighbour(mapcode.getTerritory(), mapcodeZone, stats, direction, precision, buffer));
+        }
+        return Collections.unmodifiableMap(neighbours);
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Instrumentation.
+    // ------------------------------------------------------------------------------------------
+
+    /**
+     * Register an instrumentation, which is called after every encode, decode and decodeToRectangle
+     * operation. Only one instrumentation can be registered at a time. If no instrumentation is
+     * registered (the default), the operations are not measured at all.
+     *
+     * @param instrumentation Instrumentation, see {@link MapcodeInstrumentation}, or null to remove it.
+     */
+    public static void setInstrumentation(@Nullable final MapcodeInstrumentation instrumentation) {
+        MapcodeCodec.instrumentation = instrumentation;
+    }
+
+    /**
+     * Get the registered instrumentation.
+     *
+     * @return Instrumentation, or null if none is registered.
+     */
+    @Nullable
+    public static MapcodeInstrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    /**
+     * Encode a point, and report the encode to the instrumentation and as a JFR event, if enabled.
+     * All encodes which return a list of mapcodes use this method, so they are reported in the same way.
+     *
+     * @param latDeg                     Latitude.
+     * @param lonDeg                     Longitude.
+     * @param restrictToTerritory        Territory to encode in, or null.
+     * @param restrictToTerritoryNumbers Numbers of the territories to encode in, in ascending order, or null.
+     * @param nearMultipleBorders        Receives the near-border flags of the mapcodes, see
+     *                                   {@link Encoder#encodeWithBorderFlags}, or null if they are not needed.
+     *                                   Cannot be combined with restrictToTerritoryNumbers.
+     * @return Mapcodes.
+     */
+    @Nonnull
+    private static List<Mapcode> encodeWithInstrumentation(
+            final double latDeg,
+            final double lonDeg,
+            @Nullable final Territory restrictToTerritory,
+            @Nullable final int[] restrictToTerritoryNumbers,
+            @Nullable final BitSet nearMultipleBorders) {
+        final MapcodeInstrumentation currentInstrumentation = instrumentation;
+        final Object event = FlightRecorderEvents.beginEncode();
+        if ((currentInstrumentation == null) && (event == null)) {
+            return encodeWithStats(latDeg, lonDeg, restrictToTerritory, restrictToTerritoryNumbers,
+                    nearMultipleBorders, null);
+        }
+        final CodecStats stats = new CodecStats();
+        final long start = System.nanoTime();
+        List<Mapcode> results = null;
+        try {
+            results = encodeWithStats(latDeg, lonDeg, restrictToTerritory, restrictToTerritoryNumbers,
+                    nearMultipleBorders, stats);
+            return results;
+        } finally {
+            if (currentInstrumentation != null) {
+                final ErrorCategory error = (results == null) ? ErrorCategory.ILLEGAL_ARGUMENT :
+                        (results.isEmpty() ? ErrorCategory.NO_RESULT : null);
+                currentInstrumentation.operationCompleted(Operation.ENCODE, System.nanoTime() - start,
+                        stats.recordsScanned, error);
+            }
+            FlightRecorderEvents.commitEncode(event, latDeg, lonDeg, restrictToTerritory, results, stats.recordsScanned);
+        }
+    }
+
+    @Nonnull
+    private static List<Mapcode> encodeWithStats(
+            final double latDeg,
+            final double lonDeg,
+            @Nullable final Territory restrictToTerritory,
+            @Nullable final int[] restrictToTerritoryNumbers,
+            @Nullable final BitSet nearMultipleBorders,
+            @Nullable final CodecStats stats) {
+        if (nearMultipleBorders != null) {
+            assert restrictToTerritoryNumbers == null;
+            return Encoder.encodeWithBorderFlags(latDeg, lonDeg, restrictToTerritory, nearMultipleBorders, stats);
+        }
+        return (restrictToTerritoryNumbers == null) ?
+                Encoder.encode(latDeg, lonDeg, restrictToTerritory, stats) :
+                Encoder.encode(latDeg, lonDeg, restrictToTerritoryNumbers, stats);
+    }
+
+    @Nullable
+    private static Mapcode encodeToShortestWithInstrumentation(
+            final double latDeg,
+            final double lonDeg,
+            @Nullable final Territory restrictToTerritory) {
+        final MapcodeInstrumentation currentInstrumentation = instrumentation;
+        final Object event = FlightRecorderEvents.beginEncode();
+        if ((currentInstrumentation == null) && (event == null)) {
+            return Encoder.encodeToShortest(latDeg, lonDeg, restrictToTerritory, null);
+        }
+        final CodecStats stats = new CodecStats();
+        final long start = System.nanoTime();
+        boolean completed = false;
+        Mapcode result = null;
+        try {
+            result = Encoder.encodeToShortest(latDeg, lonDeg, restrictToTerritory, stats);
+            completed = true;
+            return result;
+        } finally {
+            if (currentInstrumentation != null) {
+                final ErrorCategory error = !completed ? ErrorCategory.ILLEGAL_ARGUMENT :
+                        ((result == null) ? ErrorCategory.NO_RESULT : null);
+                currentInstrumentation.operationCompleted(Operation.ENCODE, System.nanoTime() - start,
+                        stats.recordsScanned, error);
+            }
+            final List<Mapcode> results = !completed ? null :
+                    ((result == null) ? Collections.<Mapcode>emptyList() : Collections.singletonList(result));
+            FlightRecorderEvents.commitEncode(event, latDeg, lonDeg, restrictToTerritory, results, stats.recordsScanned);
+        }
+    }
+
+    @Nonnull
+    private static MapcodeZone decodeToMapcodeZoneWithInstrumentation(
+            @Nonnull final String mapcode,
+            @Nullable final Territory defaultTerritoryContext,
+            @Nonnull final Operation operation,
+            @Nullable final CodecStats resultStats)
+            throws UnknownMapcodeException, IllegalArgumentException {
+        final MapcodeInstrumentation currentInstrumentation = instrumentation;
+        final Object event = FlightRecorderEvents.beginDecode();
+        if ((currentInstrumentation == null) && (event == null)) {
+            return decodeToMapcodeZone(mapcode, defaultTerritoryContext, resultStats);
+        }
+        final CodecStats stats = (resultStats != null) ? resultStats : new CodecStats();
+        final long start = System.nanoTime();
+        ErrorCategory error = null;
+        try {
+            final MapcodeZone mapcodeZone = decodeToMapcodeZone(mapcode, defaultTerritoryContext, stats);
+            if (mapcodeZone.isEmpty()) {
+                error = ErrorCategory.EMPTY_ZONE;
+            }
+            return mapcodeZone;
+        } catch (final UnknownPrecisionFormatException e) {
+            error = ErrorCategory.UNKNOWN_PRECISION_FORMAT;
+            throw e;
+        } catch (final IllegalArgumentException e) {
+            error = ErrorCategory.ILLEGAL_ARGUMENT;
+            throw e;
+        } catch (final UnknownMapcodeException e) {
+            error = (stats.error != null) ? stats.error : ErrorCategory.UNKNOWN_MAPCODE;
+            throw e;
+        } finally {
+            if (currentInstrumentation != null) {
+                currentInstrumentation.operationCompleted(operation, System.nanoTime() - start,
+                        stats.recordsScanned, error);
             }
+            FlightRecorderEvents.commitDecode(event, operation, mapcode, stats, error);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Private methods.
+    // ------------------------------------------------------------------------------------------
+
+    @Nonnull
+    private static MapcodeZone decodeNeighbourZone(@Nonnull final Mapcode mapcode,
+                                                   final int precision,
+                                                   @Nonnull final CodecStats stats)
+            throws UnknownMapcodeException {
+        final MapcodeZone mapcodeZone = Decoder.decodeToMapcodeZone(mapcode.getCode(precision), mapcode.getTerritory(), stats);
+        if (mapcodeZone.isEmpty() || (stats.territoryRecord < 0)) {
+            throw new UnknownMapcodeException("Unknown mapcode, mapcode=" + mapcode);
+        }
+        return mapcodeZone;
+    }
+
+    @Nonnull
+    private static Mapcode getNeighbour(@Nonnull final Territory territory,
+                                        @Nonnull final MapcodeZone mapcodeZone,
+                                        @Nonnull final CodecStats stats,
+                                        @Nonnull final Direction direction,
+                                        final int precision,
+                                        @Nonnull final char[] buffer) {
+        assert stats.territory != null;
+
+        // Use the first point outside the zone (the North and East borders of a zone are exclusive).
+        final double latFraction = getNeighbourFraction(direction.getLatStep(),
+                mapcodeZone.getLatFractionMin(), mapcodeZone.getLatFractionMax());
+        final double lonFraction = getNeighbourFraction(direction.getLonStep(),
+                mapcodeZone.getLonFractionMin(), mapcodeZone.getLonFractionMax());
+        final Point point = Point.fromLatLonFractions(latFraction, lonFraction);
+
+        // Try the record of the mapcode first. Fall back to the shortest mapcode if the point is not in that record.
+        final String code = Encoder.encodeInDecodedRecord(point, territory, stats.territory, stats.territoryRecord, buffer);
+        if (!code.isEmpty()) {
+            final int length = (precision == 0) ? (code.length() - 9) : ((code.length() - 8) + precision);
+            return Mapcode.fromCode(code.substring(0, length), territory);
+        }
+        Mapcode shortest = Encoder.encodeToShortest(point.getLatDeg(), point.getLonDeg(), territory, null);
+        if (shortest == null) {
+            shortest = Encoder.encodeToShortest(point.getLatDeg(), point.getLonDeg(), null, null);
+            assert shortest != null;
+        }
+        return Mapcode.fromCode(shortest.getCode(precision), shortest.getTerritory());
+    }
+
+    private static double getNeighbourFraction(final int step, final double fractionMin, final double fractionMax) {
+        if (step > 0) {
+            return fractionMax;
+        } else if (step < 0) {
+            return fractionMin - 1.0;
+        } else {
+            return Math.floor((fractionMin + fractionMax) / 2.0);
         }
-        return false;
     }
 
     @SuppressWarnings("OverlyBroadThrowsClause")
     @Nonnull
-    private static MapcodeZone decodeToMapcodeZone(@Nonnull final String mapcode, @Nullable final Territory defaultTerritoryContext)
+    private static MapcodeZone decodeToMapcodeZone(
+            @Nonnull final String mapcode,
+            @Nullable final Territory defaultTerritoryContext,
+            @Nullable final CodecStats stats)
             throws UnknownMapcodeException, IllegalArgumentException {
         checkNonnull("mapcode", mapcode);
         String mapcodeClean = Mapcode.convertStringToPlainAscii(mapcode.trim()).toUpperCase();
@@ -428,13 +912,20 @@ public final class MapcodeCodec {
         final Matcher matcherTerritory = Mapcode.PATTERN_TERRITORY.matcher(mapcodeClean);
         if (matcherTerritory.find()) {
 
-            // Use the territory code from the string.
-            final String territoryName = mapcodeClean.substring(matcherTerritory.start(), matcherTerritory.end()).trim();
-            try {
-                territory = Territory.fromString(territoryName);
-            } catch (final UnknownTerritoryException ignored) {
-                throw new UnknownMapcodeException("Wrong territory code: " + territoryName);
+            // Use the territory code from the string (the substring is only created if it's not found directly).
+            Territory found = Territory.fromString(mapcodeClean, matcherTerritory.start(), matcherTerritory.end(), null);
+            if (found == null) {
+                final String territoryName = mapcodeClean.substring(matcherTerritory.start(), matcherTerritory.end()).trim();
+                try {
+                    found = Territory.fromString(territoryName);
+                } catch (final UnknownTerritoryException ignored) {
+                    if (stats != null) {
+                        stats.error = ErrorCategory.UNKNOWN_TERRITORY;
+                    }
+                    throw new UnknownMapcodeException("Wrong territory code: " + territoryName);
+                }
             }
+            territory = found;
 
             // Cut off the territory part.
             mapcodeClean = mapcodeClean.substring(matcherTerritory.end()).trim();
@@ -446,6 +937,6 @@ public final class MapcodeCodec {
 
         // Throws an exception if the format is incorrect.
         getPrecisionFormat(mapcodeClean);
-        return Decoder.decodeToMapcodeZone(mapcodeClean, territory);
+        return Decoder.decodeToMapcodeZone(mapcodeClean, territory, stats);
     }
 }
@@ -0,0 +1,411 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import javax.annotation.Nonnull;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static com.mapcode.Common.NC;
+import static com.mapcode.Common.X_SIDE;
+import static com.mapcode.Common.Y_SIDE;
+import static com.mapcode.Common.xDivider;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class enumerates the mapcodes (with precision 0) of all points in an area, for every territory
+ * which covers the area.
+ *
+ * All points in a cell of the grid of a territory record have the same mapcode in that record. So, rather
+ * than encoding many points, the enumerator walks the records of a territory that overlap the area, splits
+ * the overlap into the cells of the record (for grid, nameless and autoheader records alike), and encodes a
+ * single point of every cell in that record only. Only cells which overlap the area are visited and the
+ * mapcodes are created one at a time, when they are needed.
+ *
+ * The records are walked like the encoder does: the last record of a subdivision may refer to the records of
+ * its parent territory, and a restricted record is only used if an earlier record produces a mapcode for the
+ * point. A mapcode is returned only once per territory.
+ */
+@SuppressWarnings("MagicNumber")
+final class MapcodeEnumerator implements Iterator<MapcodeWithRectangle> {
+
+    // Get direct access to data model singleton.
+    private static final DataModel DATA_MODEL = DataModel.getInstance();
+
+    // Offsets to apply to a longitude range to find its overlap with another one, which may be wrapped.
+    private static final int[] LON_MICRO_DEG_OFFSETS = {0, -Point.MICRO_DEG_360, Point.MICRO_DEG_360};
+
+    // Fractions per microdegree latitude and per quarter microdegree longitude, halved to get a center.
+    private static final double HALF_FRACTIONS = Point.MAX_PRECISION_FACTOR / 2.0;
+
+    // Area to enumerate, in microdegrees. The North and East borders are exclusive. The East border
+    // is beyond 180 degrees if the area crosses the 180 degrees meridian.
+    private final int latMicroDegMin;
+    private final int latMicroDegMax;
+    private final int lonMicroDegMin;
+    private final int lonMicroDegMax;
+
+    // Territories which overlap the area, in ascending order.
+    @Nonnull
+    private final int[] territoryNumbers;
+    private final int nrTerritories;
+    private int territoryIndex = -1;
+
+    // Records of the current territory still to walk: its own records, followed by the records of its parent
+    // territory if its last record refers to those (parentTerritoryNumber >= 0).
+    private Territory territory = null;
+    private int territoryRecord;
+    private int uptoTerritoryRecord;
+    private int parentTerritoryNumber;
+    private boolean inParentTerritory;
+
+    // Cells of the current record overlapping the area: longitudes in quarter microdegrees, latitudes in microdegrees.
+    @Nonnull
+    private final Intervals lonCells = new Intervals();
+    @Nonnull
+    private final Intervals latCells = new Intervals();
+    private int lonCell;
+    private int latCell;
+
+    // First record of the territory the current record belongs to.
+    private int firstRecordOfRecordTerritory;
+
+    // Ranges of longitudes, reused while intersecting boundaries.
+    @Nonnull
+    private Intervals lonRanges = new Intervals();
+    @Nonnull
+    private Intervals lonRangesSwap = new Intervals();
+
+    // Mapcodes found so far in the current territory.
+    @Nonnull
+    private final Set<String> codes = new HashSet<String>();
+
+    @Nonnull
+    private final char[] buffer = new char[Encoder.MAX_MAPCODE_LENGTH];
+
+    private MapcodeWithRectangle next = null;
+
+    /**
+     * Create an enumerator for an area.
+     *
+     * @param southWest           South/West corner of the area, inclusive.
+     * @param northEast           North/East corner of the area, exclusive. If its longitude is smaller than the
+     *                            longitude of southWest, the area crosses the 180 degrees meridian.
+     * @param restrictToTerritory Territory to enumerate mapcodes for, or null for all territories.
+     */
+    MapcodeEnumerator(@Nonnull final Point southWest, @Nonnull final Point northEast, final Territory restrictToTerritory) {
+        // The North and East borders are rounded up to whole microdegrees.
+        final int northEastLonMicroDeg = northEast.getLonMicroDeg() + ((northEast.getLonFraction() > 0) ? 1 : 0);
+        latMicroDegMin = southWest.getLatMicroDeg();
+        latMicroDegMax = northEast.getLatMicroDeg() + ((northEast.getLatFraction() > 0) ? 1 : 0);
+        lonMicroDegMin = southWest.getLonMicroDeg();
+        lonMicroDegMax = (northEastLonMicroDeg < lonMicroDegMin) ?
+                (northEastLonMicroDeg + Point.MICRO_DEG_360) : northEastLonMicroDeg;
+
+        // Only territories whose boundary overlaps the area can have mapcodes in it.
+        final BoundaryLanes territoryBoundaries = DATA_MODEL.getTerritoryBoundaries();
+        final int firstTerritoryNumber = (restrictToTerritory != null) ? restrictToTerritory.getNumber() : 0;
+        final int lastTerritoryNumber = (restrictToTerritory != null) ? restrictToTerritory.getNumber() : Territory.AAA.getNumber();
+        territoryNumbers = new int[(lastTerritoryNumber - firstTerritoryNumber) + 1];
+        int nrFound = 0;
+        for (int territoryNumber = firstTerritoryNumber; territoryNumber <= lastTerritoryNumber; territoryNumber++) {
+            if ((territoryBoundaries.latMicroDegMin[territoryNumber] < latMicroDegMax) &&
+                    (latMicroDegMin < territoryBoundaries.latMicroDegMax[territoryNumber]) &&
+                    overlapsLon(territoryBoundaries.lonMicroDegMin[territoryNumber],
+                            territoryBoundaries.lonMicroDegMax[territoryNumber], lonMicroDegMin, lonMicroDegMax)) {
+                territoryNumbers[nrFound] = territoryNumber;
+                ++nrFound;
+            }
+        }
+        nrTerritories = nrFound;
+        next = findNext();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Nonnull
+    @Override
+    public MapcodeWithRectangle next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        final MapcodeWithRectangle result = next;
+        next = findNext();
+        return result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private MapcodeWithRectangle findNext() {
+        while (true) {
+
+            // Encode the center of the next cell of the current record.
+            if (latCell < latCells.size) {
+                final double latFraction = (latCells.min[latCell] + (double) latCells.max[latCell]) * HALF_FRACTIONS;
+                final double lonFraction = (lonCells.min[lonCell] + (double) lonCells.max[lonCell]) * HALF_FRACTIONS;
+                ++lonCell;
+                if (lonCell == lonCells.size) {
+                    lonCell = 0;
+                    ++latCell;
+                }
+                final MapcodeWithRectangle result = encodeInCell(Point.fromLatLonFractions(latFraction, lonFraction));
+                if (result != null) {
+                    return result;
+                }
+            } else if (!nextRecord() && !nextTerritory()) {
+                return null;
+            }
+        }
+    }
+
+    private MapcodeWithRectangle encodeInCell(@Nonnull final Point point) {
+        final String mapcode = Encoder.encodeInSingleRecord(point, territoryRecord, firstRecordOfRecordTerritory, buffer);
+        if (mapcode.isEmpty()) {
+            return null;
+        }
+        final String code = mapcode.substring(0, mapcode.indexOf('-'));
+        if (!codes.add(code)) {
+            return null;
+        }
+        assert territory != null;
+        final MapcodeZone mapcodeZone;
+        try {
+            mapcodeZone = Decoder.decodeToMapcodeZone(code, territory);
+        } catch (final UnknownMapcodeException ignored) {
+            return null;
+        }
+        if (mapcodeZone.isEmpty()) {
+            return null;
+        }
+        return new MapcodeWithRectangle(Mapcode.fromCode(code, territory),
+                Rectangle.fromMapcodeZone(mapcodeZone));
+    }
+
+    private boolean nextTerritory() {
+        ++territoryIndex;
+        if (territoryIndex >= nrTerritories) {
+            return false;
+        }
+        final int territoryNumber = territoryNumbers[territoryIndex];
+        territory = Territory.fromNumber(territoryNumber);
+        codes.clear();
+
+        // The last record of a subdivision refers to the mapcodes of its parent territory (see the encoder).
+        final int lastRecord = DATA_MODEL.getDataLastRecord(territoryNumber);
+        territoryRecord = DATA_MODEL.getDataFirstRecord(territoryNumber) - 1;
+        uptoTerritoryRecord = lastRecord;
+        firstRecordOfRecordTerritory = DATA_MODEL.getDataFirstRecord(territoryNumber);
+        parentTerritoryNumber = -1;
+        inParentTerritory = false;
+        final Territory parentTerritory = territory.getParentTerritory();
+        if ((parentTerritory != null) && !Data.isNameless(lastRecord) &&
+                (Data.getTerritoryRecordType(lastRecord) <= Data.TERRITORY_RECORD_TYPE_PIPE)) {
+            parentTerritoryNumber = parentTerritory.getNumber();
+            --uptoTerritoryRecord;
+        }
+        return true;
+    }
+
+    private boolean nextRecord() {
+        if (territory == null) {
+            return false;
+        }
+        while (true) {
+            ++territoryRecord;
+            if (territoryRecord > uptoTerritoryRecord) {
+                if ((parentTerritoryNumber < 0) || inParentTerritory) {
+                    return false;
+                }
+                inParentTerritory = true;
+                territoryRecord = DATA_MODEL.getDataFirstRecord(parentTerritoryNumber);
+                uptoTerritoryRecord = DATA_MODEL.getDataLastRecord(parentTerritoryNumber);
+                firstRecordOfRecordTerritory = territoryRecord;
+            }
+            if (createCells()) {
+                return true;
+            }
+        }
+    }
+
+    // Create the cells of the current record which overlap the area, if any.
+    private boolean createCells() {
+        final int record = territoryRecord;
+        lonCell = 0;
+        latCell = 0;
+        lonCells.size = 0;
+        latCells.size = 0;
+        if (!Data.isNameless(record) && (Data.getTerritoryRecordType(record) <= Data.TERRITORY_RECORD_TYPE_PIPE) &&
+                (Data.getCodex(record) >= 54)) {
+            return false;
+        }
+
+        // Intersect the record with the area and the territory (and parent territory) boundaries.
+        final BoundaryLanes territoryBoundaries = DATA_MODEL.getTerritoryBoundaries();
+        final int minx = DATA_MODEL.getLonMicroDegMin(record);
+        final int miny = DATA_MODEL.getLatMicroDegMin(record);
+        final int maxx = DATA_MODEL.getLonMicroDegMax(record);
+        final int maxy = DATA_MODEL.getLatMicroDegMax(record);
+        final int territoryNumber = territory.getNumber();
+        int latMin = Math.max(Math.max(miny, latMicroDegMin), territoryBoundaries.latMicroDegMin[territoryNumber]);
+        int latMax = Math.min(Math.min(maxy, latMicroDegMax), territoryBoundaries.latMicroDegMax[territoryNumber]);
+        lonRanges.size = 0;
+        lonRanges.add(minx, maxx);
+        intersectLon(lonMicroDegMin, lonMicroDegMax);
+        intersectLon(territoryBoundaries.lonMicroDegMin[territoryNumber], territoryBoundaries.lonMicroDegMax[territoryNumber]);
+        if (inParentTerritory) {
+            latMin = Math.max(latMin, territoryBoundaries.latMicroDegMin[parentTerritoryNumber]);
+            latMax = Math.min(latMax, territoryBoundaries.latMicroDegMax[parentTerritoryNumber]);
+            intersectLon(territoryBoundaries.lonMicroDegMin[parentTerritoryNumber],
+                    territoryBoundaries.lonMicroDegMax[parentTerritoryNumber]);
+        }
+        if ((latMin >= latMax) || (lonRanges.size == 0)) {
+            return false;
+        }
+
+        // Split the overlap into cells. Longitudes are in quarter microdegrees, as nameless records use those.
+        if (Data.isNameless(record)) {
+            final int dividerx4 = xDivider(miny, maxy);
+            for (int i = 0; i < lonRanges.size; i++) {
+                addCells(lonCells, lonRanges.min[i] * 4, lonRanges.max[i] * 4, minx * 4, dividerx4);
+            }
+            addCells(latCells, latMin, latMax, maxy, 90);
+
+        } else if (Data.getTerritoryRecordType(record) > Data.TERRITORY_RECORD_TYPE_PIPE) {
+            final int xdiv = xDivider(miny, maxy);
+            int h = ((maxy - miny) + 89) / 90;
+            int w = ((((maxx - minx) * 4) + xdiv) - 1) / xdiv;
+            h = 176 * (((h + 176) - 1) / 176);
+            w = 168 * (((w + 168) - 1) / 168);
+            final int dividerx = (((maxx - minx) + w) - 1) / w;
+            final int dividery = (((maxy - miny) + h) - 1) / h;
+            for (int i = 0; i < lonRanges.size; i++) {
+                addCells(lonCells, lonRanges.min[i] * 4, lonRanges.max[i] * 4, minx * 4, dividerx * 4);
+            }
+            addCells(latCells, latMin, latMax, maxy, dividery);
+
+        } else {
+            int codexm = Data.getCodex(record);
+            if (codexm == 21) {
+                codexm = 22;
+            } else if (codexm == 14) {
+                codexm = 23;
+            }
+            final int prelen = codexm / 10;
+            final int postlen = codexm % 10;
+            final int divx;
+            int divy = DATA_MODEL.getSmartDiv(record);
+            if (divy == 1) {
+                divx = X_SIDE[prelen];
+                divy = Y_SIDE[prelen];
+            } else {
+                divx = NC[prelen] / divy;
+            }
+            final int ygridsize = (((maxy - miny) + divy) - 1) / divy;
+            final int xgridsize = (((maxx - minx) + divx) - 1) / divx;
+            final int dividery = ((ygridsize + Y_SIDE[postlen]) - 1) / Y_SIDE[postlen];
+            final int dividerx = ((xgridsize + X_SIDE[postlen]) - 1) / X_SIDE[postlen];
+            for (int i = 0; i < lonRanges.size; i++) {
+                addGridCells(lonCells, lonRanges.min[i] * 4, lonRanges.max[i] * 4, minx * 4, xgridsize * 4, dividerx * 4);
+            }
+            addGridCells(latCells, latMin, latMax, miny, ygridsize, dividery);
+        }
+        return (lonCells.size > 0) && (latCells.size > 0);
+    }
+
+    // Intersect the longitude ranges with a range, which may be wrapped.
+    private void intersectLon(final int lonMin, final int lonMax) {
+        final Intervals result = lonRangesSwap;
+        result.size = 0;
+        for (int i = 0; i < lonRanges.size; i++) {
+            for (final int offset : LON_MICRO_DEG_OFFSETS) {
+                final int min = Math.max(lonRanges.min[i], lonMin + offset);
+                final int max = Math.min(lonRanges.max[i], lonMax + offset);
+                if (min < max) {
+                    result.add(min, max);
+                }
+            }
+        }
+        lonRangesSwap = lonRanges;
+        lonRanges = result;
+    }
+
+    private static boolean overlapsLon(final int lonMin1, final int lonMax1, final int lonMin2, final int lonMax2) {
+        for (final int offset : LON_MICRO_DEG_OFFSETS) {
+            if ((lonMin1 < (lonMax2 + offset)) && ((lonMin2 + offset) < lonMax1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Add the parts of the cells of a grid with sub-cells within [min, max). The sub-cells restart at every cell.
+    private static void addGridCells(@Nonnull final Intervals cells, final int min, final int max,
+                                     final int origin, final int cellSize, final int subCellSize) {
+        for (int cellMin = firstCellMin(min, origin, cellSize); cellMin < max; cellMin += cellSize) {
+            addCells(cells, Math.max(min, cellMin), Math.min(max, cellMin + cellSize), cellMin, subCellSize);
+        }
+    }
+
+    // Add the parts of the cells of a grid within [min, max).
+    private static void addCells(@Nonnull final Intervals cells, final int min, final int max,
+                                 final int origin, final int cellSize) {
+        for (int cellMin = firstCellMin(min, origin, cellSize); cellMin < max; cellMin += cellSize) {
+            cells.add(Math.max(min, cellMin), Math.min(max, cellMin + cellSize));
+        }
+    }
+
+    // Return the start of the cell containing a value, rounding towards minus infinity.
+    private static int firstCellMin(final int value, final int origin, final int cellSize) {
+        final int offset = value - origin;
+        final int index = (offset >= 0) ? (offset / cellSize) : -(((cellSize - 1) - offset) / cellSize);
+        return origin + (index * cellSize);
+    }
+
+    /**
+     * Growable list of half-open intervals.
+     */
+    private static final class Intervals {
+        int[] min = new int[16];
+        int[] max = new int[16];
+        int size = 0;
+
+        void add(final int min, final int max) {
+            if (size == this.min.length) {
+                final int[] newMin = new int[size * 2];
+                final int[] newMax = new int[size * 2];
+                System.arraycopy(this.min, 0, newMin, 0, size);
+                System.arraycopy(this.max, 0, newMax, 0, size);
+                this.min = newMin;
+                this.max = newMax;
+            }
+            this.min[size] = min;
+            this.max[size] = max;
+            ++size;
+        }
+    }
+}
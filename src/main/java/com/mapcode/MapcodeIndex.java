@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.mapcode.CheckArgs.checkNonnull;
+
+/**
+ * This class defines an immutable index of mapcodes, which supports prefix queries, nearest-key lookups and
+ * range iteration. Mapcodes of nearby locations in the same territory often share a prefix, so the index can be
+ * used to group mapcodes by location.
+ *
+ * The mapcodes are sorted by territory and by their code with precision 8, which is the same order as their
+ * sort keys (see {@link Mapcode#getSortKey()}). Equal mapcodes (see {@link Mapcode#equals(Object)}) are stored
+ * only once. The mapcodes of a territory are stored consecutively, starting at territoryStart[number] and ending
+ * before territoryEnd[number], where number is the territory number. Territories are ordered by their international
+ * code, so the order does not depend on the version of the data model.
+ */
+public final class MapcodeIndex {
+
+    // Order of territories: by international code, like the sort keys.
+    private static final Comparator<Territory> TERRITORY_ORDER = new Comparator<Territory>() {
+        @Override
+        public int compare(@Nonnull final Territory o1, @Nonnull final Territory o2) {
+            return o1.toAlphaCode(Territory.AlphaCodeFormat.INTERNATIONAL).compareTo(
+                    o2.toAlphaCode(Territory.AlphaCodeFormat.INTERNATIONAL));
+        }
+    };
+
+    // Order of mapcodes in the index: by territory first, then by code with precision 8.
+    private static final Comparator<Mapcode> MAPCODE_ORDER = new Comparator<Mapcode>() {
+        @Override
+        public int compare(@Nonnull final Mapcode o1, @Nonnull final Mapcode o2) {
+            final int diff = (o1.getTerritory() == o2.getTerritory()) ? 0 :
+                    TERRITORY_ORDER.compare(o1.getTerritory(), o2.getTerritory());
+            return (diff != 0) ? diff : o1.getCodePrecision8().compareTo(o2.getCodePrecision8());
+        }
+    };
+
+    @Nonnull
+    private static final Territory[] TERRITORIES_IN_ORDER;
+
+    static {
+        TERRITORIES_IN_ORDER = Territory.values();
+        Arrays.sort(TERRITORIES_IN_ORDER, TERRITORY_ORDER);
+    }
+
+    @Nonnull
+    private final Mapcode[] mapcodes;
+    @Nonnull
+    private final String[] codes;               // Codes with precision 8, indexed like mapcodes.
+    @Nonnull
+    private final int[] territoryStart;         // Index of the first mapcode of a territory, by territory number.
+    @Nonnull
+    private final int[] territoryEnd;           // Index after the last mapcode of a territory, by territory number.
+
+    /**
+     * Create an index of mapcodes.
+     *
+     * @param mapcodes Mapcodes to index. Duplicates are ignored.
+     */
+    public MapcodeIndex(@Nonnull final Iterable<Mapcode> mapcodes) {
+        checkNonnull("mapcodes", mapcodes);
+        final List<Mapcode> sorted = new ArrayList<Mapcode>();
+        for (final Mapcode mapcode : mapcodes) {
+            checkNonnull("mapcode", mapcode);
+            sorted.add(mapcode);
+        }
+        Collections.sort(sorted, MAPCODE_ORDER);
+
+        // Remove duplicates, which are adjacent after sorting.
+        final List<Mapcode> unique = new ArrayList<Mapcode>(sorted.size());
+        for (final Mapcode mapcode : sorted) {
+            if (unique.isEmpty() || (MAPCODE_ORDER.compare(unique.get(unique.size() - 1), mapcode) != 0)) {
+                unique.add(mapcode);
+            }
+        }
+        this.mapcodes = unique.toArray(new Mapcode[unique.size()]);
+        this.codes = new String[this.mapcodes.length];
+        for (int i = 0; i < this.mapcodes.length; i++) {
+            this.codes[i] = this.mapcodes[i].getCodePrecision8();
+        }
+
+        // Territories without mapcodes have an empty range, at the position where they would be.
+        final int nrTerritories = Territory.getNrTerritories();
+        this.territoryStart = new int[nrTerritories];
+        this.territoryEnd = new int[nrTerritories];
+        int i = 0;
+        for (final Territory territory : TERRITORIES_IN_ORDER) {
+            final int number = territory.getNumber();
+            this.territoryStart[number] = i;
+            while ((i < this.mapcodes.length) && (this.mapcodes[i].getTerritory() == territory)) {
+                i++;
+            }
+            this.territoryEnd[number] = i;
+        }
+        assert i == this.mapcodes.length;
+    }
+
+    /**
+     * Return the number of mapcodes in the index.
+     *
+     * @return Number of (unique) mapcodes.
+     */
+    public int size() {
+        return mapcodes.length;
+    }
+
+    /**
+     * Return if a mapcode is in the index.
+     *
+     * @param mapcode Mapcode.
+     * @return True if the index contains a mapcode equal to the mapcode.
+     */
+    public boolean contains(@Nonnull final Mapcode mapcode) {
+        checkNonnull("mapcode", mapcode);
+        final int i = lowerBound(mapcode.getTerritory(), mapcode.getCodePrecision8());
+        return (i < territoryEnd[mapcode.getTerritory().getNumber()]) &&
+                codes[i].equals(mapcode.getCodePrecision8());
+    }
+
+    /**
+     * Return all mapcodes in the index, in index order.
+     *
+     * @return Mapcodes. The list cannot be modified.
+     */
+    @Nonnull
+    public List<Mapcode> getMapcodes() {
+        return subList(0, mapcodes.length);
+    }
+
+    /**
+     * Return the mapcodes of a territory, in index order.
+     *
+     * @param territory Territory.
+     * @return Mapcodes in the territory. The list cannot be modified.
+     */
+    @Nonnull
+    public List<Mapcode> getMapcodes(@Nonnull final Territory territory) {
+        checkNonnull("territory", territory);
+        final int number = territory.getNumber();
+        return subList(territoryStart[number], territoryEnd[number]);
+    }
+
+    /**
+     * Return the mapcodes of a territory whose code with precision 8 starts with a prefix. For example, the
+     * prefix "49.4V" returns all mapcodes in the zone of "49.4V" and the prefix "49.4V-K" returns all mapcodes
+     * in the zone of "49.4V-K". Note that the padding of codes with a lower precision counts as well (see
+     * {@link Mapcode#getCode(int)}).
+     *
+     * @param territory  Territory.
+     * @param codePrefix Prefix of the code, without territory, in any alphabet and in upper or lower case.
+     * @return Mapcodes with the prefix, in index order. The list cannot be modified.
+     */
+    @Nonnull
+    public List<Mapcode> getMapcodesWithPrefix(@Nonnull final Territory territory, @Nonnull final String codePrefix) {
+        checkNonnull("territory", territory);
+        checkNonnull("codePrefix", codePrefix);
+        final String prefix = Mapcode.convertStringToPlainAscii(codePrefix.trim()).toUpperCase();
+        final int from = lowerBound(territory, prefix);
+        final int upto = territoryEnd[territory.getNumber()];
+        int to = from;
+        while ((to < upto) && codes[to].startsWith(prefix)) {
+            to++;
+        }
+        return subList(from, to);
+    }
+
+    /**
+     * Return the mapcodes from a mapcode (inclusive) up to another mapcode (exclusive), in index order. The
+     * mapcodes do not need to be in the index themselves and may be in different territories.
+     *
+     * @param fromMapcode First mapcode of the range, inclusive.
+     * @param toMapcode   Last mapcode of the range, exclusive.
+     * @return Mapcodes in the range, empty if toMapcode is not after fromMapcode. The list cannot be modified.
+     */
+    @Nonnull
+    public List<Mapcode> getRange(@Nonnull final Mapcode fromMapcode, @Nonnull final Mapcode toMapcode) {
+        checkNonnull("fromMapcode", fromMapcode);
+        checkNonnull("toMapcode", toMapcode);
+        final int from = lowerBound(fromMapcode.getTerritory(), fromMapcode.getCodePrecision8());
+        final int to = lowerBound(toMapcode.getTerritory(), toMapcode.getCodePrecision8());
+        return subList(from, (to < from) ? from : to);
+    }
+
+    /**
+     * Return the mapcode in the index in the same territory as a mapcode, which shares the longest prefix
+     * (of the code with precision 8) with the mapcode. If more than one mapcode shares the longest prefix,
+     * the one closest to the mapcode in index order is returned, preferring the lower one.
+     *
+     * Note that mapcodes which share a prefix are in the same zone, but the nearest key is not
+     * necessarily the geographically nearest mapcode.
+     *
+     * @param mapcode Mapcode.
+     * @return Mapcode which shares the longest prefix with the mapcode, or null if the index does not contain
+     * mapcodes in the territory of the mapcode.
+     */
+    @Nullable
+    public Mapcode getNearest(@Nonnull final Mapcode mapcode) {
+        checkNonnull("mapcode", mapcode);
+        final Territory territory = mapcode.getTerritory();
+        final String code = mapcode.getCodePrecision8();
+        final int from = territoryStart[territory.getNumber()];
+        final int upto = territoryEnd[territory.getNumber()];
+        if (from == upto) {
+            return null;
+        }
+
+        // The longest common prefix is shared with the mapcode just before or just after the code.
+        final int i = lowerBound(territory, code);
+        if (i == from) {
+            return mapcodes[i];
+        }
+        if (i == upto) {
+            return mapcodes[i - 1];
+        }
+        return (commonPrefixLength(code, codes[i]) > commonPrefixLength(code, codes[i - 1])) ?
+                mapcodes[i] : mapcodes[i - 1];
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return "MapcodeIndex[size=" + mapcodes.length + ']';
+    }
+
+    /**
+     * Find the first mapcode of a territory with a code that is not less than a given code.
+     *
+     * @param territory Territory.
+     * @param code      Code (or prefix) to look for.
+     * @return Index of mapcode, or the index after the last mapcode of the territory if there is none.
+     */
+    private int lowerBound(@Nonnull final Territory territory, @Nonnull final String code) {
+        int low = territoryStart[territory.getNumber()];
+        int high = territoryEnd[territory.getNumber()];
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (codes[mid].compareTo(code) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int commonPrefixLength(@Nonnull final String code1, @Nonnull final String code2) {
+        final int length = Math.min(code1.length(), code2.length());
+        int i = 0;
+        while ((i < length) && (code1.charAt(i) == code2.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    @Nonnull
+    private List<Mapcode> subList(final int from, final int to) {
+        return Collections.unmodifiableList(Arrays.asList(mapcodes).subList(from, to));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * This interface allows applications to collect metrics for the operations of {@link MapcodeCodec},
+ * without adding a dependency on any metrics library. Register an implementation with
+ * {@link MapcodeCodec#setInstrumentation(MapcodeInstrumentation)}.
+ *
+ * By default, no instrumentation is registered and the codec does not measure anything. The
+ * library provides {@link HistogramInstrumentation}, which collects the metrics in-process.
+ *
+ * Implementations are called synchronously, from the thread executing the operation, and must
+ * be thread-safe and fast.
+ */
+public interface MapcodeInstrumentation {
+
+    /**
+     * Instrumented operations.
+     */
+    enum Operation {
+        ENCODE,                     // All encode methods.
+        DECODE,                     // All decode methods which return a point.
+        DECODE_TO_RECTANGLE         // All decodeToRectangle methods.
+    }
+
+    /**
+     * Reasons for an operation to fail.
+     */
+    enum ErrorCategory {
+        ILLEGAL_ARGUMENT,           // Invalid argument, such as a mapcode with incorrect syntax.
+        UNKNOWN_PRECISION_FORMAT,   // Incorrect precision extension of a mapcode.
+        UNKNOWN_TERRITORY,          // Unknown territory code in a mapcode.
+        UNKNOWN_MAPCODE,            // Mapcode with correct syntax which does not exist.
+        EMPTY_ZONE,                 // Mapcode decoded to an empty zone (the decoder found no matching record).
+        NO_RESULT                   // No mapcode exists for the point within the requested territory.
+    }
+
+    /**
+     * Called after every operation of the codec, including failed operations.
+     *
+     * @param operation      Operation.
+     * @param durationNanos  Duration of the operation, in nanoseconds.
+     * @param recordsScanned Number of territory records checked by the operation.
+     * @param error          Reason the operation failed, or null if it succeeded.
+     */
+    void operationCompleted(
+            @Nonnull Operation operation,
+            long durationNanos,
+            int recordsScanned,
+            @Nullable ErrorCategory error);
+}
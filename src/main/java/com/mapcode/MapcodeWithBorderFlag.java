@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * This class defines a mapcode encoding result, together with a flag which tells if the encoded
+ * point is near multiple borders of the territory of the mapcode. If so, decoding the mapcode and
+ * encoding the result may not produce the same mapcode again.
+ *
+ * Objects of this class are returned by {@link MapcodeCodec#encodeWithBorderFlags(double, double)}.
+ */
+public final class MapcodeWithBorderFlag {
+
+    @Nonnull
+    private final Mapcode mapcode;
+    private final boolean nearMultipleBorders;
+
+    MapcodeWithBorderFlag(@Nonnull final Mapcode mapcode, final boolean nearMultipleBorders) {
+        this.mapcode = mapcode;
+        this.nearMultipleBorders = nearMultipleBorders;
+    }
+
+    /**
+     * Get the mapcode.
+     *
+     * @return Mapcode.
+     */
+    @Nonnull
+    public Mapcode getMapcode() {
+        return mapcode;
+    }
+
+    /**
+     * Return if the encoded point is near multiple borders of the territory of the mapcode. This is the same as
+     * {@link MapcodeCodec#isNearMultipleBorders(Point, Territory)} for the encoded point and the territory.
+     *
+     * @return True if the point is near multiple borders (and thus encode(decode(M)) may not produce M).
+     */
+    public boolean isNearMultipleBorders() {
+        return nearMultipleBorders;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return mapcode + (nearMultipleBorders ? " (near multiple borders)" : "");
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{mapcode, nearMultipleBorders});
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MapcodeWithBorderFlag)) {
+            return false;
+        }
+        final MapcodeWithBorderFlag that = (MapcodeWithBorderFlag) obj;
+        return (this.nearMultipleBorders == that.nearMultipleBorders) &&
+                this.mapcode.equals(that.mapcode);
+    }
+}
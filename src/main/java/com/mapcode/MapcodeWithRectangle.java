@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * This class defines a mapcode, together with the rectangle of the mapcode zone: the area in which
+ * all points have this mapcode (with precision 0).
+ *
+ * Objects of this class are returned by {@link MapcodeCodec#encodeRectangle(Point, Point)}.
+ */
+public final class MapcodeWithRectangle {
+
+    @Nonnull
+    private final Mapcode mapcode;
+    @Nonnull
+    private final Rectangle rectangle;
+
+    MapcodeWithRectangle(@Nonnull final Mapcode mapcode, @Nonnull final Rectangle rectangle) {
+        this.mapcode = mapcode;
+        this.rectangle = rectangle;
+    }
+
+    /**
+     * Get the mapcode.
+     *
+     * @return Mapcode, with precision 0.
+     */
+    @Nonnull
+    public Mapcode getMapcode() {
+        return mapcode;
+    }
+
+    /**
+     * Get the zone of the mapcode, as returned by {@link MapcodeCodec#decodeToRectangle(String, Territory)}.
+     *
+     * @return Rectangle of the mapcode zone. South/West borders are inclusive, North/East borders exclusive.
+     */
+    @Nonnull
+    public Rectangle getRectangle() {
+        return rectangle;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return mapcode + " " + rectangle;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{mapcode, rectangle});
+    }
+
+    @Override
+    public boolean equals(@Nullable final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MapcodeWithRectangle)) {
+            return false;
+        }
+        final MapcodeWithRectangle that = (MapcodeWithRectangle) obj;
+        return this.mapcode.equals(that.mapcode) &&
+                this.rectangle.equals(that.rectangle);
+    }
+}
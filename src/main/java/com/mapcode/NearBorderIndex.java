@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class stores the border bands of all territory records, to check if a point is near multiple
+ * territory borders.
+ *
+ * The border band of a record is the area just outside its boundary: within 60 microdegrees latitude
+ * and the record's longitude divider / 4, but not within the boundary itself. The extended boundaries
+ * are stored as lanes, indexed by territory record, next to the record boundaries of the {@link DataModel},
+ * so checking a point is a single pass over two sets of arrays, without creating any objects. Restricted
+ * records have an empty extended boundary.
+ *
+ * To avoid scanning all records of a territory for every point, the latitude range of the extended boundaries
+ * of each territory is divided into bands of equal height. Every band holds the records whose extended boundary
+ * overlaps the band, so only the records of the band which contains the latitude of a point need to be checked.
+ * The bands of all territories are stored in two flat arrays: bandRecords holds the records of band b from
+ * bandRecords[bandStart[b]] up to bandRecords[bandStart[b + 1]] and the bands of territory t start at
+ * territoryFirstBand[t].
+ *
+ * The index is created when it is first needed, as it is only used by
+ * {@link MapcodeCodec#isNearMultipleBorders(Point, Territory)}.
+ */
+final class NearBorderIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(NearBorderIndex.class);
+
+    // Extension of a boundary, in microdegrees latitude.
+    private static final int LAT_MICRO_DEG_EXTENSION = 60;
+
+    private static final DataModel DATA_MODEL = DataModel.getInstance();
+
+    private static final NearBorderIndex INSTANCE = new NearBorderIndex();
+
+    // Number of records per latitude band (on average) and maximum number of bands per territory.
+    private static final int RECORDS_PER_BAND = 4;
+    private static final int MAX_BANDS_PER_TERRITORY = 64;
+
+    // Flag in the result of findContaining, set if the point is near multiple borders.
+    static final int NEAR_MULTIPLE_BORDERS = 1 << 30;
+
+    private final BoundaryLanes extendedBoundaries;
+
+    // Latitude bands of the territories, by territory number (see above).
+    private final int[] territoryLatMicroDegMin;
+    private final int[] territoryBandHeight;
+    private final int[] territoryFirstBand;
+    private final int[] territoryNrBands;
+    private final int[] bandStart;
+    private final int[] bandRecords;
+
+    private NearBorderIndex() {
+        final int nrTerritoryRecords = DATA_MODEL.getNrTerritoryRecords();
+        extendedBoundaries = new BoundaryLanes(nrTerritoryRecords);
+        for (int territoryRecord = 0; territoryRecord < nrTerritoryRecords; territoryRecord++) {
+
+            // Empty boundaries (lanes are initialized to 0) never contain a point.
+            if (!Data.isRestricted(territoryRecord)) {
+                final int latMicroDegMin = DATA_MODEL.getLatMicroDegMin(territoryRecord);
+                final int lonMicroDegMin = DATA_MODEL.getLonMicroDegMin(territoryRecord);
+                final int latMicroDegMax = DATA_MODEL.getLatMicroDegMax(territoryRecord);
+                final int lonMicroDegMax = DATA_MODEL.getLonMicroDegMax(territoryRecord);
+                final int xdiv8 = Common.xDivider(latMicroDegMin, latMicroDegMax) / 4;
+                extendedBoundaries.set(territoryRecord,
+                        latMicroDegMin - LAT_MICRO_DEG_EXTENSION, lonMicroDegMin - xdiv8,
+                        latMicroDegMax + LAT_MICRO_DEG_EXTENSION, lonMicroDegMax + xdiv8);
+            }
+        }
+
+        // Divide the extended boundaries of every territory in latitude bands.
+        final int nrTerritories = Territory.getNrTerritories();
+        territoryLatMicroDegMin = new int[nrTerritories];
+        territoryBandHeight = new int[nrTerritories];
+        territoryFirstBand = new int[nrTerritories];
+        territoryNrBands = new int[nrTerritories];
+        int nrBands = 0;
+        for (int territoryNumber = 0; territoryNumber < nrTerritories; territoryNumber++) {
+            final int fromTerritoryRecord = DATA_MODEL.getDataFirstRecord(territoryNumber);
+            final int uptoTerritoryRecord = DATA_MODEL.getDataLastRecord(territoryNumber);
+            int latMicroDegMin = Integer.MAX_VALUE;
+            int latMicroDegMax = Integer.MIN_VALUE;
+            for (int territoryRecord = fromTerritoryRecord; territoryRecord <= uptoTerritoryRecord; territoryRecord++) {
+                if (!Data.isRestricted(territoryRecord)) {
+                    latMicroDegMin = Math.min(latMicroDegMin, extendedBoundaries.latMicroDegMin[territoryRecord]);
+                    latMicroDegMax = Math.max(latMicroDegMax, extendedBoundaries.latMicroDegMax[territoryRecord]);
+                }
+            }
+            territoryFirstBand[territoryNumber] = nrBands;
+            if (latMicroDegMin < latMicroDegMax) {
+                final int nrRecords = (uptoTerritoryRecord - fromTerritoryRecord) + 1;
+                final int nrTerritoryBands = Math.max(1, Math.min(MAX_BANDS_PER_TERRITORY, nrRecords / RECORDS_PER_BAND));
+                territoryLatMicroDegMin[territoryNumber] = latMicroDegMin;
+                territoryBandHeight[territoryNumber] =
+                        ((latMicroDegMax - latMicroDegMin) + nrTerritoryBands - 1) / nrTerritoryBands;
+                territoryNrBands[territoryNumber] = nrTerritoryBands;
+                nrBands += nrTerritoryBands;
+            }
+        }
+
+        // Count the records per band first, then store them.
+        final int[] bandSize = new int[nrBands];
+        addRecordsToBands(bandSize, null);
+        bandStart = new int[nrBands + 1];
+        for (int band = 0; band < nrBands; band++) {
+            bandStart[band + 1] = bandStart[band] + bandSize[band];
+        }
+        bandRecords = new int[bandStart[nrBands]];
+        addRecordsToBands(new int[nrBands], bandRecords);
+        LOG.debug("NearBorderIndex: created border bands for {} territory records, {} latitude bands, {} entries",
+                nrTerritoryRecords, nrBands, bandRecords.length);
+    }
+
+    @Nonnull
+    static NearBorderIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Check if a point is near multiple borders of a territory, or of its parent territory.
+     *
+     * @param point     Point, must be defined.
+     * @param territory Territory, not {@link Territory#AAA}.
+     * @return True if the point lies in the border bands of more than one record of the territory,
+     * or of more than one record of its parent territory.
+     */
+    boolean isNearMultipleBorders(@Nonnull final Point point, @Nonnull final Territory territory) {
+        for (Territory current = territory; current != null; current = current.getParentTerritory()) {
+            if (isNearMultipleBordersOfTerritory(point, current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a point is near multiple borders of a territory, not including its parent territory.
+     *
+     * @param point     Point, must be defined.
+     * @param territory Territory, not {@link Territory#AAA}.
+     * @return True if the point lies in the border bands of more than one record of the territory.
+     */
+    boolean isNearMultipleBordersOfTerritory(@Nonnull final Point point, @Nonnull final Territory territory) {
+        assert point.isDefined();
+        final int latMicroDeg = point.getLatMicroDeg();
+        final int lonMicroDeg = point.getLonMicroDeg();
+        final BoundaryLanes recordBoundaries = DATA_MODEL.getRecordBoundaries();
+        final int territoryNumber = territory.getNumber();
+        final int latBand = latMicroDeg - territoryLatMicroDegMin[territoryNumber];
+        if ((latBand < 0) || (latBand >= (territoryBandHeight[territoryNumber] * territoryNrBands[territoryNumber]))) {
+            return false;
+        }
+        final int band = getBand(territoryNumber, latMicroDeg);
+
+        // The point is in the border band of a record if the extended boundary of the record contains
+        // the point, but the record itself does not. Only the records in the latitude band can contain it.
+        int nrFound = 0;
+        for (int i = bandStart[band]; i < bandStart[band + 1]; i++) {
+            final int territoryRecord = bandRecords[i];
+            if (extendedBoundaries.contains(territoryRecord, latMicroDeg, lonMicroDeg) &&
+                    !recordBoundaries.contains(territoryRecord, latMicroDeg, lonMicroDeg)) {
+                nrFound++;
+                if (nrFound > 1) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the records of a territory which contain a point, like {@link RecordScanner#findContaining}, and check
+     * if the point is near multiple borders of the territory, like {@link #isNearMultipleBordersOfTerritory}, in a
+     * single pass over the records. This allows the encoder to determine the border flag while it finds the
+     * records to encode a point in.
+     *
+     * @param fromTerritoryRecord First record of the territory, inclusive.
+     * @param uptoTerritoryRecord Last record of the territory, inclusive.
+     * @param latMicroDeg         Latitude of point, in microdegrees.
+     * @param lonMicroDeg         Longitude of point, in microdegrees, in range [-180, 180).
+     * @param result              Receives the records containing the point, in ascending order.
+     *                            Must be large enough to hold all records in the range.
+     * @return Number of records stored in result, or'ed with {@link #NEAR_MULTIPLE_BORDERS} if the point lies in
+     * the border bands of more than one record.
+     */
+    int findContaining(
+            final int fromTerritoryRecord,
+            final int uptoTerritoryRecord,
+            final int latMicroDeg,
+            final int lonMicroDeg,
+            @Nonnull final int[] result) {
+        final BoundaryLanes recordBoundaries = DATA_MODEL.getRecordBoundaries();
+        int count = 0;
+        int nrFound = 0;
+        for (int territoryRecord = fromTerritoryRecord; territoryRecord <= uptoTerritoryRecord; territoryRecord++) {
+            if (recordBoundaries.contains(territoryRecord, latMicroDeg, lonMicroDeg)) {
+                result[count] = territoryRecord;
+                count++;
+            } else if (extendedBoundaries.contains(territoryRecord, latMicroDeg, lonMicroDeg)) {
+                nrFound++;
+            }
+        }
+        return (nrFound > 1) ? (count | NEAR_MULTIPLE_BORDERS) : count;
+    }
+
+    /**
+     * Add all non-restricted records to the latitude bands which their extended boundary overlaps.
+     *
+     * @param bandSize    Number of records added to each band so far, updated.
+     * @param bandRecords Receives the records of the bands, or null to count the records only.
+     */
+    private void addRecordsToBands(@Nonnull final int[] bandSize, @Nullable final int[] bandRecords) {
+        final int nrTerritories = Territory.getNrTerritories();
+        for (int territoryNumber = 0; territoryNumber < nrTerritories; territoryNumber++) {
+            final int uptoTerritoryRecord = DATA_MODEL.getDataLastRecord(territoryNumber);
+            for (int territoryRecord = DATA_MODEL.getDataFirstRecord(territoryNumber);
+                 territoryRecord <= uptoTerritoryRecord; territoryRecord++) {
+                if (!Data.isRestricted(territoryRecord)) {
+                    final int fromBand = getBand(territoryNumber, extendedBoundaries.latMicroDegMin[territoryRecord]);
+                    final int uptoBand = getBand(territoryNumber, extendedBoundaries.latMicroDegMax[territoryRecord] - 1);
+                    for (int band = fromBand; band <= uptoBand; band++) {
+                        if (bandRecords != null) {
+                            bandRecords[bandStart[band] + bandSize[band]] = territoryRecord;
+                        }
+                        bandSize[band]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the latitude band of a territory which contains a latitude.
+     *
+     * @param territoryNumber Territory number.
+     * @param latMicroDeg     Latitude in microdegrees, within the extended boundaries of the territory.
+     * @return Index of band in bandStart.
+     */
+    private int getBand(final int territoryNumber, final int latMicroDeg) {
+        final int band = (latMicroDeg - territoryLatMicroDegMin[territoryNumber]) / territoryBandHeight[territoryNumber];
+        assert (0 <= band) && (band < territoryNrBands[territoryNumber]);
+        return territoryFirstBand[territoryNumber] + band;
+    }
+}
@@ -354,6 +354,42 @@ public final class Point {
         return p.wrap();
     }
 
+    /**
+     * Convert a latitude in fractions to degrees, exactly like {@link #getLatDeg()} of
+     * {@link #fromLatLonFractions(double, double)}, without creating a point.
+     *
+     * @param latFraction Latitude in fractions.
+     * @return Latitude in degrees, limited to [-90, 90].
+     */
+    static double latFractionToDeg(final double latFraction) {
+        int latMicroDeg = (int) Math.floor(latFraction / LAT_MICRODEG_TO_FRACTIONS_FACTOR);
+        int latFractionOnlyDeg = (int) (latFraction - (LAT_MICRODEG_TO_FRACTIONS_FACTOR * latMicroDeg));
+        if ((latMicroDeg < -MICRO_DEG_90) || (latMicroDeg > MICRO_DEG_90)) {
+            latMicroDeg = (latMicroDeg < 0) ? -MICRO_DEG_90 : MICRO_DEG_90;
+            latFractionOnlyDeg = 0;
+        }
+        return (latMicroDeg / MICRODEG_TO_DEG_FACTOR) + (latFractionOnlyDeg / LAT_TO_FRACTIONS_FACTOR);
+    }
+
+    /**
+     * Convert a longitude in fractions to degrees, exactly like {@link #getLonDeg()} of
+     * {@link #fromLatLonFractions(double, double)}, without creating a point.
+     *
+     * @param lonFraction Longitude in fractions.
+     * @return Longitude in degrees, wrapped to [-180, 180).
+     */
+    static double lonFractionToDeg(final double lonFraction) {
+        int lonMicroDeg = (int) Math.floor(lonFraction / LON_MICRODEG_TO_FRACTIONS_FACTOR);
+        final int lonFractionOnlyDeg = (int) (lonFraction - (LON_MICRODEG_TO_FRACTIONS_FACTOR * lonMicroDeg));
+        lonMicroDeg %= MICRO_DEG_360;
+        if (lonMicroDeg >= MICRO_DEG_180) {
+            lonMicroDeg -= MICRO_DEG_360;
+        } else if (lonMicroDeg < -MICRO_DEG_180) {
+            lonMicroDeg += MICRO_DEG_360;
+        }
+        return (lonMicroDeg / MICRODEG_TO_DEG_FACTOR) + (lonFractionOnlyDeg / LON_TO_FRACTIONS_FACTOR);
+    }
+
     static int degToMicroDeg(final double deg) {
         //noinspection NumericCastThatLosesPrecision
         return (int) Math.floor(deg * MICRODEG_TO_DEG_FACTOR);
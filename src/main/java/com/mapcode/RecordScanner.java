@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import javax.annotation.Nonnull;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class finds all boundaries that contain a point.
+ *
+ * This is the baseline (scalar) implementation. The Java 17 version in the multi-release JAR uses
+ * the Vector API if the module jdk.incubator.vector is available at runtime.
+ */
+final class RecordScanner {
+
+    private RecordScanner() {
+        // Prevent instantiation.
+    }
+
+    /**
+     * Return the name of the implementation, for logging purposes only.
+     *
+     * @return Implementation name.
+     */
+    @Nonnull
+    static String getImplementationName() {
+        return "scalar";
+    }
+
+    /**
+     * Find all boundaries in a range which contain a point. This produces the same results as calling
+     * {@link Boundary#containsPoint(Point)} for each of the boundaries.
+     *
+     * @param lanes       Boundaries.
+     * @param fromIndex   First boundary to check, inclusive.
+     * @param uptoIndex   Last boundary to check, inclusive.
+     * @param latMicroDeg Latitude of point, in microdegrees.
+     * @param lonMicroDeg Longitude of point, in microdegrees, in range [-180, 180).
+     * @param result      Receives the indexes of the boundaries containing the point, in ascending order.
+     *                    Must be large enough to hold all indexes in the range.
+     * @return Number of indexes stored in result.
+     */
+    static int findContaining(
+            @Nonnull final BoundaryLanes lanes,
+            final int fromIndex,
+            final int uptoIndex,
+            final int latMicroDeg,
+            final int lonMicroDeg,
+            @Nonnull final int[] result) {
+        final int[] latMin = lanes.latMicroDegMin;
+        final int[] latMax = lanes.latMicroDegMax;
+        int count = 0;
+        for (int i = fromIndex; i <= uptoIndex; i++) {
+            if ((latMin[i] <= latMicroDeg) && (latMicroDeg < latMax[i]) &&
+                    Intrinsics.containsLonMicroDeg(lonMicroDeg, lanes.lonMicroDegMin[i], lanes.lonMicroDegMax[i])) {
+                result[count] = i;
+                count++;
+            }
+        }
+        return count;
+    }
+}
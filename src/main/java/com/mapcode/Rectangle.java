@@ -33,6 +33,19 @@ public class Rectangle {
         this.northEast = northEast;
     }
 
+    /**
+     * Create a rectangle for a mapcode zone.
+     *
+     * @param mapcodeZone Mapcode zone, not empty.
+     * @return Rectangle. South/West borders are inclusive, North/East borders exclusive.
+     */
+    @Nonnull
+    static Rectangle fromMapcodeZone(@Nonnull final MapcodeZone mapcodeZone) {
+        final Point southWest = Point.fromLatLonFractions(mapcodeZone.getLatFractionMin(), mapcodeZone.getLonFractionMin());
+        final Point northEast = Point.fromLatLonFractions(mapcodeZone.getLatFractionMax(), mapcodeZone.getLonFractionMax());
+        return new Rectangle(southWest, northEast);
+    }
+
     @Nonnull
     public Point getSouthWest() {
         return southWest;
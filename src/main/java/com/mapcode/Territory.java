@@ -584,6 +584,13 @@ public enum Territory {
     private final String[] fullNameAliases;
     @Nonnull
     private final Alphabet[] alphabets;
+    @Nonnull
+    private final String internationalCode;     // Same as name(), with underscores replaced by dashes.
+
+    // Alpha codes in other formats or alphabets, indexed by getAlphaCodeIndex, are filled when first needed.
+    // The elements are immutable strings, so a lost update only means a code is created more than once.
+    @Nullable
+    private volatile String[] alphaCodes;
 
     /**
      * Return the numeric territory code for a territory. Package private, because territory numbers are no longer
@@ -655,10 +662,19 @@ public enum Territory {
      */
     @Nonnull
     static Territory fromNumber(final int number) throws UnknownTerritoryException {
-        if ((number < 0) || (number >= CODE_LIST.size())) {
+        if ((number < 0) || (number >= TERRITORIES_BY_NUMBER.length)) {
             throw new UnknownTerritoryException(number);
         }
-        return CODE_LIST.get(number);
+        return TERRITORIES_BY_NUMBER[number];
+    }
+
+    /**
+     * Return the number of territories, without creating a copy of all territories like {@link #values()}.
+     *
+     * @return Number of territories.
+     */
+    static int getNrTerritories() {
+        return TERRITORIES_BY_NUMBER.length;
     }
 
     /**
@@ -747,6 +763,35 @@ public enum Territory {
         }
     }
 
+    /**
+     * Return the numbers of the territories which belong to a country: the country itself, and all territories
+     * with a name that starts with the ISO 3166 2 character code and '-' (e.g. "MX-CMX" for "MX").
+     *
+     * @param countryISO2 ISO 3166 country code, 2 characters.
+     * @return Territory numbers, in ascending order.
+     * @throws IllegalArgumentException Thrown if the country code is not a valid ISO 3166 code, 2 characters.
+     */
+    @Nonnull
+    static int[] getTerritoryNumbersOfCountryISO2(@Nonnull final String countryISO2) {
+        final Territory country = fromCountryISO2(countryISO2);
+        final List<Territory> prefixed = PREFIX_MAP.get(countryISO2.toUpperCase());
+        if (prefixed == null) {
+            return new int[]{country.getNumber()};
+        }
+        final int[] territoryNumbers = new int[prefixed.size() + 1];
+        int count = 0;
+        for (final Territory territory : prefixed) {
+            if (territory != country) {
+                territoryNumbers[count] = territory.getNumber();
+                ++count;
+            }
+        }
+        territoryNumbers[count] = country.getNumber();
+        ++count;
+        Arrays.sort(territoryNumbers, 0, count);
+        return (count == territoryNumbers.length) ? territoryNumbers : Arrays.copyOf(territoryNumbers, count);
+    }
+
     /**
      * Return the ISO 3166 2 character country code for a ISO 3166 3 character code.
      *
@@ -847,7 +892,26 @@ public enum Territory {
     @Nonnull
     public String toAlphaCode(@Nonnull final AlphaCodeFormat format, @Nullable final Alphabet alphabet) {
         checkNonnull("format", format);
-        String result = name().replace('_', '-');
+        if ((format == AlphaCodeFormat.INTERNATIONAL) && (alphabet == null)) {
+            return internationalCode;
+        }
+        String[] codes = alphaCodes;
+        if (codes == null) {
+            codes = new String[NR_ALPHA_CODES];
+            alphaCodes = codes;
+        }
+        final int index = getAlphaCodeIndex(format, alphabet);
+        String result = codes[index];
+        if (result == null) {
+            result = createAlphaCode(format, alphabet);
+            codes[index] = result;
+        }
+        return result;
+    }
+
+    @Nonnull
+    private String createAlphaCode(@Nonnull final AlphaCodeFormat format, @Nullable final Alphabet alphabet) {
+        String result = internationalCode;
         if (format != AlphaCodeFormat.INTERNATIONAL) {
             final int index = name().lastIndexOf('_');
             if (index != -1) {
@@ -868,6 +932,10 @@ public enum Territory {
         return result;
     }
 
+    private static int getAlphaCodeIndex(@Nonnull final AlphaCodeFormat format, @Nullable final Alphabet alphabet) {
+        return (format.ordinal() * (Alphabet.getNrAlphabets() + 1)) + ((alphabet == null) ? 0 : (alphabet.getNumber() + 1));
+    }
+
     @Nonnull
     public String toAlphaCode(@Nonnull final AlphaCodeFormat format) {
         return toAlphaCode(format, null);
@@ -933,6 +1001,7 @@ public enum Territory {
         this.parentTerritory = parentTerritory;
         this.aliases = (aliases == null) ? new String[]{} : aliases;
         this.fullNameAliases = (fullNameAliases == null) ? new String[]{} : fullNameAliases;
+        this.internationalCode = name().replace('_', '-');
     }
 
     // Keep a mapping from ISO3 to ISO2 codes. This map is used to make sure valid ISO3 codes are being used.
@@ -943,11 +1012,17 @@ public enum Territory {
     @Nonnull
     private static final Set<String> COUNTRY_ISO3_CODES;
     @Nonnull
-    private static final List<Territory> CODE_LIST;
+    private static final Territory[] TERRITORIES_BY_NUMBER;
     @Nonnull
     private static final Map<String, List<Territory>> NAME_MAP;
     @Nonnull
     private static final List<Territory> PARENT_LIST;
+    @Nonnull
+    private static final Map<String, List<Territory>> PREFIX_MAP;
+    @Nonnull
+    private static final TerritoryNameIndex NAME_INDEX;
+
+    private static final int NR_ALPHA_CODES = AlphaCodeFormat.values().length * (Alphabet.getNrAlphabets() + 1);
 
     static {
         final String[] countries = Locale.getISOCountries();
@@ -971,19 +1046,21 @@ public enum Territory {
     // Static checking of the static data structures.
     static {
         final String errorPrefix = "Initializing error: ";
-        CODE_LIST = new ArrayList<Territory>();
+        final Territory[] territories = values();
+        TERRITORIES_BY_NUMBER = new Territory[territories.length];
         NAME_MAP = new HashMap<String, List<Territory>>();
         PARENT_LIST = new ArrayList<Territory>();
+        PREFIX_MAP = new HashMap<String, List<Territory>>();
         int min = Integer.MAX_VALUE;
         int max = Integer.MIN_VALUE;
         final Set<Integer> territoryNumbers = new HashSet<Integer>();
         final Set<String> namesSet = new HashSet<String>();
 
-        for (final Territory territory : values()) {
+        for (final Territory territory : territories) {
             final int territoryNumber = territory.getNumber();
 
             // Check if territory code is within range.
-            if ((territoryNumber < 0) || (territoryNumber >= values().length)) {
+            if ((territoryNumber < 0) || (territoryNumber >= territories.length)) {
                 throw new ExceptionInInitializerError(errorPrefix + "territory number out of range: " + territoryNumber);
 
             }
@@ -994,15 +1071,21 @@ public enum Territory {
             }
             territoryNumbers.add(territory.getNumber());
 
-            final int initialCodeListSize = CODE_LIST.size();
-            for (int i = initialCodeListSize; i <= territory.number; i++) {
-                CODE_LIST.add(null);
-            }
-            CODE_LIST.set(territory.number, territory);
+            TERRITORIES_BY_NUMBER[territory.number] = territory;
             if ((territory.parentTerritory != null) && !PARENT_LIST.contains(territory.parentTerritory)) {
                 PARENT_LIST.add(territory.parentTerritory);
             }
 
+            // Keep territories with a name like "MX-CMX" by their prefix.
+            final int separator = territory.toString().indexOf('-');
+            if (separator > 0) {
+                final String prefix = territory.toString().substring(0, separator);
+                if (!PREFIX_MAP.containsKey(prefix)) {
+                    PREFIX_MAP.put(prefix, new ArrayList<Territory>());
+                }
+                PREFIX_MAP.get(prefix).add(territory);
+            }
+
             // Check if territory name is unique.
             if (namesSet.contains(territory.toString())) {
                 throw new ExceptionInInitializerError(errorPrefix + "non-unique territory name: " + territory);
@@ -1037,14 +1120,78 @@ public enum Territory {
             max = Math.max(max, territory.number);
             assert territory.alphabets.length > 0;
         }
-        assert territoryNumbers.size() == values().length;
+        assert territoryNumbers.size() == territories.length;
 
         // Check that territory has at least one alphabet.
 
         // Check for missing codes; minimum code must be 0, maximum code must be last code of enum.
-        if (!((min == 0) && (max == (values().length - 1)))) {
+        if (!((min == 0) && (max == (territories.length - 1)))) {
             throw new ExceptionInInitializerError(errorPrefix + "incorrect min/max territory number: " + min + '/' + max);
         }
+
+        // Create the index for fast lookups of names, after all names have been added.
+        NAME_INDEX = new TerritoryNameIndex(NAME_MAP);
+    }
+
+    /**
+     * Get a territory from a name in a range of characters, like {@link #fromString(String)}, without
+     * creating any objects. This only finds plain ASCII names (see {@link Mapcode#convertStringToPlainAscii(String)}).
+     *
+     * @param chars           Characters.
+     * @param start           Start of name, inclusive.
+     * @param end             End of name, exclusive.
+     * @param parentTerritory Parent territory, or null.
+     * @return Territory, or null if the name is not found or is not plain ASCII.
+     */
+    @Nullable
+    static Territory fromString(@Nonnull final CharSequence chars,
+                                final int start,
+                                final int end,
+                                @Nullable final Territory parentTerritory) {
+
+        // Trim white space, like String.trim().
+        int from = start;
+        int upto = end;
+        while ((from < upto) && (chars.charAt(from) <= ' ')) {
+            ++from;
+        }
+        while ((from < upto) && (chars.charAt(upto - 1) <= ' ')) {
+            --upto;
+        }
+        if (!TerritoryNameIndex.isPlainAscii(chars, from, upto)) {
+            return null;
+        }
+
+        // Try as alpha code.
+        final Territory[] territories = NAME_INDEX.find(chars, from, upto);
+        if (territories != null) {
+            if (parentTerritory == null) {
+                return territories[0];
+            }
+            for (final Territory territory : territories) {
+                if (territory.getParentTerritory() == parentTerritory) {
+                    return territory;
+                }
+            }
+            return null;
+        }
+
+        // Check for a case such as "United States of America-IN".
+        int lastSeparator = upto - 1;
+        while ((lastSeparator >= from) && (chars.charAt(lastSeparator) != '-') &&
+                (chars.charAt(lastSeparator) != '_') && (chars.charAt(lastSeparator) != ' ')) {
+            --lastSeparator;
+        }
+        if (lastSeparator >= from) {
+            final Territory parent = fromString(chars, from, lastSeparator, parentTerritory);
+            if ((parent != null) && PARENT_TERRITORIES.contains(parent)) {
+                final Territory child = fromString(chars, lastSeparator + 1, upto, parentTerritory);
+                if ((child != null) && (child.parentTerritory == parent)) {
+                    return child;
+                }
+            }
+        }
+        return null;
     }
 
     /**
@@ -1059,6 +1206,12 @@ public enum Territory {
     private static Territory createFromString(@Nonnull final String alphaCode,
                                               @Nullable final Territory parentTerritory) throws UnknownTerritoryException {
 
+        // Most names are plain ASCII and can be found without converting them.
+        final Territory found = fromString(alphaCode, 0, alphaCode.length(), parentTerritory);
+        if (found != null) {
+            return found;
+        }
+
         // Replace '_' with '-', but leave spaces alone (may be part of the name).
         final String trimmed = Mapcode.convertStringToPlainAscii(
                 alphaCode.trim().replace('_', '-')).toUpperCase();
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class is a trie of all territory names (codes, aliases and full names, with their variants),
+ * which finds the territories for a name in a range of characters without creating any objects.
+ *
+ * The trie is stored in arrays: the edges of a node are stored consecutively, sorted by character,
+ * starting at edgeStart[node] and ending before edgeStart[node + 1]. The root is node 0.
+ *
+ * Names are matched as plain ASCII uppercase names, with '_' matching '-'. Names that contain other
+ * characters than ASCII 1..'z' must be converted with {@link Mapcode#convertStringToPlainAscii(String)}
+ * first, which is checked with {@link #isPlainAscii(CharSequence, int, int)}.
+ */
+final class TerritoryNameIndex {
+    private final int[] edgeStart;
+    private final char[] edgeChar;
+    private final int[] edgeTarget;
+    private final Territory[][] territories;
+
+    /**
+     * Create the index.
+     *
+     * @param names Names (uppercase, with '-' rather than '_') and their territories, in order of preference.
+     */
+    TerritoryNameIndex(@Nonnull final Map<String, List<Territory>> names) {
+
+        // Build a tree first.
+        final List<Node> nodes = new ArrayList<Node>();
+        nodes.add(new Node());
+        int nrEdges = 0;
+        for (final Map.Entry<String, List<Territory>> entry : names.entrySet()) {
+            Node node = nodes.get(0);
+            for (final char ch : entry.getKey().toCharArray()) {
+                Node child = node.children.get(ch);
+                if (child == null) {
+                    child = new Node();
+                    child.index = nodes.size();
+                    nodes.add(child);
+                    node.children.put(ch, child);
+                    ++nrEdges;
+                }
+                node = child;
+            }
+            node.territories = entry.getValue().toArray(new Territory[entry.getValue().size()]);
+        }
+
+        // Flatten the tree into arrays.
+        edgeStart = new int[nodes.size() + 1];
+        edgeChar = new char[nrEdges];
+        edgeTarget = new int[nrEdges];
+        territories = new Territory[nodes.size()][];
+        int edge = 0;
+        for (final Node node : nodes) {
+            edgeStart[node.index] = edge;
+            for (final Map.Entry<Character, Node> child : node.children.entrySet()) {
+                edgeChar[edge] = child.getKey();
+                edgeTarget[edge] = child.getValue().index;
+                ++edge;
+            }
+            territories[node.index] = node.territories;
+        }
+        edgeStart[nodes.size()] = edge;
+        assert edge == nrEdges;
+    }
+
+    /**
+     * Return the number of nodes in the trie, for logging purposes only.
+     *
+     * @return Number of nodes.
+     */
+    int size() {
+        return territories.length;
+    }
+
+    /**
+     * Check if a range of characters can be matched directly, without converting it to plain ASCII.
+     *
+     * @param chars Characters.
+     * @param start Start of range, inclusive.
+     * @param end   End of range, exclusive.
+     * @return True if all characters are ASCII 1..'z'.
+     */
+    static boolean isPlainAscii(@Nonnull final CharSequence chars, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            final char ch = chars.charAt(i);
+            if ((ch < 1) || (ch > 'z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the territories for a name. The name must be plain ASCII and is not trimmed.
+     *
+     * @param chars Characters.
+     * @param start Start of name, inclusive.
+     * @param end   End of name, exclusive.
+     * @return Territories in order of preference, or null if the name is unknown. Must not be modified.
+     */
+    @Nullable
+    Territory[] find(@Nonnull final CharSequence chars, final int start, final int end) {
+        int node = 0;
+        for (int i = start; i < end; i++) {
+            char ch = chars.charAt(i);
+            if ((ch >= 'a') && (ch <= 'z')) {
+                ch = (char) (ch - ('a' - 'A'));
+            } else if (ch == '_') {
+                ch = '-';
+            }
+            node = findEdge(node, ch);
+            if (node < 0) {
+                return null;
+            }
+        }
+        return territories[node];
+    }
+
+    private int findEdge(final int node, final char ch) {
+        int low = edgeStart[node];
+        int high = edgeStart[node + 1] - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final char midChar = edgeChar[mid];
+            if (midChar < ch) {
+                low = mid + 1;
+            } else if (midChar > ch) {
+                high = mid - 1;
+            } else {
+                return edgeTarget[mid];
+            }
+        }
+        return -1;
+    }
+
+    private static final class Node {
+        int index = 0;
+        final Map<Character, Node> children = new TreeMap<Character, Node>();
+        Territory[] territories = null;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode;
+
+import com.mapcode.MapcodeInstrumentation.ErrorCategory;
+import com.mapcode.MapcodeInstrumentation.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class emits Java Flight Recorder (JFR) events for encoding, decoding and loading the data model.
+ *
+ * This is the Java 17 implementation, which is stored in META-INF/versions/17 of the multi-release
+ * JAR. It emits the events of {@link JfrEvents} if the module jdk.jfr is available and the events
+ * are enabled in a recording, e.g. with "jcmd PID JFR.start settings=profile". The events are
+ * called "com.mapcode.Encode", "com.mapcode.Decode" and "com.mapcode.DataModelLoad".
+ */
+final class FlightRecorderEvents {
+    private static final Logger LOG = LoggerFactory.getLogger(FlightRecorderEvents.class);
+
+    private static final String JFR_MODULE = "jdk.jfr";
+
+    private static final boolean AVAILABLE = isJfrModuleAvailable();
+
+    private FlightRecorderEvents() {
+        // Prevent instantiation.
+    }
+
+    @Nonnull
+    static String getImplementationName() {
+        return AVAILABLE ? "jfr" : "none";
+    }
+
+    @Nullable
+    static Object beginEncode() {
+        return AVAILABLE ? JfrEvents.beginEncode() : null;
+    }
+
+    static void commitEncode(
+            @Nullable final Object event,
+            final double latDeg,
+            final double lonDeg,
+            @Nullable final Territory restrictToTerritory,
+            @Nullable final List<Mapcode> results,
+            final int recordsScanned) {
+        if (event != null) {
+            JfrEvents.commitEncode(event, latDeg, lonDeg, restrictToTerritory, results, recordsScanned);
+        }
+    }
+
+    @Nullable
+    static Object beginDecode() {
+        return AVAILABLE ? JfrEvents.beginDecode() : null;
+    }
+
+    static void commitDecode(
+            @Nullable final Object event,
+            @Nonnull final Operation operation,
+            @Nonnull final String mapcode,
+            @Nonnull final CodecStats stats,
+            @Nullable final ErrorCategory error) {
+        if (event != null) {
+            JfrEvents.commitDecode(event, operation, mapcode, stats, error);
+        }
+    }
+
+    @Nullable
+    static Object beginDataModelLoad() {
+        return AVAILABLE ? JfrEvents.beginDataModelLoad() : null;
+    }
+
+    static void commitDataModelLoad(
+            @Nullable final Object event,
+            @Nonnull final String fileName,
+            final int nrBytes,
+            final int nrTerritories,
+            final int nrTerritoryRecords) {
+        if (event != null) {
+            JfrEvents.commitDataModelLoad(event, fileName, nrBytes, nrTerritories, nrTerritoryRecords);
+        }
+    }
+
+    private static boolean isJfrModuleAvailable() {
+        if (ModuleLayer.boot().findModule(JFR_MODULE).isEmpty()) {
+            LOG.debug("FlightRecorderEvents: module {} not available, no events", JFR_MODULE);
+            return false;
+        }
+        try {
+            JfrEvents.register();
+            return true;
+        } catch (final LinkageError e) {
+            LOG.info("FlightRecorderEvents: module {} cannot be used, no events, exception={}", JFR_MODULE, e);
+            return false;
+        }
+    }
+}
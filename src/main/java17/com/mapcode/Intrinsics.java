@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import javax.annotation.Nonnull;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class contains the low-level primitives that have a faster implementation on modern JVMs.
+ *
+ * This is the Java 17 implementation, which is stored in META-INF/versions/17 of the multi-release
+ * JAR. It must produce identical results to the baseline implementation in src/main/java.
+ */
+@SuppressWarnings("MagicNumber")
+final class Intrinsics {
+
+    // Views on byte arrays, which compile to a single (unaligned) load on little-endian platforms.
+    private static final VarHandle SHORT_LE =
+            MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_LE =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private Intrinsics() {
+        // Prevent instantiation.
+    }
+
+    @Nonnull
+    static String getImplementationName() {
+        return "java17";
+    }
+
+    static int readUnsignedShortLE(@Nonnull final byte[] bytes, final int offset) {
+        return Short.toUnsignedInt((short) SHORT_LE.get(bytes, offset));
+    }
+
+    static int readIntLE(@Nonnull final byte[] bytes, final int offset) {
+        return (int) INT_LE.get(bytes, offset);
+    }
+
+    static boolean containsLonMicroDeg(final int lonMicroDeg, final int lonMicroDegMin, final int lonMicroDegMax) {
+
+        // A single unsigned compare checks both limits of [min, max); the width of a range is always < 2^31.
+        // Empty or inverted ranges (from shrinking a boundary) never contain a longitude.
+        final int width = lonMicroDegMax - lonMicroDegMin;
+        if (width <= 0) {
+            return false;
+        }
+        return (Integer.compareUnsigned(lonMicroDeg - lonMicroDegMin, width) < 0) ||
+                (Integer.compareUnsigned((lonMicroDeg + Point.MICRO_DEG_360) - lonMicroDegMin, width) < 0) ||
+                (Integer.compareUnsigned((lonMicroDeg - Point.MICRO_DEG_360) - lonMicroDegMin, width) < 0);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mapcode;
+
+import com.mapcode.MapcodeInstrumentation.ErrorCategory;
+import com.mapcode.MapcodeInstrumentation.Operation;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class defines the JFR events of the mapcode library. It must only be loaded if the module
+ * jdk.jfr is available, which is checked by {@link FlightRecorderEvents}.
+ */
+final class JfrEvents {
+    private static final String CATEGORY = "Mapcode";
+
+    @Name("com.mapcode.Encode")
+    @Label("Mapcode Encode")
+    @Description("Encode of a latitude/longitude to mapcodes")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class EncodeEvent extends Event {
+        @Label("Latitude")
+        double latDeg;
+
+        @Label("Longitude")
+        double lonDeg;
+
+        @Label("Restrict To Territory")
+        String restrictToTerritory;
+
+        @Label("Territory")
+        @Description("Territory of the first mapcode")
+        String territory;
+
+        @Label("Codex")
+        @Description("Codex of the first mapcode (length of the part before the dot * 10 + length after the dot)")
+        int codex;
+
+        @Label("Records Scanned")
+        int recordsScanned;
+
+        @Label("Result Count")
+        int resultCount;
+    }
+
+    @Name("com.mapcode.Decode")
+    @Label("Mapcode Decode")
+    @Description("Decode of a mapcode to a point or rectangle")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class DecodeEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Mapcode")
+        String mapcode;
+
+        @Label("Territory")
+        @Description("Territory used to decode the mapcode")
+        String territory;
+
+        @Label("Codex")
+        int codex;
+
+        @Label("Records Scanned")
+        int recordsScanned;
+
+        @Label("Result Count")
+        int resultCount;
+
+        @Label("Error")
+        String error;
+    }
+
+    @Name("com.mapcode.DataModelLoad")
+    @Label("Mapcode Data Model Load")
+    @Description("Load of the territory data of the mapcode library")
+    @Category(CATEGORY)
+    static final class DataModelLoadEvent extends Event {
+        @Label("File Name")
+        String fileName;
+
+        @Label("Bytes")
+        int nrBytes;
+
+        @Label("Territories")
+        int nrTerritories;
+
+        @Label("Territory Records")
+        int nrTerritoryRecords;
+    }
+
+    private static final EventType ENCODE_TYPE = EventType.getEventType(EncodeEvent.class);
+    private static final EventType DECODE_TYPE = EventType.getEventType(DecodeEvent.class);
+    private static final EventType DATA_MODEL_LOAD_TYPE = EventType.getEventType(DataModelLoadEvent.class);
+
+    private JfrEvents() {
+        // Prevent instantiation.
+    }
+
+    static void register() {
+        // Loading the class registers the event types.
+    }
+
+    @Nullable
+    static Object beginEncode() {
+        if (!ENCODE_TYPE.isEnabled()) {
+            return null;
+        }
+        final EncodeEvent event = new EncodeEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitEncode(
+            @Nonnull final Object event,
+            final double latDeg,
+            final double lonDeg,
+            @Nullable final Territory restrictToTerritory,
+            @Nullable final List<Mapcode> results,
+            final int recordsScanned) {
+        final EncodeEvent encodeEvent = (EncodeEvent) event;
+        encodeEvent.end();
+        if (encodeEvent.shouldCommit()) {
+            encodeEvent.latDeg = latDeg;
+            encodeEvent.lonDeg = lonDeg;
+            encodeEvent.restrictToTerritory = (restrictToTerritory == null) ? null : restrictToTerritory.toString();
+            encodeEvent.codex = -1;
+            if ((results != null) && !results.isEmpty()) {
+                final Mapcode first = results.get(0);
+                final String code = first.getCode();
+                final int positionOfDot = code.indexOf('.');
+                encodeEvent.territory = first.getTerritory().toString();
+                encodeEvent.codex = (positionOfDot * 10) + ((code.length() - 1) - positionOfDot);
+            }
+            encodeEvent.recordsScanned = recordsScanned;
+            encodeEvent.resultCount = (results == null) ? 0 : results.size();
+            encodeEvent.commit();
+        }
+    }
+
+    @Nullable
+    static Object beginDecode() {
+        if (!DECODE_TYPE.isEnabled()) {
+            return null;
+        }
+        final DecodeEvent event = new DecodeEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitDecode(
+            @Nonnull final Object event,
+            @Nonnull final Operation operation,
+            @Nonnull final String mapcode,
+            @Nonnull final CodecStats stats,
+            @Nullable final ErrorCategory error) {
+        final DecodeEvent decodeEvent = (DecodeEvent) event;
+        decodeEvent.end();
+        if (decodeEvent.shouldCommit()) {
+            decodeEvent.operation = operation.name();
+            decodeEvent.mapcode = mapcode;
+            decodeEvent.territory = (stats.territory == null) ? null : stats.territory.toString();
+            decodeEvent.codex = stats.codex;
+            decodeEvent.recordsScanned = stats.recordsScanned;
+            decodeEvent.resultCount = (error == null) ? 1 : 0;
+            decodeEvent.error = (error == null) ? null : error.name();
+            decodeEvent.commit();
+        }
+    }
+
+    @Nullable
+    static Object beginDataModelLoad() {
+        if (!DATA_MODEL_LOAD_TYPE.isEnabled()) {
+            return null;
+        }
+        final DataModelLoadEvent event = new DataModelLoadEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitDataModelLoad(
+            @Nonnull final Object event,
+            @Nonnull final String fileName,
+            final int nrBytes,
+            final int nrTerritories,
+            final int nrTerritoryRecords) {
+        final DataModelLoadEvent dataModelLoadEvent = (DataModelLoadEvent) event;
+        dataModelLoadEvent.end();
+        if (dataModelLoadEvent.shouldCommit()) {
+            dataModelLoadEvent.fileName = fileName;
+            dataModelLoadEvent.nrBytes = nrBytes;
+            dataModelLoadEvent.nrTerritories = nrTerritories;
+            dataModelLoadEvent.nrTerritoryRecords = nrTerritoryRecords;
+            dataModelLoadEvent.commit();
+        }
+    }
+}
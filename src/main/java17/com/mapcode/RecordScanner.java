@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class finds all boundaries that contain a point.
+ *
+ * This is the Java 17 implementation, which is stored in META-INF/versions/17 of the multi-release
+ * JAR. It uses {@link VectorRecordScanner} if the (incubating) module jdk.incubator.vector has been
+ * added to the JVM, using "--add-modules jdk.incubator.vector". Otherwise, it uses the scalar loop.
+ */
+final class RecordScanner {
+    private static final Logger LOG = LoggerFactory.getLogger(RecordScanner.class);
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    // Only use the Vector API if it is available and the range is large enough to fill a vector.
+    private static final boolean USE_VECTOR = isVectorModuleAvailable();
+    private static final int MIN_VECTOR_RANGE = USE_VECTOR ? VectorRecordScanner.getVectorLength() : Integer.MAX_VALUE;
+
+    private RecordScanner() {
+        // Prevent instantiation.
+    }
+
+    @Nonnull
+    static String getImplementationName() {
+        return USE_VECTOR ? ("vector" + MIN_VECTOR_RANGE) : "scalar";
+    }
+
+    static int findContaining(
+            @Nonnull final BoundaryLanes lanes,
+            final int fromIndex,
+            final int uptoIndex,
+            final int latMicroDeg,
+            final int lonMicroDeg,
+            @Nonnull final int[] result) {
+        if (((uptoIndex - fromIndex) + 1) >= MIN_VECTOR_RANGE) {
+            return VectorRecordScanner.findContaining(lanes, fromIndex, uptoIndex, latMicroDeg, lonMicroDeg, result);
+        }
+        return findContainingScalar(lanes, fromIndex, uptoIndex, latMicroDeg, lonMicroDeg, result, 0);
+    }
+
+    static int findContainingScalar(
+            @Nonnull final BoundaryLanes lanes,
+            final int fromIndex,
+            final int uptoIndex,
+            final int latMicroDeg,
+            final int lonMicroDeg,
+            @Nonnull final int[] result,
+            final int resultOffset) {
+        final int[] latMin = lanes.latMicroDegMin;
+        final int[] latMax = lanes.latMicroDegMax;
+        int count = resultOffset;
+        for (int i = fromIndex; i <= uptoIndex; i++) {
+            if ((latMin[i] <= latMicroDeg) && (latMicroDeg < latMax[i]) &&
+                    Intrinsics.containsLonMicroDeg(lonMicroDeg, lanes.lonMicroDegMin[i], lanes.lonMicroDegMax[i])) {
+                result[count] = i;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isVectorModuleAvailable() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            LOG.debug("RecordScanner: module {} not available, using scalar implementation", VECTOR_MODULE);
+            return false;
+        }
+        try {
+            VectorRecordScanner.getVectorLength();
+            LOG.info("RecordScanner: using module {}", VECTOR_MODULE);
+            return true;
+        } catch (final LinkageError e) {
+            LOG.info("RecordScanner: module {} cannot be used, using scalar implementation, exception={}", VECTOR_MODULE, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import javax.annotation.Nonnull;
+
+// ----------------------------------------------------------------------------------------------
+// Package private implementation class. For internal use within the mapcode implementation only.
+// ----------------------------------------------------------------------------------------------
+
+/**
+ * This class finds all boundaries that contain a point, using the Vector API. It checks as many
+ * boundaries at once as the preferred vector size of the platform allows (e.g. 8 for AVX2).
+ *
+ * This class must only be loaded if the module jdk.incubator.vector is available, which is
+ * checked by {@link RecordScanner}.
+ */
+final class VectorRecordScanner {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private VectorRecordScanner() {
+        // Prevent instantiation.
+    }
+
+    static int getVectorLength() {
+        return SPECIES.length();
+    }
+
+    static int findContaining(
+            @Nonnull final BoundaryLanes lanes,
+            final int fromIndex,
+            final int uptoIndex,
+            final int latMicroDeg,
+            final int lonMicroDeg,
+            @Nonnull final int[] result) {
+        final int length = SPECIES.length();
+        final int loopEnd = fromIndex + SPECIES.loopBound((uptoIndex - fromIndex) + 1);
+        final int lonPlus360 = lonMicroDeg + Point.MICRO_DEG_360;
+        final int lonMinus360 = lonMicroDeg - Point.MICRO_DEG_360;
+        int count = 0;
+        int i = fromIndex;
+        for (; i < loopEnd; i += length) {
+            final IntVector latMin = IntVector.fromArray(SPECIES, lanes.latMicroDegMin, i);
+            final IntVector latMax = IntVector.fromArray(SPECIES, lanes.latMicroDegMax, i);
+            final VectorMask<Integer> latMask = latMin.compare(VectorOperators.LE, latMicroDeg).
+                    and(latMax.compare(VectorOperators.GT, latMicroDeg));
+            if (latMask.anyTrue()) {
+
+                // Longitude boundaries can extend (slightly) outside the [-180,180) range.
+                final IntVector lonMin = IntVector.fromArray(SPECIES, lanes.lonMicroDegMin, i);
+                final IntVector lonMax = IntVector.fromArray(SPECIES, lanes.lonMicroDegMax, i);
+                final VectorMask<Integer> lonMask =
+                        containsLon(lonMin, lonMax, lonMicroDeg).
+                                or(containsLon(lonMin, lonMax, lonPlus360)).
+                                or(containsLon(lonMin, lonMax, lonMinus360));
+
+                long bits = latMask.and(lonMask).toLong();
+                while (bits != 0) {
+                    result[count] = i + Long.numberOfTrailingZeros(bits);
+                    count++;
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return RecordScanner.findContainingScalar(lanes, i, uptoIndex, latMicroDeg, lonMicroDeg, result, count);
+    }
+
+    @Nonnull
+    private static VectorMask<Integer> containsLon(
+            @Nonnull final IntVector lonMin,
+            @Nonnull final IntVector lonMax,
+            final int lonMicroDeg) {
+        return lonMin.compare(VectorOperators.LE, lonMicroDeg).and(lonMax.compare(VectorOperators.GT, lonMicroDeg));
+    }
+}
@@ -21,8 +21,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @SuppressWarnings({"OverlyBroadThrowsClause", "ProhibitedExceptionDeclared"})
 public class AlphabetTest {
@@ -86,6 +88,47 @@ public class AlphabetTest {
         }
     }
 
+    @Test
+    public void testFromNumber() {
+        assertEquals(Alphabet.values().length, Alphabet.getNrAlphabets());
+        for (final Alphabet alphabet : Alphabet.values()) {
+            assertEquals(alphabet, Alphabet.fromNumber(alphabet.getNumber()));
+        }
+    }
+
+    @Test
+    public void testGetCodeInAllAlphabets() throws Exception {
+        LOG.info("testGetCodeInAllAlphabets");
+        final String[] codes = {"49.4V", "26.53UK", "FR.B016", "000.EU", "PQ4PQ.6YZ9", "XX.XX", "VHXG.B1ZV"};
+        for (final String code : codes) {
+            for (final int precision : new int[]{0, 2, 8}) {
+                final Mapcode mapcode = new Mapcode(code, Territory.NLD);
+                final Map<Alphabet, String> all;
+                try {
+
+                    // Convert to a single alphabet first, so only part of the codes are remembered.
+                    mapcode.getCode(precision, Alphabet.GREEK);
+                    all = mapcode.getCodeInAllAlphabets(precision);
+                } catch (final IllegalArgumentException ignored) {
+
+                    // Codes which cannot be represented in one alphabet cannot be represented in all alphabets.
+                    assertTrue(code.contains("E") || code.contains("U"));
+                    continue;
+                }
+                assertEquals(Alphabet.values().length, all.size());
+                for (final Alphabet alphabet : Alphabet.values()) {
+                    final String expected = Mapcode.convertStringToAlphabet(mapcode.getCode(precision), alphabet);
+                    assertEquals(expected, all.get(alphabet));
+                    assertEquals(expected, mapcode.getCode(precision, alphabet));
+
+                    // Asking again gives the same result, including the remembered codes.
+                    assertEquals(expected, mapcode.getCode(precision, alphabet));
+                }
+                assertEquals(all, mapcode.getCodeInAllAlphabets(precision));
+            }
+        }
+    }
+
     @Test
     public void testConvertToAlphabet() throws Exception {
 
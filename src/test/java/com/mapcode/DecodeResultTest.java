@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@SuppressWarnings("MagicNumber")
+public class DecodeResultTest {
+    private static final Logger LOG = LoggerFactory.getLogger(DecodeResultTest.class);
+
+    @Test
+    public void testSameAsDecodeAndDecodeToRectangle() throws Exception {
+        LOG.info("testSameAsDecodeAndDecodeToRectangle");
+        final Random random = new Random(55443L);
+        final DecodeResult result = new DecodeResult();
+        int nrChecked = 0;
+        for (int i = 0; i < 500; i++) {
+            final Point point = Point.fromUniformlyDistributedRandomPoints(random);
+            for (final Mapcode mapcode : MapcodeCodec.encode(point)) {
+                for (int precision = 0; precision <= 8; precision++) {
+                    final String code = mapcode.getCodeWithTerritory(precision);
+                    MapcodeCodec.decodeToResult(code, null, result);
+                    final Point center = MapcodeCodec.decode(code);
+                    final Rectangle rectangle = MapcodeCodec.decodeToRectangle(code);
+                    assertEquals(code, center, result.getCenter());
+                    assertEquals(code, rectangle, result.getRectangle());
+                    assertEquals(code, center.getLatDeg(), result.getLatDeg(), 0.0);
+                    assertEquals(code, center.getLonDeg(), result.getLonDeg(), 0.0);
+                    assertEquals(code, rectangle.getSouthWest().getLatDeg(), result.getSouthLatDeg(), 0.0);
+                    assertEquals(code, rectangle.getSouthWest().getLonDeg(), result.getWestLonDeg(), 0.0);
+                    assertEquals(code, rectangle.getNorthEast().getLatDeg(), result.getNorthLatDeg(), 0.0);
+                    assertEquals(code, rectangle.getNorthEast().getLonDeg(), result.getEastLonDeg(), 0.0);
+                    assertEquals(code, precision, result.getPrecision());
+                    assertTrue(code, (result.getTerritory() == mapcode.getTerritory()) ||
+                            (result.getTerritory() == mapcode.getTerritory().getParentTerritory()));
+                    nrChecked++;
+                }
+            }
+        }
+        LOG.info("testSameAsDecodeAndDecodeToRectangle: {} mapcodes", nrChecked);
+    }
+
+    @Test
+    public void testTerritoryUsed() throws Exception {
+        LOG.info("testTerritoryUsed");
+        DecodeResult result = MapcodeCodec.decodeToResult("NLD 49.4V-K2");
+        assertEquals(Territory.NLD, result.getTerritory());
+        assertEquals(2, result.getPrecision());
+
+        result = MapcodeCodec.decodeToResult("49.4V", Territory.NLD);
+        assertEquals(Territory.NLD, result.getTerritory());
+        assertEquals(0, result.getPrecision());
+
+        // International mapcodes are decoded as such, in any territory.
+        final Mapcode international = MapcodeCodec.encodeToInternational(52.376514, 4.908543);
+        result = MapcodeCodec.decodeToResult(international.getCode(), Territory.NLD);
+        assertEquals(Territory.AAA, result.getTerritory());
+        assertEquals(MapcodeCodec.decode(international.getCode()), result.getCenter());
+
+        // Long codes in a state are decoded in the country.
+        int nrLongCodes = 0;
+        for (final Mapcode mapcode : MapcodeCodec.encode(40.756, -73.986, Territory.US_NJ)) {
+            result = MapcodeCodec.decodeToResult(mapcode.getCodeWithTerritory());
+            if (mapcode.getCode().length() == 9) {
+                assertEquals(Territory.USA, result.getTerritory());
+                nrLongCodes++;
+            } else {
+                assertEquals(Territory.US_NJ, result.getTerritory());
+            }
+        }
+        assertEquals(1, nrLongCodes);
+    }
+
+    @Test
+    public void testReuseAfterFailure() throws Exception {
+        LOG.info("testReuseAfterFailure");
+        final DecodeResult result = MapcodeCodec.decodeToResult("NLD 49.4V");
+        try {
+            MapcodeCodec.decodeToResult("NLD ZZ.ZZ", null, result);
+            fail("Expected UnknownMapcodeException");
+        } catch (final UnknownMapcodeException ignored) {
+            // OK.
+        }
+        try {
+            result.getCenter();
+            fail("Expected IllegalStateException");
+        } catch (final IllegalStateException ignored) {
+            // OK.
+        }
+        assertEquals("undefined", result.toString());
+        MapcodeCodec.decodeToResult("NLD 49.4V", null, result);
+        assertEquals(MapcodeCodec.decode("NLD 49.4V"), result.getCenter());
+    }
+}
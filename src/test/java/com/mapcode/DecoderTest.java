@@ -21,7 +21,11 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nonnull;
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @SuppressWarnings({"OverlyBroadThrowsClause", "ProhibitedExceptionDeclared", "MagicNumber"})
 public class DecoderTest {
@@ -377,4 +381,154 @@ public class DecoderTest {
         LOG.info("illegalArgument3");
         MapcodeCodec.decode(null);
     }
+
+    @Test
+    public void aeuUnpackMatchesReference() {
+        LOG.info("aeuUnpackMatchesReference");
+
+        // All first characters and all combinations of the last 2 characters, for all dot positions.
+        final String chars = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ.?";
+        final Random random = new Random(1234567890L);
+        int nrChecked = 0;
+        int nrUnpacked = 0;
+        for (int prefix = 0; prefix <= 6; prefix++) {
+            for (int postfix = 0; postfix <= 4; postfix++) {
+                final char[] mapcode = new char[prefix + postfix + 1];
+                for (int i = 0; i < mapcode.length; i++) {
+                    mapcode[i] = (char) ('0' + random.nextInt(10));
+                }
+                mapcode[prefix] = '.';
+                for (int first = 0; first < chars.length(); first++) {
+                    for (int secondLast = 0; secondLast < chars.length(); secondLast++) {
+                        for (int last = 0; last < chars.length(); last++) {
+                            mapcode[0] = chars.charAt(first);
+                            if (mapcode.length >= 2) {
+                                mapcode[mapcode.length - 2] = chars.charAt(secondLast);
+                            }
+                            mapcode[mapcode.length - 1] = chars.charAt(last);
+                            if (assertAeuUnpackMatchesReference(new String(mapcode))) {
+                                ++nrUnpacked;
+                            }
+                            ++nrChecked;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Unpacking packed all-digit mapcodes.
+        for (int i = 0; i < 100000; i++) {
+            final StringBuilder sb = new StringBuilder();
+            final int prefix = 2 + random.nextInt(4);
+            final int postfix = 2 + random.nextInt(3);
+            for (int j = 0; j < (prefix + postfix); j++) {
+                if (j == prefix) {
+                    sb.append('.');
+                }
+                sb.append((char) ('0' + random.nextInt(10)));
+            }
+            final String mapcode = sb.toString();
+            assertTrue(assertAeuUnpackMatchesReference(Encoder.aeuPack(mapcode, false)));
+            assertTrue(assertAeuUnpackMatchesReference(Encoder.aeuPack(mapcode, true)));
+            nrChecked += 2;
+            nrUnpacked += 2;
+        }
+        LOG.info("aeuUnpackMatchesReference: {} mapcodes checked, {} unpacked", nrChecked, nrUnpacked);
+        assertTrue(nrUnpacked > 200000);
+    }
+
+    private static boolean assertAeuUnpackMatchesReference(@Nonnull final String mapcode) {
+        String expected;
+        try {
+            expected = aeuUnpackReference(mapcode);
+        } catch (final StringIndexOutOfBoundsException ignored) {
+
+            // Mapcodes starting with 'U' were not handled, but are invalid.
+            assertEquals('U', mapcode.charAt(0));
+            expected = "";
+        }
+
+        // Unpack in place, surrounded by other characters.
+        final char[] chars = ("xx" + mapcode + "yy").toCharArray();
+        final int length = Decoder.aeuUnpack(chars, 2, mapcode.length());
+        assertEquals(mapcode, expected, (length == 0) ? "" : new String(chars, 2, length));
+        return length != 0;
+    }
+
+    /**
+     * Previous implementation of Decoder.aeuUnpack(String) for ASCII mapcodes, based on strings.
+     */
+    @Nonnull
+    private static String aeuUnpackReference(@Nonnull final String argStr) {
+        String str = argStr;
+        boolean voweled = false;
+        final int lastpos = str.length() - 1;
+        int dotpos = str.indexOf('.');
+        if ((dotpos < 2) || (lastpos < (dotpos + 2))) {
+            return "";
+        }
+        if (str.charAt(0) == 'A') {
+            int v1 = Decoder.DECODE_CHARS[(int) str.charAt(lastpos)];
+            if (v1 < 0) {
+                v1 = 31;
+            }
+            int v2 = Decoder.DECODE_CHARS[(int) str.charAt(lastpos - 1)];
+            if (v2 < 0) {
+                v2 = 31;
+            }
+            final String s = String.valueOf(1000 + v1 + (32 * v2));
+            str = s.charAt(1) + str.substring(1, lastpos - 1) + s.charAt(2) + s.charAt(3);
+            voweled = true;
+        } else if (str.charAt(0) == 'U') {
+            voweled = true;
+            str = str.substring(1);
+            dotpos--;
+        } else {
+            int v = str.charAt(lastpos - 1);
+            if (v == 'A') {
+                v = 0;
+            } else if (v == 'E') {
+                v = 34;
+            } else if (v == 'U') {
+                v = 68;
+            } else {
+                v = -1;
+            }
+            if (v >= 0) {
+                final char e = str.charAt(lastpos);
+                if (e == 'A') {
+                    v += 31;
+                } else if (e == 'E') {
+                    v += 32;
+                } else if (e == 'U') {
+                    v += 33;
+                } else {
+                    final int ve = Decoder.DECODE_CHARS[(int) str.charAt(lastpos)];
+                    if (ve < 0) {
+                        return "";
+                    }
+                    v += ve;
+                }
+                if (v >= 100) {
+                    return "";
+                }
+                voweled = true;
+                str = str.substring(0, lastpos - 1) + Data.ENCODE_CHARS[v / 10] + Data.ENCODE_CHARS[v % 10];
+            }
+        }
+        if ((dotpos < 2) || (dotpos > 5)) {
+            return "";
+        }
+        for (int v = 0; v <= lastpos; v++) {
+            if (v != dotpos) {
+                final int i = (int) str.charAt(v);
+                if (Decoder.DECODE_CHARS[i] < 0) {
+                    return "";
+                } else if (voweled && (Decoder.DECODE_CHARS[(int) str.charAt(v)] > 9)) {
+                    return "";
+                }
+            }
+        }
+        return str;
+    }
 }
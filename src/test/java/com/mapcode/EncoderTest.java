@@ -20,7 +20,14 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -41,6 +48,91 @@ public class EncoderTest {
         assertEquals("VHYCC.2FWB", MapcodeCodec.encodeToInternational(Point.fromDeg(52.5, 5.2)).getCode());
     }
 
+    @Test
+    public void encodeToInternationalSameAsGenericEncoder() {
+        LOG.info("encodeToInternationalSameAsGenericEncoder");
+        final double[] lats = {-90.0, -89.999999, -77.183669, -77.18367, -2.029055, 0.0, 2.029055, 77.183669,
+                89.999999, 90.0};
+        final double[] lons = {-180.0, -179.999999, 0.0, 179.999999, 180.0};
+        for (final double lat : lats) {
+            for (final double lon : lons) {
+                assertSameAsGenericEncoder(lat, lon);
+            }
+        }
+        final Random random = new Random(1234567890L);
+        for (int i = 0; i < 10000; ++i) {
+            final Point point = Point.fromUniformlyDistributedRandomPoints(random);
+            assertSameAsGenericEncoder(point.getLatDeg(), point.getLonDeg());
+        }
+    }
+
+    private static void assertSameAsGenericEncoder(final double lat, final double lon) {
+        final List<Mapcode> results = MapcodeCodec.encode(lat, lon);
+        final Mapcode expected = results.get(results.size() - 1);
+        assertEquals(Territory.AAA, expected.getTerritory());
+        assertEquals("lat=" + lat + ", lon=" + lon, expected, MapcodeCodec.encodeToInternational(lat, lon));
+        assertEquals("lat=" + lat + ", lon=" + lon, expected,
+                MapcodeCodec.encode(lat, lon, Territory.AAA).get(0));
+        assertEquals(1, MapcodeCodec.encode(lat, lon, Territory.AAA).size());
+    }
+
+    @Test
+    public void encodeToShortestWithoutTerritory() {
+        LOG.info("encodeToShortestWithoutTerritory");
+        assertEquals("NLD 49.4V", MapcodeCodec.encodeToShortest(52.376514, 4.908542).getCodeWithTerritory());
+        assertEquals("IN-NL WKS.H6", MapcodeCodec.encodeToShortest(Point.fromDeg(26.904899, 95.138515)).getCodeWithTerritory());
+
+        final Random random = new Random(1234567890L);
+        for (int i = 0; i < 10000; ++i) {
+            final Point point = Point.fromUniformlyDistributedRandomPoints(random);
+            Mapcode expected = null;
+            for (final Mapcode mapcode : MapcodeCodec.encode(point)) {
+                if ((expected == null) || (mapcode.getCode().length() < expected.getCode().length())) {
+                    expected = mapcode;
+                }
+            }
+            assertEquals(point.toString(), expected, MapcodeCodec.encodeToShortest(point));
+        }
+    }
+
+    @Test
+    public void encodeRestrictToTerritories() {
+        LOG.info("encodeRestrictToTerritories");
+        final List<Mapcode> results = MapcodeCodec.encodeRestrictToTerritories(26.904899, 95.138515,
+                Arrays.asList(Territory.IND, Territory.IN_AS, Territory.AAA, Territory.IND));
+        assertEquals(8, results.size());
+        assertEquals("IN-AS SC86.C8", results.get(0).getCodeWithTerritory());
+        assertEquals("IND W7Y.9WBB", results.get(4).getCodeWithTerritory());
+        assertEquals("AAA PRP60.0RVD", results.get(7).getCodeWithTerritory());
+        assertTrue(MapcodeCodec.encodeRestrictToTerritories(Point.fromDeg(26.904899, 95.138515),
+                Collections.<Territory>emptyList()).isEmpty());
+
+        final Random random = new Random(1234567890L);
+        final Territory[] territories = Territory.values();
+        for (int i = 0; i < 1000; ++i) {
+            final Point point = Point.fromDeg((random.nextDouble() * 140) - 60, (random.nextDouble() * 360) - 180);
+            final List<Mapcode> all = MapcodeCodec.encode(point);
+
+            // Restrict to some of the territories of the point and some random other territories.
+            final Set<Territory> restrictTo = EnumSet.noneOf(Territory.class);
+            for (final Mapcode mapcode : all) {
+                if (random.nextBoolean()) {
+                    restrictTo.add(mapcode.getTerritory());
+                }
+            }
+            for (int j = 0; j < 10; ++j) {
+                restrictTo.add(territories[random.nextInt(territories.length)]);
+            }
+            final List<Mapcode> expected = new ArrayList<Mapcode>();
+            for (final Mapcode mapcode : all) {
+                if (restrictTo.contains(mapcode.getTerritory())) {
+                    expected.add(mapcode);
+                }
+            }
+            assertEquals(point.toString(), expected, MapcodeCodec.encodeRestrictToTerritories(point, restrictTo));
+        }
+    }
+
     @Test
     public void nearMultipleBorders() {
         LOG.info("nearMultipleBorders");
@@ -349,4 +441,98 @@ public class EncoderTest {
             }
         }
     }
+
+    @Test
+    public void aeuPackMatchesReference() {
+        LOG.info("aeuPackMatchesReference");
+
+        // All-digit mapcodes with all dot positions, with and without a precision extension.
+        final Random random = new Random(1234567890L);
+        int nrChecked = 0;
+        for (int i = 0; i < 100000; i++) {
+            final StringBuilder sb = new StringBuilder();
+            final int prefix = 2 + random.nextInt(4);
+            final int postfix = 2 + random.nextInt(4);
+            for (int j = 0; j < (prefix + postfix); j++) {
+                if (j == prefix) {
+                    sb.append('.');
+                }
+                sb.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextBoolean()) {
+                sb.append('-').append((char) ('0' + random.nextInt(10))).append((char) ('A' + random.nextInt(26)));
+            }
+            nrChecked += assertAeuPackMatchesReference(sb.toString());
+        }
+
+        // Arbitrary strings of digits, dots, dashes and letters.
+        final String chars = "0123456789.-ABEU";
+        for (int i = 0; i < 100000; i++) {
+            final StringBuilder sb = new StringBuilder();
+            final int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                sb.append(chars.charAt(random.nextInt(chars.length())));
+            }
+            nrChecked += assertAeuPackMatchesReference(sb.toString());
+        }
+        LOG.info("aeuPackMatchesReference: {} mapcodes checked", nrChecked);
+        assertTrue(nrChecked > 150000);
+    }
+
+    private static int assertAeuPackMatchesReference(@Nonnull final String mapcode) {
+        int nrChecked = 0;
+        for (final boolean argShort : new boolean[]{false, true}) {
+            final String expected;
+            try {
+                expected = aeuPackReference(mapcode, argShort);
+            } catch (final IndexOutOfBoundsException ignored) {
+
+                // Not a mapcode.
+                continue;
+            }
+            assertEquals(mapcode, expected, Encoder.aeuPack(mapcode, argShort));
+
+            // Pack in place, surrounded by other characters.
+            final char[] chars = ("xx" + mapcode + "yy").toCharArray();
+            Encoder.aeuPack(chars, 2, mapcode.length(), argShort);
+            assertEquals(mapcode, "xx" + expected + "yy", new String(chars));
+            ++nrChecked;
+        }
+        return nrChecked;
+    }
+
+    /**
+     * Previous implementation of {@link Encoder#aeuPack(String, boolean)}, based on strings.
+     */
+    @Nonnull
+    private static String aeuPackReference(@Nonnull final String argStr, final boolean argShort) {
+        String str = argStr;
+        int dotpos = -9;
+        int rlen = str.length();
+        int d;
+        String rest = "";
+        for (d = 0; d < rlen; d++) {
+            if ((str.charAt(d) < '0') || (str.charAt(d) > '9')) {
+                if ((str.charAt(d) == '.') && (dotpos < 0)) {
+                    dotpos = d;
+                } else if (str.charAt(d) == '-') {
+                    rest = str.substring(d);
+                    str = str.substring(0, d);
+                    rlen = d;
+                } else {
+                    return str;
+                }
+            }
+        }
+        if ((rlen - 2) > dotpos) {
+            if (argShort) {
+                final int v = ((((int) str.charAt(0)) - 48) * 100) + ((((int) str.charAt(rlen - 2)) - 48) * 10) + (((int) str.charAt(rlen - 1)) - 48);
+                return 'A' + str.substring(1, rlen - 2) + Data.ENCODE_CHARS[v / 32] + Data.ENCODE_CHARS[v % 32] + rest;
+            } else {
+                final int v = (((((int) str.charAt(rlen - 2)) - 48) * 10) + ((int) str.charAt(rlen - 1))) - 48;
+                str = str.substring(0, rlen - 2) + Data.ENCODE_CHARS[31 + (v / 34)] + Data.ENCODE_CHARS[v % 34];
+            }
+        }
+        return str + rest;
+    }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import com.mapcode.MapcodeInstrumentation.ErrorCategory;
+import com.mapcode.MapcodeInstrumentation.Operation;
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@SuppressWarnings({"MagicNumber", "JUnitTestMethodWithNoAssertions"})
+public class HistogramInstrumentationTest {
+    private static final Logger LOG = LoggerFactory.getLogger(HistogramInstrumentationTest.class);
+
+    @After
+    public void tearDown() {
+        MapcodeCodec.setInstrumentation(null);
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        LOG.info("testHistogramBuckets");
+        for (long value = 0; value < 100000; value++) {
+            final int bucket = Histogram.getBucket(value);
+            final long highest = Histogram.getHighestValueInBucket(bucket);
+            assertTrue("value=" + value, value <= highest);
+            assertTrue("value=" + value, (highest - value) <= Math.max(0, value / Histogram.SUB_BUCKETS));
+            if (bucket > 0) {
+                assertTrue("value=" + value, Histogram.getHighestValueInBucket(bucket - 1) < value);
+            }
+        }
+        final long max = Long.MAX_VALUE;
+        assertEquals(max, Histogram.getHighestValueInBucket(Histogram.getBucket(max)));
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LOG.info("testHistogramPercentiles");
+        final Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getValueAtPercentile(50.0));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500500.0, histogram.getMean(), 0.0);
+        assertWithinPrecision(500000, histogram.getValueAtPercentile(50.0));
+        assertWithinPrecision(990000, histogram.getValueAtPercentile(99.0));
+        assertEquals(1000000, histogram.getValueAtPercentile(100.0));
+        assertWithinPrecision(1000, histogram.getValueAtPercentile(0.0));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHistogramIllegalPercentile() {
+        LOG.info("testHistogramIllegalPercentile");
+        new Histogram().getValueAtPercentile(100.1);
+    }
+
+    @Test
+    public void testNoInstrumentationByDefault() {
+        LOG.info("testNoInstrumentationByDefault");
+        assertNull(MapcodeCodec.getInstrumentation());
+        final HistogramInstrumentation instrumentation = new HistogramInstrumentation();
+        MapcodeCodec.setInstrumentation(instrumentation);
+        assertSame(instrumentation, MapcodeCodec.getInstrumentation());
+    }
+
+    @Test
+    public void testEncodeDecode() throws Exception {
+        LOG.info("testEncodeDecode");
+        final HistogramInstrumentation instrumentation = new HistogramInstrumentation();
+        MapcodeCodec.setInstrumentation(instrumentation);
+
+        final Random random = new Random(1234L);
+        for (int i = 0; i < 100; i++) {
+            final Point point = Point.fromUniformlyDistributedRandomPoints(random);
+            final Mapcode mapcode = MapcodeCodec.encode(point).get(0);
+            MapcodeCodec.decode(mapcode.getCodeWithTerritory());
+            MapcodeCodec.decodeToRectangle(mapcode.getCodeWithTerritory());
+        }
+        for (final Operation operation : Operation.values()) {
+            assertEquals(100, instrumentation.getCount(operation));
+            assertTrue(instrumentation.getLatencyNanosAtPercentile(operation, 50.0) > 0);
+            assertTrue(instrumentation.getLatencyNanosAtPercentile(operation, 50.0) <=
+                    instrumentation.getMaxLatencyNanos(operation));
+            assertTrue(instrumentation.getMeanRecordsScanned(operation) >= 1.0);
+            for (final ErrorCategory errorCategory : ErrorCategory.values()) {
+                assertEquals(0, instrumentation.getErrorCount(operation, errorCategory));
+            }
+        }
+
+        // Every encode checks all territories.
+        assertTrue(instrumentation.getRecordsScannedAtPercentile(Operation.ENCODE, 0.0) > Territory.AAA.getNumber());
+        LOG.info("testEncodeDecode: {}", instrumentation);
+
+        instrumentation.reset();
+        assertEquals(0, instrumentation.getCount(Operation.ENCODE));
+    }
+
+    @Test
+    public void testErrorCategories() {
+        LOG.info("testErrorCategories");
+        final HistogramInstrumentation instrumentation = new HistogramInstrumentation();
+        MapcodeCodec.setInstrumentation(instrumentation);
+
+        // Point not in territory.
+        try {
+            MapcodeCodec.encodeToShortest(Point.fromDeg(52.376514, 4.908542), Territory.USA);
+            fail();
+        } catch (final UnknownMapcodeException ignored) {
+            // OK.
+        }
+        assertEquals(1, instrumentation.getErrorCount(Operation.ENCODE, ErrorCategory.NO_RESULT));
+
+        assertDecodeFails("XYZ 49.4V");
+        assertEquals(1, instrumentation.getErrorCount(Operation.DECODE, ErrorCategory.UNKNOWN_TERRITORY));
+
+        assertDecodeFails("NLD 49.4V-Z");
+        assertEquals(1, instrumentation.getErrorCount(Operation.DECODE, ErrorCategory.UNKNOWN_PRECISION_FORMAT));
+
+        assertDecodeFails("NLD SHH.HHH");
+        assertDecodeFails("494.V49V");
+        assertEquals(4, instrumentation.getCount(Operation.DECODE));
+        long nrErrors = 0;
+        for (final ErrorCategory errorCategory : ErrorCategory.values()) {
+            nrErrors += instrumentation.getErrorCount(Operation.DECODE, errorCategory);
+        }
+        assertEquals(4, nrErrors);
+        assertEquals(1, instrumentation.getCount(Operation.ENCODE));
+        LOG.info("testErrorCategories: {}", instrumentation);
+    }
+
+    private static void assertDecodeFails(final String mapcode) {
+        try {
+            MapcodeCodec.decode(mapcode);
+            fail("mapcode=" + mapcode);
+        } catch (final UnknownMapcodeException ignored) {
+            // OK.
+        } catch (final IllegalArgumentException ignored) {
+            // OK.
+        }
+    }
+
+    private static void assertWithinPrecision(final long expected, final long actual) {
+        assertTrue("expected=" + expected + ", actual=" + actual, actual >= expected);
+        assertTrue("expected=" + expected + ", actual=" + actual, (actual - expected) <= (expected / Histogram.SUB_BUCKETS));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("MagicNumber")
+public class IntrinsicsTest {
+    private static final Logger LOG = LoggerFactory.getLogger(IntrinsicsTest.class);
+
+    @Test
+    public void testReadLittleEndian() {
+        LOG.info("testReadLittleEndian: implementation={}", Intrinsics.getImplementationName());
+        final byte[] bytes = {(byte) 0x01, (byte) 0x02, (byte) 0x83, (byte) 0xff, (byte) 0x7f};
+        assertEquals(0x0201, Intrinsics.readUnsignedShortLE(bytes, 0));
+        assertEquals(0xff83, Intrinsics.readUnsignedShortLE(bytes, 2));
+        assertEquals(0xff830201, Intrinsics.readIntLE(bytes, 0));
+        assertEquals(0x7fff8302, Intrinsics.readIntLE(bytes, 1));
+    }
+
+    @Test
+    public void testContainsLonMicroDeg() {
+        LOG.info("testContainsLonMicroDeg: implementation={}", Intrinsics.getImplementationName());
+        assertTrue(Intrinsics.containsLonMicroDeg(0, 0, 1));
+        assertFalse(Intrinsics.containsLonMicroDeg(1, 0, 1));
+        assertFalse(Intrinsics.containsLonMicroDeg(-1, 0, 1));
+        assertFalse(Intrinsics.containsLonMicroDeg(0, 1, 0));
+
+        // Ranges extending beyond 180 degrees.
+        assertTrue(Intrinsics.containsLonMicroDeg(-179000000, 170000000, 190000000));
+        assertFalse(Intrinsics.containsLonMicroDeg(-169000000, 170000000, 190000000));
+        assertTrue(Intrinsics.containsLonMicroDeg(179000000, -190000000, -170000000));
+        assertFalse(Intrinsics.containsLonMicroDeg(169000000, -190000000, -170000000));
+    }
+
+    @Test
+    public void testContainsLonMicroDegMatchesReference() {
+        LOG.info("testContainsLonMicroDegMatchesReference");
+        final Random random = new Random(1234567L);
+        for (int i = 0; i < 100000; ++i) {
+            final int lon = random.nextInt(Point.MICRO_DEG_360) - Point.MICRO_DEG_180;
+            final int min = random.nextInt(Point.MICRO_DEG_360 + 20000000) - Point.MICRO_DEG_180 - 10000000;
+            final int max = min + random.nextInt(Point.MICRO_DEG_360) - 1000000;
+            assertEquals("lon=" + lon + ", min=" + min + ", max=" + max,
+                    referenceContainsLonMicroDeg(lon, min, max), Intrinsics.containsLonMicroDeg(lon, min, max));
+        }
+    }
+
+    private static boolean referenceContainsLonMicroDeg(final int lon, final int min, final int max) {
+        return ((min <= lon) && (lon < max)) ||
+                ((min <= (lon + Point.MICRO_DEG_360)) && ((lon + Point.MICRO_DEG_360) < max)) ||
+                ((min <= (lon - Point.MICRO_DEG_360)) && ((lon - Point.MICRO_DEG_360) < max));
+    }
+}
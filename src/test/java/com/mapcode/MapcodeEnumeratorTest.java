@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("MagicNumber")
+public class MapcodeEnumeratorTest {
+    private static final Logger LOG = LoggerFactory.getLogger(MapcodeEnumeratorTest.class);
+
+    @Test
+    public void testCity() throws UnknownMapcodeException {
+        LOG.info("testCity");
+        checkRectangle(52.370000, 4.890000, 52.372000, 4.894000, null);
+    }
+
+    @Test
+    public void testSubdivisionBorder() throws UnknownMapcodeException {
+        LOG.info("testSubdivisionBorder");
+        checkRectangle(40.700000, -74.030000, 40.703000, -74.024000, null);
+        checkRectangle(40.700000, -74.030000, 40.703000, -74.024000, Territory.US_NJ);
+    }
+
+    @Test
+    public void testCountryBorder() throws UnknownMapcodeException {
+        LOG.info("testCountryBorder");
+        checkRectangle(51.440000, 4.920000, 51.443000, 4.925000, null);
+    }
+
+    @Test
+    public void testRuralAndOcean() throws UnknownMapcodeException {
+        LOG.info("testRuralAndOcean");
+        checkRectangle(-25.500000, 133.000000, -25.497000, 133.004000, null);
+        checkRectangle(-40.000000, -30.000000, -39.997000, -29.996000, null);
+    }
+
+    @Test
+    public void testCrossing180() throws UnknownMapcodeException {
+        LOG.info("testCrossing180");
+        checkRectangle(-16.800000, 179.995000, -16.797000, -179.995000, null);
+    }
+
+    @Test
+    public void testRandomRectangles() throws UnknownMapcodeException {
+        LOG.info("testRandomRectangles");
+        final java.util.Random random = new java.util.Random(13579L);
+        for (int i = 0; i < 10; i++) {
+            final Point point = Point.fromUniformlyDistributedRandomPoints(random);
+            final double lat = Math.min(point.getLatDeg(), 89.0);
+            checkRectangle(lat, point.getLonDeg(), lat + 0.002, point.getLonDeg() + 0.003, null);
+        }
+    }
+
+    @Test
+    public void testIterateTwice() {
+        LOG.info("testIterateTwice");
+        final Iterable<MapcodeWithRectangle> mapcodes = MapcodeCodec.encodeRectangle(
+                Point.fromDeg(52.370000, 4.890000), Point.fromDeg(52.370500, 4.890500), Territory.NLD);
+        int count = 0;
+        for (final MapcodeWithRectangle mapcode : mapcodes) {
+            assertEquals(Territory.NLD, mapcode.getMapcode().getTerritory());
+            count++;
+        }
+        assertTrue(count > 0);
+        int countAgain = 0;
+        for (final Iterator<MapcodeWithRectangle> iterator = mapcodes.iterator(); iterator.hasNext(); iterator.next()) {
+            countAgain++;
+        }
+        assertEquals(count, countAgain);
+    }
+
+    @Test
+    public void testEmpty() {
+        LOG.info("testEmpty");
+        assertFalse(MapcodeCodec.encodeRectangle(
+                Point.fromDeg(52.370000, 4.890000), Point.fromDeg(52.370000, 4.890500)).iterator().hasNext());
+        assertFalse(MapcodeCodec.encodeRectangle(
+                Point.fromDeg(52.370000, 4.890000), Point.fromDeg(52.370500, 4.890500), Territory.BEL).iterator().hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRectangle() {
+        LOG.info("testInvalidRectangle");
+        MapcodeCodec.encodeRectangle(Point.fromDeg(52.0, 4.0), Point.fromDeg(51.0, 5.0));
+    }
+
+    // Center of the overlap of two longitude ranges, which may cross the 180 degrees meridian.
+    private static double centerLon(final double lonMin1, final double lonMax1, final double lonMin2, final double lonMax2) {
+        final double max1 = (lonMax1 <= lonMin1) ? (lonMax1 + 360.0) : lonMax1;
+        final double max2 = (lonMax2 < lonMin2) ? (lonMax2 + 360.0) : lonMax2;
+        double best = lonMin1;
+        for (final double offset : new double[]{0.0, -360.0, 360.0}) {
+            final double min = Math.max(lonMin1, lonMin2 + offset);
+            final double max = Math.min(max1, max2 + offset);
+            if (min < max) {
+                best = (min + max) / 2.0;
+            }
+        }
+        return best;
+    }
+
+    // Compare the enumerated mapcodes with the mapcodes of a dense sample of points in the rectangle.
+    private static void checkRectangle(final double latDegMin, final double lonDegMin,
+                                       final double latDegMax, final double lonDegMax, final Territory territory)
+            throws UnknownMapcodeException {
+        final Point southWest = Point.fromDeg(latDegMin, lonDegMin);
+        final Point northEast = Point.fromDeg(latDegMax, lonDegMax);
+        final Set<String> enumerated = new HashSet<String>();
+        for (final MapcodeWithRectangle mapcodeWithRectangle : MapcodeCodec.encodeRectangle(southWest, northEast, territory)) {
+            final Mapcode mapcode = mapcodeWithRectangle.getMapcode();
+            assertTrue("Duplicate " + mapcode, enumerated.add(mapcode.getCodeWithTerritory()));
+            assertTrue(territory == null || territory == mapcode.getTerritory());
+            assertEquals(MapcodeCodec.decodeToRectangle(mapcode.getCode(), mapcode.getTerritory()),
+                    mapcodeWithRectangle.getRectangle());
+
+            // The center of the part of the zone in the rectangle must encode to the mapcode.
+            final Rectangle zone = mapcodeWithRectangle.getRectangle();
+            final double lat = (Math.max(zone.getSouthWest().getLatDeg(), latDegMin) +
+                    Math.min(zone.getNorthEast().getLatDeg(), latDegMax)) / 2.0;
+            final double lon = centerLon(zone.getSouthWest().getLonDeg(), zone.getNorthEast().getLonDeg(), lonDegMin, lonDegMax);
+            boolean found = false;
+            for (final Mapcode encoded : MapcodeCodec.encode(lat, lon, mapcode.getTerritory())) {
+                found = found || encoded.getCode().equals(mapcode.getCode());
+            }
+            assertTrue("Not encoded " + mapcode + " at " + lat + ", " + lon, found);
+        }
+
+        // Sample the rectangle, with half microdegree offsets to stay clear of cell borders.
+        final double lonDegWidth = (lonDegMax < lonDegMin) ? ((lonDegMax + 360.0) - lonDegMin) : (lonDegMax - lonDegMin);
+        final Set<String> sampled = new HashSet<String>();
+        final int nrSteps = 150;
+        for (int i = 0; i < nrSteps; i++) {
+            for (int j = 0; j < nrSteps; j++) {
+                final double lat = latDegMin + (((latDegMax - latDegMin) * i) / nrSteps) + 0.0000005;
+                final double lon = lonDegMin + ((lonDegWidth * j) / nrSteps) + 0.0000005;
+                for (final Mapcode mapcode : MapcodeCodec.encode(lat, lon, territory)) {
+                    final String code = mapcode.getCodeWithTerritory();
+                    sampled.add(code);
+                    assertTrue("Missing " + code + " for " + lat + ", " + lon, enumerated.contains(code));
+                }
+            }
+        }
+        LOG.info("checkRectangle: {} mapcodes enumerated, {} sampled", enumerated.size(), sampled.size());
+    }
+}
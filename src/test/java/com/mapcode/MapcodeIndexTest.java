@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("MagicNumber")
+public class MapcodeIndexTest {
+    private static final Logger LOG = LoggerFactory.getLogger(MapcodeIndexTest.class);
+
+    // Order of sort keys, as unsigned bytes.
+    private static final Comparator<byte[]> SORT_KEY_ORDER = new Comparator<byte[]>() {
+        @Override
+        public int compare(final byte[] o1, final byte[] o2) {
+            for (int i = 0; (i < o1.length) && (i < o2.length); i++) {
+                final int diff = (o1[i] & 0xff) - (o2[i] & 0xff);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return o1.length - o2.length;
+        }
+    };
+
+    @Test
+    public void testSortKey() {
+        LOG.info("testSortKey");
+        final Random random = new Random(11223L);
+        for (int i = 0; i < 1000; i++) {
+            for (final Mapcode mapcode : MapcodeCodec.encode(Point.fromUniformlyDistributedRandomPoints(random))) {
+                final byte[] sortKey = mapcode.getSortKey();
+                final Mapcode fromSortKey = Mapcode.fromSortKey(sortKey);
+                assertEquals(mapcode, fromSortKey);
+                assertEquals(mapcode.getTerritory(), fromSortKey.getTerritory());
+                assertArrayEquals(sortKey, fromSortKey.getSortKey());
+                assertEquals(mapcode.getCodeWithTerritory(8), new String(sortKey, Charset.forName("US-ASCII")));
+            }
+        }
+
+        // Keys contain the international territory code, not an internal number.
+        assertEquals("US-NJ 49.4V-K3000000",
+                new String(new Mapcode("49.4V", Territory.US_NJ).getSortKey(), Charset.forName("US-ASCII")));
+
+        // Keys are canonical.
+        assertArrayEquals(new Mapcode("49.4V", Territory.NLD).getSortKey(),
+                new Mapcode("49.4v-K3000000", Territory.NLD).getSortKey());
+        assertFalse(Arrays.equals(new Mapcode("49.4V", Territory.NLD).getSortKey(),
+                new Mapcode("49.4V", Territory.BEL).getSortKey()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSortKeyWithoutPrecision() {
+        LOG.info("testSortKeyWithoutPrecision");
+        final byte[] sortKey = new Mapcode("49.4V", Territory.NLD).getSortKey();
+        Mapcode.fromSortKey(Arrays.copyOf(sortKey, sortKey.length - 9));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSortKeyNotAscii() {
+        LOG.info("testSortKeyNotAscii");
+        final byte[] sortKey = new Mapcode("49.4V", Territory.NLD).getSortKey();
+        sortKey[sortKey.length - 1] = (byte) 0xc3;
+        Mapcode.fromSortKey(sortKey);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSortKeyWithoutTerritory() {
+        LOG.info("testSortKeyWithoutTerritory");
+        Mapcode.fromSortKey("49.4V-K3000000".getBytes(Charset.forName("US-ASCII")));
+    }
+
+    @Test
+    public void testIndexOrderMatchesSortKeys() {
+        LOG.info("testIndexOrderMatchesSortKeys");
+        final List<Mapcode> mapcodes = createMapcodes(new Random(44556L), 2000);
+        final MapcodeIndex index = new MapcodeIndex(mapcodes);
+        final List<Mapcode> indexed = index.getMapcodes();
+        assertTrue(index.size() <= mapcodes.size());
+        for (int i = 1; i < indexed.size(); i++) {
+            assertTrue(SORT_KEY_ORDER.compare(indexed.get(i - 1).getSortKey(), indexed.get(i).getSortKey()) < 0);
+        }
+        for (final Mapcode mapcode : mapcodes) {
+            assertTrue(index.contains(mapcode));
+            assertTrue(index.getMapcodes(mapcode.getTerritory()).contains(mapcode));
+        }
+        assertFalse(index.contains(new Mapcode("ZZ.ZZ", Territory.NLD)));
+
+        // Duplicates are stored once.
+        final List<Mapcode> twice = new ArrayList<Mapcode>(mapcodes);
+        twice.addAll(mapcodes);
+        assertEquals(index.size(), new MapcodeIndex(twice).size());
+        assertEquals(0, new MapcodeIndex(new ArrayList<Mapcode>()).size());
+    }
+
+    @Test
+    public void testPrefix() {
+        LOG.info("testPrefix");
+
+        // Mapcodes in a small area of Amsterdam.
+        final Random random = new Random(77889L);
+        final List<Mapcode> mapcodes = new ArrayList<Mapcode>();
+        for (int i = 0; i < 500; i++) {
+            mapcodes.add(MapcodeCodec.encode(52.376 + (random.nextDouble() * 0.002),
+                    4.908 + (random.nextDouble() * 0.002), Territory.NLD).get(0));
+        }
+        final MapcodeIndex index = new MapcodeIndex(mapcodes);
+        for (final Mapcode mapcode : mapcodes) {
+            for (int length = 1; length <= mapcode.getCode(8).length(); length++) {
+                final String prefix = mapcode.getCode(8).substring(0, length);
+                final List<Mapcode> expected = new ArrayList<Mapcode>();
+                for (final Mapcode other : index.getMapcodes()) {
+                    if ((other.getTerritory() == Territory.NLD) && other.getCode(8).startsWith(prefix)) {
+                        expected.add(other);
+                    }
+                }
+                assertEquals(prefix, expected, index.getMapcodesWithPrefix(Territory.NLD, prefix));
+                assertEquals(prefix, expected, index.getMapcodesWithPrefix(Territory.NLD, prefix.toLowerCase()));
+            }
+        }
+
+        // Lower case prefixes are found as well.
+        final String code = mapcodes.get(0).getCode();
+        assertFalse(index.getMapcodesWithPrefix(Territory.NLD, code.toLowerCase()).isEmpty());
+        assertEquals(index.getMapcodesWithPrefix(Territory.NLD, code),
+                index.getMapcodesWithPrefix(Territory.NLD, code.toLowerCase()));
+
+        assertTrue(index.getMapcodesWithPrefix(Territory.BEL, "").isEmpty());
+        assertEquals(index.size(), index.getMapcodesWithPrefix(Territory.NLD, "").size());
+    }
+
+    @Test
+    public void testRange() {
+        LOG.info("testRange");
+        final List<Mapcode> mapcodes = createMapcodes(new Random(99001L), 500);
+        final MapcodeIndex index = new MapcodeIndex(mapcodes);
+        final Random random = new Random(12121L);
+        for (int i = 0; i < 200; i++) {
+            final Mapcode from = mapcodes.get(random.nextInt(mapcodes.size()));
+            final Mapcode to = mapcodes.get(random.nextInt(mapcodes.size()));
+            final List<Mapcode> expected = new ArrayList<Mapcode>();
+            for (final Mapcode mapcode : index.getMapcodes()) {
+                if ((SORT_KEY_ORDER.compare(from.getSortKey(), mapcode.getSortKey()) <= 0) &&
+                        (SORT_KEY_ORDER.compare(mapcode.getSortKey(), to.getSortKey()) < 0)) {
+                    expected.add(mapcode);
+                }
+            }
+            assertEquals(expected, index.getRange(from, to));
+        }
+    }
+
+    @Test
+    public void testNearest() {
+        LOG.info("testNearest");
+        final List<Mapcode> mapcodes = createMapcodes(new Random(31415L), 1000);
+        final MapcodeIndex index = new MapcodeIndex(mapcodes);
+        final Random random = new Random(27182L);
+        for (int i = 0; i < 1000; i++) {
+            final Mapcode mapcode = MapcodeCodec.encode(Point.fromUniformlyDistributedRandomPoints(random)).get(0);
+            final Mapcode nearest = index.getNearest(mapcode);
+            final List<Mapcode> candidates = index.getMapcodes(mapcode.getTerritory());
+            if (candidates.isEmpty()) {
+                assertNull(nearest);
+            } else {
+                int longest = 0;
+                for (final Mapcode candidate : candidates) {
+                    longest = Math.max(longest, commonPrefixLength(mapcode.getCode(8), candidate.getCode(8)));
+                }
+                assertEquals(mapcode.toString(), longest, commonPrefixLength(mapcode.getCode(8), nearest.getCode(8)));
+            }
+        }
+        for (final Mapcode mapcode : mapcodes) {
+            assertEquals(mapcode, index.getNearest(mapcode));
+        }
+    }
+
+    private static List<Mapcode> createMapcodes(final Random random, final int nrPoints) {
+        final List<Mapcode> mapcodes = new ArrayList<Mapcode>();
+        for (int i = 0; i < nrPoints; i++) {
+            mapcodes.addAll(MapcodeCodec.encode(Point.fromUniformlyDistributedRandomPoints(random)));
+        }
+        Collections.shuffle(mapcodes, random);
+        return mapcodes;
+    }
+
+    private static int commonPrefixLength(final String code1, final String code2) {
+        int i = 0;
+        while ((i < code1.length()) && (i < code2.length()) && (code1.charAt(i) == code2.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
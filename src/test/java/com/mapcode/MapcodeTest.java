@@ -20,6 +20,12 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 public class MapcodeTest {
@@ -181,4 +187,184 @@ public class MapcodeTest {
         assertEquals("KM.8K", Mapcode.convertStringToPlainAscii("\u30c1\u30ca.8\u30c1"));
         assertEquals("HJ.Q2-Z", Mapcode.convertStringToPlainAscii("\u0397\u03a0.\u03982-\u0411"));
     }
+
+    @Test
+    public void checkPrecisionPadding() {
+        LOG.info("checkPrecisionPadding");
+        final Mapcode mapcode = new Mapcode("49.4v", Territory.NLD);
+        assertEquals("49.4V", mapcode.getCode());
+        assertEquals("49.4V-K3", mapcode.getCode(2));
+        assertEquals("49.4V-K3000000", mapcode.getCode(8));
+        assertEquals(mapcode, new Mapcode("49.4V-K3000000", Territory.NLD));
+        assertEquals(mapcode.hashCode(), new Mapcode("49.4V-K3000000", Territory.NLD).hashCode());
+        assertNotEquals(mapcode, new Mapcode("49.4V-K2", Territory.NLD));
+
+        final Mapcode mapcodeOdd = new Mapcode("49.4V-K2X", Territory.NLD);
+        assertEquals("49.4V", mapcodeOdd.getCode());
+        assertEquals("49.4V-K2XH", mapcodeOdd.getCode(4));
+        assertEquals("49.4V-K2XHH000", mapcodeOdd.getCode(8));
+    }
+
+    @Test
+    public void checkFromCodePrecision8() {
+        LOG.info("checkFromCodePrecision8");
+        final Mapcode mapcode = Mapcode.fromCodePrecision8("49.4V-K2K30000", Territory.NLD);
+        assertEquals("49.4V", mapcode.getCode());
+        assertEquals("49.4V-K2", mapcode.getCode(2));
+        assertEquals(new Mapcode("49.4V-K2", Territory.NLD), mapcode);
+        assertEquals(new Mapcode("49.4V-K2", Territory.NLD).hashCode(), mapcode.hashCode());
+        for (final Mapcode encoded : MapcodeCodec.encode(52.376514, 4.908543)) {
+            assertEquals(encoded, new Mapcode(encoded.getCode(8), encoded.getTerritory()));
+        }
+    }
+
+    @Test
+    public void checkGetCodesWithTerritory() {
+        LOG.info("checkGetCodesWithTerritory");
+        final List<Mapcode> mapcodes = new ArrayList<Mapcode>(MapcodeCodec.encode(26.904899, 95.138515));
+        mapcodes.add(new Mapcode("49.4V-K2X", Territory.NLD));
+        mapcodes.add(new Mapcode("ΗΠ.22", Territory.GRC));
+        for (final Alphabet alphabet : new Alphabet[]{null, Alphabet.ROMAN, Alphabet.CYRILLIC, Alphabet.ARABIC, Alphabet.THAI}) {
+            for (int precision = 0; precision <= 8; precision++) {
+                final List<String> codes = Mapcode.getCodesWithTerritory(mapcodes, precision, alphabet);
+                final StringBuilder expected = new StringBuilder();
+                assertEquals(mapcodes.size(), codes.size());
+                for (int i = 0; i < mapcodes.size(); i++) {
+                    final String code = mapcodes.get(i).getCodeWithTerritory(precision, alphabet);
+                    assertEquals(code, codes.get(i));
+                    expected.append((i == 0) ? "" : ", ").append(code);
+                }
+
+                // Append to a buffer which already contains something.
+                final StringBuilder buffer = new StringBuilder("x");
+                Mapcode.appendCodesWithTerritory(buffer, mapcodes, precision, alphabet, ", ");
+                assertEquals('x' + expected.toString(), buffer.toString());
+
+                // Territory codes in the alphabet as well.
+                final List<String> localized = Mapcode.getCodesWithTerritory(mapcodes, precision, alphabet, true);
+                expected.setLength(0);
+                for (int i = 0; i < mapcodes.size(); i++) {
+                    final Mapcode mapcode = mapcodes.get(i);
+                    final String code = mapcode.getTerritory().toString(alphabet) + ' ' +
+                            mapcode.getCode(precision, alphabet);
+                    assertEquals(code, localized.get(i));
+                    expected.append((i == 0) ? "" : ", ").append(code);
+                }
+                buffer.setLength(0);
+                Mapcode.appendCodesWithTerritory(buffer, mapcodes, precision, alphabet, ", ", true);
+                assertEquals(expected.toString(), buffer.toString());
+            }
+        }
+        final String greek = Mapcode.getCodesWithTerritory(
+                Collections.singletonList(new Mapcode("ΗΠ.22", Territory.GRC)), 0, Alphabet.GREEK, true).get(0);
+        assertEquals(Territory.GRC.toString(Alphabet.GREEK) + " ΗΠ.22", greek);
+        assertFalse(greek.startsWith("GRC"));
+        assertTrue(Mapcode.getCodesWithTerritory(new ArrayList<Mapcode>(), 0, null).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkGetCodesWithTerritoryPrecisionError() {
+        LOG.info("checkGetCodesWithTerritoryPrecisionError");
+        Mapcode.getCodesWithTerritory(MapcodeCodec.encode(52.376514, 4.908543), 9, null);
+    }
+
+    @Test
+    public void checkGetRectangle() throws Exception {
+        LOG.info("checkGetRectangle");
+        final Random random = new Random(13579L);
+        int nrChecked = 0;
+        for (int i = 0; i < 500; i++) {
+            final Point point = Point.fromUniformlyDistributedRandomPoints(random);
+            for (final Mapcode mapcode : MapcodeCodec.encode(point)) {
+                for (int precision = 0; precision <= 8; precision++) {
+                    final Rectangle expected = MapcodeCodec.decodeToRectangle(mapcode.getCode(precision), mapcode.getTerritory());
+                    assertEquals(mapcode.getCodeWithTerritory(precision), expected, mapcode.getRectangle(precision));
+                    nrChecked++;
+                }
+                assertEquals(mapcode.getRectangle(0), mapcode.getRectangle());
+            }
+        }
+        LOG.info("checkGetRectangle: {} rectangles", nrChecked);
+
+        // A code with a precision, with precisions beyond its own.
+        final Mapcode mapcode = new Mapcode("49.4V-K2", Territory.NLD);
+        for (int precision = 0; precision <= 8; precision++) {
+            assertEquals(MapcodeCodec.decodeToRectangle(mapcode.getCode(precision), Territory.NLD), mapcode.getRectangle(precision));
+        }
+    }
+
+    @Test(expected = UnknownMapcodeException.class)
+    public void checkGetRectangleUnknownMapcode() throws Exception {
+        LOG.info("checkGetRectangleUnknownMapcode");
+        new Mapcode("ZZ.ZZ", Territory.NLD).getRectangle(2);
+    }
+
+    @Test
+    public void checkWithPrecision() throws Exception {
+        LOG.info("checkWithPrecision");
+        final Mapcode mapcode = MapcodeCodec.encodeToInternational(52.376514, 4.908543);
+        for (int precision = 0; precision <= 8; precision++) {
+            final Mapcode coarser = mapcode.withPrecision(precision);
+            assertEquals(mapcode.getTerritory(), coarser.getTerritory());
+            assertEquals(mapcode.getCode(precision), coarser.getCode(8).substring(0, mapcode.getCode(precision).length()));
+            for (int other = 0; other <= 8; other++) {
+                assertEquals(MapcodeCodec.decodeToRectangle(coarser.getCode(other), coarser.getTerritory()),
+                        coarser.getRectangle(other));
+            }
+        }
+        assertEquals(mapcode, mapcode.withPrecision(8));
+        assertEquals("49.4V", new Mapcode("49.4V-K2", Territory.NLD).withPrecision(0).getCode(0));
+        assertEquals("49.4V-K", new Mapcode("49.4V-K2", Territory.NLD).withPrecision(0).getCode(1));
+        assertEquals("49.4V-K", new Mapcode("49.4V-K2", Territory.NLD).withPrecision(1).getCode(1));
+        assertEquals("49.4V-K2K", new Mapcode("49.4V-K2", Territory.NLD).withPrecision(3).getCode(3));
+    }
+
+    @Test
+    public void checkGetCommonAncestor() throws Exception {
+        LOG.info("checkGetCommonAncestor");
+        final Mapcode a = new Mapcode("49.4V-K2X", Territory.NLD);
+        final Mapcode b = new Mapcode("49.4V-K2Q", Territory.NLD);
+        final Mapcode c = new Mapcode("49.4V-K3", Territory.NLD);
+        assertEquals("49.4V-K2", Mapcode.getCommonAncestor(Arrays.asList(a, b)).getCode(2));
+        assertEquals("49.4V-K", Mapcode.getCommonAncestor(Arrays.asList(a, b, c)).getCode(1));
+        assertEquals("49.4V-K2X", Mapcode.getCommonAncestor(Arrays.asList(a)).getCode(3));
+        assertEquals("49.4V", Mapcode.getCommonAncestor(Arrays.asList(a, new Mapcode("49.4V-A", Territory.NLD))).getCode());
+        assertNull(Mapcode.getCommonAncestor(Arrays.asList(a, new Mapcode("49.4W", Territory.NLD))));
+
+        // Padding of codes with a lower precision does not count.
+        final Mapcode p0 = new Mapcode("49.4V", Territory.NLD);
+        final Mapcode p1 = new Mapcode("49.4V-K", Territory.NLD);
+        assertEquals("49.4V", Mapcode.getCommonAncestor(Arrays.asList(p0, c)).getCode(0));
+        assertEquals("49.4V", Mapcode.getCommonAncestor(Arrays.asList(c, p0)).getCode(0));
+        assertEquals("49.4V", Mapcode.getCommonAncestor(Arrays.asList(a, b, p0)).getCode(0));
+        assertEquals("49.4V-K", Mapcode.getCommonAncestor(Arrays.asList(a, p1, b)).getCode(1));
+        assertEquals("49.4V-K", Mapcode.getCommonAncestor(Arrays.asList(p1, a)).getCode(1));
+        assertEquals(p0.getRectangle(0), Mapcode.getCommonAncestor(Arrays.asList(p0, a)).getRectangle(0));
+        assertEquals(p0.getRectangle(0), Mapcode.getCommonAncestor(Arrays.asList(p0)).getRectangle(0));
+        assertNull(Mapcode.getCommonAncestor(Arrays.asList(a, new Mapcode("49.4V", Territory.BEL))));
+
+        // The zone of the common ancestor contains the zones of all mapcodes (with their own precision).
+        final List<Mapcode> all = Arrays.asList(a, b, c, p1);
+        final int[] precisions = {3, 3, 2, 1};
+        for (int n = 1; n <= 2; n++) {
+            final List<Mapcode> mapcodes = (n == 1) ? all : new ArrayList<Mapcode>(all);
+            if (n == 2) {
+                mapcodes.add(p0);
+            }
+            final Rectangle ancestor = Mapcode.getCommonAncestor(mapcodes).getRectangle((n == 1) ? 1 : 0);
+            for (int i = 0; i < mapcodes.size(); i++) {
+                final Rectangle rectangle = mapcodes.get(i).getRectangle((i < precisions.length) ? precisions[i] : 0);
+                assertTrue(ancestor.getSouthWest().getLatDeg() <= rectangle.getSouthWest().getLatDeg());
+                assertTrue(ancestor.getSouthWest().getLonDeg() <= rectangle.getSouthWest().getLonDeg());
+                assertTrue(ancestor.getNorthEast().getLatDeg() >= rectangle.getNorthEast().getLatDeg());
+                assertTrue(ancestor.getNorthEast().getLonDeg() >= rectangle.getNorthEast().getLonDeg());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkGetCommonAncestorEmpty() {
+        LOG.info("checkGetCommonAncestorEmpty");
+        Mapcode.getCommonAncestor(new ArrayList<Mapcode>());
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("MagicNumber")
+public class NearBorderIndexTest {
+    private static final Logger LOG = LoggerFactory.getLogger(NearBorderIndexTest.class);
+
+    private static final DataModel DATA_MODEL = DataModel.getInstance();
+
+    @Test
+    public void testUniformPointsMatchReference() {
+        LOG.info("testUniformPointsMatchReference");
+        final Random random = new Random(24680L);
+        for (int i = 0; i < 2000; i++) {
+            final Point point = Point.fromUniformlyDistributedRandomPoints(random);
+            for (final Mapcode mapcode : MapcodeCodec.encode(point)) {
+                assertMatchesReference(point, mapcode.getTerritory());
+            }
+        }
+    }
+
+    @Test
+    public void testPointsNearRecordCornersMatchReference() {
+        LOG.info("testPointsNearRecordCornersMatchReference");
+        final Random random = new Random(97531L);
+        int nrNear = 0;
+        for (int i = 0; i < 5000; i++) {
+
+            // Pick a point close to the corner of a random territory record.
+            final int record = random.nextInt(DATA_MODEL.getNrTerritoryRecords());
+            final int lat = random.nextBoolean() ? DATA_MODEL.getLatMicroDegMin(record) : DATA_MODEL.getLatMicroDegMax(record);
+            final int lon = random.nextBoolean() ? DATA_MODEL.getLonMicroDegMin(record) : DATA_MODEL.getLonMicroDegMax(record);
+            final Point point = Point.fromMicroDeg(lat + random.nextInt(401) - 200, lon + random.nextInt(401) - 200);
+            for (final Mapcode mapcode : MapcodeCodec.encode(point)) {
+                if (assertMatchesReference(point, mapcode.getTerritory())) {
+                    nrNear++;
+                }
+            }
+        }
+        LOG.info("testPointsNearRecordCornersMatchReference: {} points near multiple borders", nrNear);
+        assertTrue(nrNear > 0);
+    }
+
+    @Test
+    public void testAllTerritoriesMatchReference() {
+        LOG.info("testAllTerritoriesMatchReference");
+        final Random random = new Random(13579L);
+        int nrNear = 0;
+        for (int i = 0; i < 300; i++) {
+
+            // Check points near record borders in every territory, including territories far away.
+            final int record = random.nextInt(DATA_MODEL.getNrTerritoryRecords());
+            final Point point = Point.fromMicroDeg(
+                    DATA_MODEL.getLatMicroDegMax(record) + random.nextInt(201) - 100,
+                    DATA_MODEL.getLonMicroDegMin(record) + random.nextInt(201) - 100);
+            for (final Territory territory : Territory.values()) {
+                if (assertMatchesReference(point, territory)) {
+                    nrNear++;
+                }
+            }
+        }
+        LOG.info("testAllTerritoriesMatchReference: {} territories near multiple borders", nrNear);
+        assertTrue(nrNear > 0);
+    }
+
+    @Test
+    public void testEncodeWithBorderFlags() {
+        LOG.info("testEncodeWithBorderFlags");
+        final Random random = new Random(86420L);
+        int nrNear = 0;
+        for (int i = 0; i < 5000; i++) {
+            final int record = random.nextInt(DATA_MODEL.getNrTerritoryRecords());
+            final Point point = Point.fromMicroDeg(
+                    DATA_MODEL.getLatMicroDegMin(record) + random.nextInt(201) - 100,
+                    DATA_MODEL.getLonMicroDegMax(record) + random.nextInt(201) - 100);
+            final List<Mapcode> mapcodes = MapcodeCodec.encode(point);
+            final List<MapcodeWithBorderFlag> results = MapcodeCodec.encodeWithBorderFlags(point);
+            assertEquals(mapcodes.size(), results.size());
+            for (int j = 0; j < mapcodes.size(); j++) {
+                final Mapcode mapcode = mapcodes.get(j);
+                assertEquals(mapcode, results.get(j).getMapcode());
+                final boolean expected = MapcodeCodec.isNearMultipleBorders(point, mapcode.getTerritory());
+                assertEquals("point=" + point + ", mapcode=" + mapcode, expected, results.get(j).isNearMultipleBorders());
+                if (expected) {
+                    nrNear++;
+                }
+            }
+        }
+        LOG.info("testEncodeWithBorderFlags: {} mapcodes near multiple borders", nrNear);
+        assertTrue(nrNear > 0);
+
+        // Restricted to a territory.
+        final Point point = Point.fromDeg(52.376514, 4.908543);
+        assertEquals(MapcodeCodec.encode(point, Territory.NLD).size(),
+                MapcodeCodec.encodeWithBorderFlags(point, Territory.NLD).size());
+        assertTrue(MapcodeCodec.encodeWithBorderFlags(point, Territory.BEL).isEmpty());
+    }
+
+    @Test
+    public void testInternational() {
+        LOG.info("testInternational");
+        assertFalse(MapcodeCodec.isNearMultipleBorders(Point.fromDeg(0.0, 0.0), Territory.AAA));
+    }
+
+    private static boolean assertMatchesReference(final Point point, final Territory territory) {
+        final boolean expected = isNearMultipleBordersReference(point, territory);
+        assertEquals("point=" + point + ", territory=" + territory, expected,
+                MapcodeCodec.isNearMultipleBorders(point, territory));
+        return expected;
+    }
+
+    // Original implementation, which checks all records of a territory and its parent one by one.
+    private static boolean isNearMultipleBordersReference(final Point point, final Territory territory) {
+        if (territory != Territory.AAA) {
+            final int territoryNumber = territory.getNumber();
+            if (territory.getParentTerritory() != null) {
+                if (isNearMultipleBordersReference(point, territory.getParentTerritory())) {
+                    return true;
+                }
+            }
+            int nrFound = 0;
+            final int fromTerritoryRecord = DATA_MODEL.getDataFirstRecord(territoryNumber);
+            final int uptoTerritoryRecord = DATA_MODEL.getDataLastRecord(territoryNumber);
+            for (int territoryRecord = uptoTerritoryRecord; territoryRecord >= fromTerritoryRecord; territoryRecord--) {
+                if (!Data.isRestricted(territoryRecord)) {
+                    final Boundary boundary = Boundary.createBoundaryForTerritoryRecord(territoryRecord);
+                    final int xdiv8 = Common.xDivider(boundary.getLatMicroDegMin(), boundary.getLatMicroDegMax()) / 4;
+                    if (boundary.extendBoundary(60, xdiv8).containsPoint(point)) {
+                        if (!boundary.extendBoundary(-60, -xdiv8).containsPoint(point)) {
+                            nrFound++;
+                            if (nrFound > 1) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("MagicNumber")
+public class NeighbourTest {
+    private static final Logger LOG = LoggerFactory.getLogger(NeighbourTest.class);
+
+    @Test
+    public void testNeighboursInCity() throws UnknownMapcodeException {
+        LOG.info("testNeighboursInCity");
+        final Mapcode mapcode = MapcodeCodec.encodeToShortest(52.376514, 4.908543, Territory.NLD);
+        for (int precision = 0; precision <= 8; precision++) {
+            final Map<Direction, Mapcode> neighbours = MapcodeCodec.getNeighbours(mapcode, precision);
+            assertEquals(Direction.values().length, neighbours.size());
+            final Set<String> codes = new HashSet<String>();
+            codes.add(mapcode.getCode(precision));
+            for (final Direction direction : Direction.values()) {
+                final Mapcode neighbour = neighbours.get(direction);
+                assertEquals(Territory.NLD, neighbour.getTerritory());
+                assertEquals(mapcode.getCode(precision).length(), neighbour.getCode(precision).length());
+                assertTrue("Duplicate " + neighbour, codes.add(neighbour.getCode(precision)));
+                assertEquals(neighbour, MapcodeCodec.getNeighbour(mapcode, direction, precision));
+                checkNeighbour(mapcode, direction, precision, neighbour);
+            }
+        }
+    }
+
+    @Test
+    public void testOppositeNeighbours() throws UnknownMapcodeException {
+        LOG.info("testOppositeNeighbours");
+        final Mapcode mapcode = MapcodeCodec.encodeToShortest(52.376514, 4.908543, Territory.NLD);
+        final Mapcode north = MapcodeCodec.getNeighbour(mapcode, Direction.NORTH, 2);
+        assertEquals(mapcode.getCode(2), MapcodeCodec.getNeighbour(north, Direction.SOUTH, 2).getCode(2));
+        final Mapcode east = MapcodeCodec.getNeighbour(mapcode, Direction.EAST, 0);
+        assertEquals(mapcode.getCode(), MapcodeCodec.getNeighbour(east, Direction.WEST, 0).getCode());
+    }
+
+    @Test
+    public void testNeighboursOfRandomPoints() throws UnknownMapcodeException {
+        LOG.info("testNeighboursOfRandomPoints");
+        final Random random = new Random(112233L);
+        int nrNeighbours = 0;
+        for (int i = 0; i < 1000; i++) {
+            final Point point = Point.fromUniformlyDistributedRandomPoints(random);
+            for (final Mapcode mapcode : MapcodeCodec.encode(point)) {
+                final int precision = random.nextInt(3);
+                for (final Map.Entry<Direction, Mapcode> entry : MapcodeCodec.getNeighbours(mapcode, precision).entrySet()) {
+                    checkNeighbour(mapcode, entry.getKey(), precision, entry.getValue());
+                    nrNeighbours++;
+                }
+            }
+        }
+        LOG.info("testNeighboursOfRandomPoints: {} neighbours", nrNeighbours);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNeighbourPrecisionError() throws UnknownMapcodeException {
+        LOG.info("testNeighbourPrecisionError");
+        MapcodeCodec.getNeighbours(MapcodeCodec.encodeToInternational(52.376514, 4.908543), 9);
+    }
+
+    @Test(expected = UnknownMapcodeException.class)
+    public void testNeighbourOfUnknownMapcode() throws UnknownMapcodeException {
+        LOG.info("testNeighbourOfUnknownMapcode");
+        MapcodeCodec.getNeighbours(new Mapcode("ZZZ.ZZZ", Territory.NLD), 0);
+    }
+
+    // The neighbour must be a mapcode of the first point outside the zone in the direction.
+    private static void checkNeighbour(final Mapcode mapcode, final Direction direction, final int precision,
+                                       final Mapcode neighbour) throws UnknownMapcodeException {
+        final MapcodeZone zone = Decoder.decodeToMapcodeZone(mapcode.getCode(precision), mapcode.getTerritory());
+        final double latFraction = (direction.getLatStep() > 0) ? zone.getLatFractionMax() :
+                ((direction.getLatStep() < 0) ? (zone.getLatFractionMin() - 1.0) :
+                        Math.floor((zone.getLatFractionMin() + zone.getLatFractionMax()) / 2.0));
+        final double lonFraction = (direction.getLonStep() > 0) ? zone.getLonFractionMax() :
+                ((direction.getLonStep() < 0) ? (zone.getLonFractionMin() - 1.0) :
+                        Math.floor((zone.getLonFractionMin() + zone.getLonFractionMax()) / 2.0));
+        final Point point = Point.fromLatLonFractions(latFraction, lonFraction);
+        assertNotEquals(mapcode.getCode(precision), neighbour.getCode(precision));
+        boolean found = false;
+        for (final Mapcode encoded : MapcodeCodec.encode(point)) {
+            found = found || ((encoded.getTerritory() == neighbour.getTerritory()) &&
+                    encoded.getCode(precision).equals(neighbour.getCode(precision)));
+        }
+        assertTrue("Neighbour " + neighbour + " of " + mapcode + " (" + direction + ") not a mapcode of " + point, found);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("MagicNumber")
+public class RecordScannerTest {
+    private static final Logger LOG = LoggerFactory.getLogger(RecordScannerTest.class);
+
+    private static final DataModel DATA_MODEL = DataModel.getInstance();
+
+    @Test
+    public void testFindContainingRecordsMatchesBoundary() {
+        LOG.info("testFindContainingRecordsMatchesBoundary: implementation={}", RecordScanner.getImplementationName());
+        final BoundaryLanes lanes = DATA_MODEL.getRecordBoundaries();
+        final int last = DATA_MODEL.getNrTerritoryRecords() - 1;
+        final int[] result = new int[last + 1];
+        final Random random = new Random(12345L);
+        for (int i = 0; i < 500; i++) {
+            final Point point = Point.fromUniformlyDistributedRandomPoints(random);
+            final int count = RecordScanner.findContaining(lanes, 0, last,
+                    point.getLatMicroDeg(), point.getLonMicroDeg(), result);
+            assertMatchesBoundaries(point, 0, last, result, count);
+        }
+    }
+
+    @Test
+    public void testFindContainingRecordsInSubRanges() {
+        LOG.info("testFindContainingRecordsInSubRanges: implementation={}", RecordScanner.getImplementationName());
+        final BoundaryLanes lanes = DATA_MODEL.getRecordBoundaries();
+        final int[] result = new int[lanes.size()];
+        final Random random = new Random(67890L);
+        for (int i = 0; i < 50; i++) {
+            final Point point = Point.fromUniformlyDistributedRandomPoints(random);
+
+            // Check ranges of different lengths, to check both the vector loop and the remaining tail.
+            for (int length = 1; length <= 40; length++) {
+                final int from = 1000 + (length * 7);
+                final int upto = (from + length) - 1;
+                final int count = RecordScanner.findContaining(lanes, from, upto,
+                        point.getLatMicroDeg(), point.getLonMicroDeg(), result);
+                assertMatchesBoundaries(point, from, upto, result, count);
+            }
+        }
+    }
+
+    @Test
+    public void testFindContainingTerritories() {
+        LOG.info("testFindContainingTerritories: implementation={}", RecordScanner.getImplementationName());
+        final BoundaryLanes lanes = DATA_MODEL.getTerritoryBoundaries();
+        final int last = Territory.AAA.getNumber();
+        final int[] result = new int[last + 1];
+        final Random random = new Random(13579L);
+        for (int i = 0; i < 500; i++) {
+            final Point point = Point.fromUniformlyDistributedRandomPoints(random);
+            final int count = RecordScanner.findContaining(lanes, 0, last,
+                    point.getLatMicroDeg(), point.getLonMicroDeg(), result);
+            int expected = 0;
+            for (int territory = 0; territory <= last; territory++) {
+                final int record = DATA_MODEL.getDataLastRecord(territory);
+                if (Boundary.createBoundaryForTerritoryRecord(record).containsPoint(point)) {
+                    assertTrue(expected < count);
+                    assertEquals(territory, result[expected]);
+                    expected++;
+                }
+            }
+            assertEquals(expected, count);
+
+            // Every point is within the international territory.
+            assertEquals(Territory.AAA.getNumber(), result[count - 1]);
+        }
+    }
+
+    private static void assertMatchesBoundaries(
+            final Point point, final int from, final int upto, final int[] result, final int count) {
+        int expected = 0;
+        for (int record = from; record <= upto; record++) {
+            if (Boundary.createBoundaryForTerritoryRecord(record).containsPoint(point)) {
+                assertTrue("point=" + point + ", record=" + record, expected < count);
+                assertEquals("point=" + point, record, result[expected]);
+                expected++;
+            }
+        }
+        assertEquals("point=" + point, expected, count);
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 
 @SuppressWarnings("MagicNumber")
 public class TerritoryTest {
@@ -44,6 +45,29 @@ public class TerritoryTest {
         assertEquals("THA KF.LZF", s2);
     }
 
+    @Test
+    public void fromStringRange() {
+        LOG.info("fromStringRange");
+        final String s = "xx  us_ca 49.4V";
+        assertEquals(Territory.US_CA, Territory.fromString(s, 2, 9, null));
+        assertEquals(Territory.US_CA, Territory.fromString("United States of America-CA", 0, 27, null));
+        assertEquals(Territory.IN_BR, Territory.fromString("BR", 0, 2, null));
+        assertEquals(Territory.IN_BR, Territory.fromString("BR", 0, 2, Territory.IND));
+        assertEquals(Territory.BR_RR, Territory.fromString("RR", 0, 2, Territory.BRA));
+        assertEquals(null, Territory.fromString("RR", 0, 2, Territory.USA));
+        assertEquals(null, Territory.fromString(s, 0, 9, null));
+        assertEquals(null, Territory.fromString(s, 4, 4, null));
+        assertEquals(null, Territory.fromString("\u0391\u0391\u0391", 0, 3, null));
+
+        // The range must find the same territory as the string itself, for all names.
+        for (final Territory territory : Territory.values()) {
+            for (final String name : new String[]{territory.toString(), territory.name(), territory.getFullName()}) {
+                final String padded = "(" + name.toLowerCase() + ")";
+                assertEquals(name, Territory.fromString(name), Territory.fromString(padded, 1, padded.length() - 1, null));
+            }
+        }
+    }
+
     @Test
     public void checkFullName() {
         LOG.info("checkFullName");
@@ -169,6 +193,29 @@ public class TerritoryTest {
         assertEquals("\u0393\u03a8\u039e", Territory.GRC.toAlphaCode(AlphaCodeFormat.INTERNATIONAL, Alphabet.GREEK));
     }
 
+    @Test
+    public void checkAlphaCodeAllAlphabets() {
+        LOG.info("checkAlphaCodeAllAlphabets");
+        for (final Territory territory : Territory.values()) {
+            assertEquals(territory.name().replace('_', '-'), territory.toString());
+            for (final AlphaCodeFormat format : AlphaCodeFormat.values()) {
+                final String roman = territory.toAlphaCode(format);
+                for (final Alphabet alphabet : Alphabet.values()) {
+                    String expected;
+                    try {
+                        expected = Mapcode.convertStringToAlphabet(roman, alphabet);
+                    } catch (final IllegalArgumentException ignored) {
+                        expected = roman;
+                    }
+                    assertEquals(expected, territory.toAlphaCode(format, alphabet));
+
+                    // Codes are remembered, so the same string is returned again.
+                    assertSame(territory.toAlphaCode(format, alphabet), territory.toAlphaCode(format, alphabet));
+                }
+            }
+        }
+    }
+
     @Test(expected = UnknownTerritoryException.class)
     public void testFromStringError1() {
         LOG.info("testFromStringError1");
@@ -193,6 +240,15 @@ public class TerritoryTest {
         assertEquals(Territory.VAT, Territory.fromNumber(0));
     }
 
+    @Test
+    public void testFromNumberAll() {
+        LOG.info("testFromNumberAll");
+        assertEquals(Territory.values().length, Territory.getNrTerritories());
+        for (final Territory territory : Territory.values()) {
+            assertEquals(territory, Territory.fromNumber(territory.getNumber()));
+        }
+    }
+
     @Test(expected = UnknownTerritoryException.class)
     public void testFromNumberError1() {
         LOG.info("testFromNumberError1");
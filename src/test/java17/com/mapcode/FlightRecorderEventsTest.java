@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2016-2021, Stichting Mapcode Foundation (http://www.mapcode.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mapcode;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@SuppressWarnings("MagicNumber")
+public class FlightRecorderEventsTest {
+    private static final Logger LOG = LoggerFactory.getLogger(FlightRecorderEventsTest.class);
+
+    @Before
+    public void setUp() {
+        // Events are only emitted by the Java 17 classes, which are tested from the multi-release JAR.
+        LOG.info("setUp: implementation={}", FlightRecorderEvents.getImplementationName());
+        Assume.assumeTrue("jfr".equals(FlightRecorderEvents.getImplementationName()));
+    }
+
+    @Test
+    public void testEncodeDecodeEvents() throws Exception {
+        LOG.info("testEncodeDecodeEvents");
+        final List<RecordedEvent> events;
+        final Path file = Files.createTempFile("mapcode", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("com.mapcode.Encode");
+                recording.enable("com.mapcode.Decode");
+                recording.start();
+                MapcodeCodec.encodeToShortest(52.376514, 4.908542, Territory.NLD);
+                MapcodeCodec.decode("NLD 49.4V");
+                try {
+                    MapcodeCodec.decode("XYZ 49.4V");
+                    fail();
+                } catch (final UnknownMapcodeException ignored) {
+                    // OK.
+                }
+                recording.stop();
+                recording.dump(file);
+            }
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+
+        final List<RecordedEvent> encodeEvents = events.stream().
+                filter(e -> "com.mapcode.Encode".equals(e.getEventType().getName())).toList();
+        assertEquals(1, encodeEvents.size());
+        final RecordedEvent encodeEvent = encodeEvents.get(0);
+        assertEquals("NLD", encodeEvent.getString("restrictToTerritory"));
+        assertEquals("NLD", encodeEvent.getString("territory"));
+        assertEquals(22, encodeEvent.getInt("codex"));
+        assertEquals(1, encodeEvent.getInt("resultCount"));
+        assertTrue(encodeEvent.getInt("recordsScanned") > 0);
+
+        final List<RecordedEvent> decodeEvents = events.stream().
+                filter(e -> "com.mapcode.Decode".equals(e.getEventType().getName())).toList();
+        assertEquals(2, decodeEvents.size());
+        final RecordedEvent decodeEvent = decodeEvents.get(0);
+        assertEquals("DECODE", decodeEvent.getString("operation"));
+        assertEquals("NLD 49.4V", decodeEvent.getString("mapcode"));
+        assertEquals("NLD", decodeEvent.getString("territory"));
+        assertEquals(22, decodeEvent.getInt("codex"));
+        assertEquals(1, decodeEvent.getInt("resultCount"));
+        assertTrue(decodeEvent.getInt("recordsScanned") > 0);
+
+        final RecordedEvent failedEvent = decodeEvents.get(1);
+        assertEquals(0, failedEvent.getInt("resultCount"));
+        assertEquals("UNKNOWN_TERRITORY", failedEvent.getString("error"));
+    }
+
+    @Test
+    public void testNoEventsWithoutRecording() {
+        LOG.info("testNoEventsWithoutRecording");
+        assertNull(FlightRecorderEvents.beginEncode());
+        assertNull(FlightRecorderEvents.beginDecode());
+    }
+}